@@ -0,0 +1,46 @@
+package io.cloudchains.app.crypto;
+
+import com.subgraph.orchid.encoders.Base64;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key work done when unlocking a wallet: the login hash and the PBKDF2 unlock of
+ * the base seed. Address derivation is measured by AddressDerivationBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyBenchmark {
+    private static final String PASSWORD = "Test^1234";
+    private static final List<String> MNEMONIC = Arrays.asList("one two three cake neutral benefit quick hip level mother fine burst".split(" "));
+
+    private String passphrase;
+    private byte[] salt;
+    private byte[] seedEncrypted;
+
+    @Setup
+    public void setup() {
+        passphrase = LoginUtils.loginToEntropy(PASSWORD);
+
+        salt = new byte[20];
+        Arrays.fill(salt, (byte) 7);
+        seedEncrypted = Base64.decode(KeyHandler.encryptBaseSeed(passphrase, String.join(" ", MNEMONIC).getBytes(), salt));
+    }
+
+    @Benchmark
+    public String loginToEntropy() {
+        return LoginUtils.loginToEntropy(PASSWORD);
+    }
+
+    @Benchmark
+    public List<String> unlockBaseSeed() throws Exception {
+        return KeyHandler.decryptBaseSeed(passphrase, seedEncrypted, salt);
+    }
+}
@@ -0,0 +1,90 @@
+package io.cloudchains.app.net;
+
+import com.google.gson.JsonArray;
+import io.cloudchains.app.util.AddressBalance;
+import io.cloudchains.app.util.UTXO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wallet paths of CoinInstance and AddressBalance on a synthetic wallet. Replies
+ * repeat utxos the wallet already holds, as steady state refreshes do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoinInstanceBenchmark {
+	@Param({"100", "2000"})
+	public int addresses;
+
+	@Param({"1000", "50000"})
+	public int utxos;
+
+	private SyntheticWallet wallet;
+	private CoinInstance coin;
+	private List<UTXO> reply;
+	private List<AddressBalance> addressList;
+	private List<ArrayList<UTXO>> addressUtxos;
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		wallet = new SyntheticWallet(addresses, utxos);
+		coin = wallet.getCoin();
+		reply = new ArrayList<>(wallet.getUtxos());
+		addressList = wallet.getAddresses();
+
+		addressUtxos = new ArrayList<>(addressList.size());
+		for (AddressBalance addressBalance : addressList)
+			addressUtxos.add(wallet.getUtxos(addressBalance));
+	}
+
+	private int nextAddress() {
+		next = (next + 1) % addressList.size();
+		return next;
+	}
+
+	@Benchmark
+	public void processUtxos() {
+		coin.processUtxos(reply);
+	}
+
+	@Benchmark
+	public JsonArray getAllUTXOS() {
+		return coin.getAllUTXOS();
+	}
+
+	@Benchmark
+	public JsonArray getAllTransactions() {
+		return coin.getAllTransactions();
+	}
+
+	@Benchmark
+	public void setUtxos() {
+		int address = nextAddress();
+		addressList.get(address).setUtxos(addressUtxos.get(address));
+	}
+
+	@Benchmark
+	public boolean addUtxo() {
+		int address = nextAddress();
+		ArrayList<UTXO> known = addressUtxos.get(address);
+		return !known.isEmpty() && addressList.get(address).addUtxo(known.get(0));
+	}
+
+	@Benchmark
+	public double addressBalance() {
+		return addressList.get(nextAddress()).getBalanceProp();
+	}
+
+	@Benchmark
+	public double totalBalance() {
+		return coin.getWalletHelper().getTotalBalance();
+	}
+}
@@ -0,0 +1,92 @@
+package io.cloudchains.app.net;
+
+import io.cloudchains.app.util.AddressBalance;
+import io.cloudchains.app.util.UTXO;
+import io.cloudchains.app.util.history.Transaction;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.params.MainNetParams;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fills the wallet of a coin with synthetic addresses, utxos and history for the
+ * wallet benchmarks. The coin is not initialized, so no wallet file or peers are
+ * needed. Keys are derived from their index and the addresses use bitcoin main
+ * net parameters, which lets scripts be built without the coin's own.
+ */
+public class SyntheticWallet {
+	public static final CoinTicker TICKER = CoinTicker.BITCOIN;
+	public static final int FIRST_BLOCKTIME = 1600000000;
+
+	private final CoinInstance coin;
+	private final List<AddressBalance> addresses;
+	private final List<UTXO> utxos;
+	private final List<Transaction> transactions;
+
+	/**
+	 * @param addressCount Addresses in the wallet
+	 * @param utxoCount Unspent outputs spread evenly over the addresses, and as many history entries
+	 */
+	public SyntheticWallet(int addressCount, int utxoCount) {
+		NetworkParameters params = MainNetParams.get();
+		coin = CoinInstance.getInstance(TICKER);
+		coin.addBlockCount(TICKER, 1500000 + utxoCount);
+
+		addresses = new ArrayList<>(addressCount);
+		for (int i = 0; i < addressCount; i++) {
+			ECKey key = ECKey.fromPrivate(BigInteger.valueOf(i + 1));
+			AddressBalance addressBalance = new AddressBalance(key.toAddress(params), key.getPrivateKeyEncoded(params), coin.getWalletStore());
+			coin.getWalletStore().addAddress(addressBalance);
+			addresses.add(addressBalance);
+		}
+
+		utxos = new ArrayList<>(utxoCount);
+		transactions = new ArrayList<>(utxoCount);
+		for (int i = 0; i < utxoCount; i++) {
+			String address = addresses.get(i % addressCount).getAddrProp();
+			String txid = String.format("%064x", i * 7919L);
+
+			utxos.add(new UTXO(TICKER, address, txid, i % 3, 1500000 + i, 100000L + i));
+
+			Transaction tx = new Transaction(TICKER, address, txid, String.format("%064x", i * 31L), i % 3,
+					(100000L + i) / 100000000.0, utxoCount - i, FIRST_BLOCKTIME + i * 600, Collections.emptyList());
+			tx.setCategory("receive");
+			transactions.add(tx);
+		}
+
+		// Seeded through the store, processUtxos would also build the coin's cloud transaction list
+		coin.getWalletStore().update(builder -> {
+			for (UTXO utxo : utxos)
+				builder.addUtxo(utxo);
+			return null;
+		});
+		coin.processHistoryTxs(transactions);
+	}
+
+	public CoinInstance getCoin() {
+		return coin;
+	}
+
+	public List<AddressBalance> getAddresses() {
+		return addresses;
+	}
+
+	public List<UTXO> getUtxos() {
+		return utxos;
+	}
+
+	/**
+	 * @return Unspent outputs of one address, as the backend would report them
+	 */
+	public ArrayList<UTXO> getUtxos(AddressBalance addressBalance) {
+		return new ArrayList<>(coin.getWalletState().getUnspent(addressBalance.getAddrProp()));
+	}
+
+	public List<Transaction> getTransactions() {
+		return transactions;
+	}
+}
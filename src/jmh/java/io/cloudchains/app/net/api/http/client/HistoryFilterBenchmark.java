@@ -0,0 +1,50 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.gson.JsonArray;
+import io.cloudchains.app.net.CoinInstance;
+import io.cloudchains.app.net.SyntheticWallet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of answering a gettransactions call from the wallet's history: building
+ * the JSON array and filtering it to the requested time window, which keeps
+ * about half of the transactions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryFilterBenchmark {
+    @Param({"100", "2000"})
+    public int addresses;
+
+    @Param({"1000", "50000"})
+    public int utxos;
+
+    private CoinInstance coin;
+    private int startTime;
+    private int endTime;
+
+    @Setup
+    public void setup() {
+        coin = new SyntheticWallet(addresses, utxos).getCoin();
+
+        int span = utxos * 600;
+        startTime = SyntheticWallet.FIRST_BLOCKTIME + span / 4;
+        endTime = SyntheticWallet.FIRST_BLOCKTIME + span * 3 / 4;
+    }
+
+    @Benchmark
+    public JsonArray filterHistory() {
+        return HTTPClient.filterHistory(coin.getAllTransactions(), startTime, endTime);
+    }
+
+    @Benchmark
+    public JsonArray allHistory() {
+        return HTTPClient.filterHistory(coin.getAllTransactions(), 0, 0);
+    }
+}
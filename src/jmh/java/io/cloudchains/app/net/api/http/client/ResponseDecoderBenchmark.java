@@ -0,0 +1,132 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import io.cloudchains.app.net.CoinTicker;
+import io.cloudchains.app.util.UTXO;
+import io.cloudchains.app.util.history.Transaction;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the tree based getutxos/gethistory parsing HTTPClient used before
+ * with the streaming ResponseDecoder. Run with the gc profiler to see allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseDecoderBenchmark {
+    @Param({"1000", "20000"})
+    public int entries;
+
+    private byte[] utxoResponse;
+    private byte[] historyResponse;
+
+    @Setup
+    public void setup() {
+        StringBuilder utxos = new StringBuilder("{\"utxos\":[");
+        for (int i = 0; i < entries; i++) {
+            if (i > 0)
+                utxos.append(',');
+            utxos.append("{\"address\":\"BkJ2h9K3mKLVLsbMPEzEiyB5fhNrDDTL").append(i % 50)
+                    .append("\",\"txhash\":\"").append(String.format("%064x", i))
+                    .append("\",\"vout\":").append(i % 4)
+                    .append(",\"block_number\":").append(1500000 + i)
+                    .append(",\"value\":").append(i * 0.0001 + 0.5).append('}');
+        }
+        utxos.append("]}");
+        utxoResponse = utxos.toString().getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder history = new StringBuilder("[[");
+        for (int i = 0; i < entries; i++) {
+            if (i > 0)
+                history.append(',');
+            history.append("{\"address\":\"BkJ2h9K3mKLVLsbMPEzEiyB5fhNrDDTL").append(i % 50)
+                    .append("\",\"txid\":\"").append(String.format("%064x", i))
+                    .append("\",\"blockhash\":\"").append(String.format("%064x", i * 31L))
+                    .append("\",\"vout\":").append(i % 4)
+                    .append(",\"amount\":").append(i * 0.0001 + 0.5)
+                    .append(",\"confirmations\":").append(i % 100)
+                    .append(",\"blocktime\":").append(1600000000 + i)
+                    .append(",\"from_addresses\":[\"BfromAddress").append(i % 7).append("\"]")
+                    .append(",\"category\":\"receive\",\"fee\":0.0001}");
+        }
+        history.append("]]");
+        historyResponse = history.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<UTXO> utxosLegacy() {
+        String res = new String(utxoResponse, StandardCharsets.UTF_8);
+        JSONArray utxoArr = new JSONObject(res).getJSONArray("utxos");
+
+        List<UTXO> utxoList = new ArrayList<>();
+        for (int i = 0; i < utxoArr.length(); i++) {
+            utxoList.add(new UTXO(CoinTicker.BLOCKNET,
+                    utxoArr.getJSONObject(i).getString("address"),
+                    utxoArr.getJSONObject(i).getString("txhash"),
+                    utxoArr.getJSONObject(i).getInt("vout"),
+                    utxoArr.getJSONObject(i).getInt("block_number"),
+                    (long) Math.floor(utxoArr.getJSONObject(i).getDouble("value") * 100000000.0)));
+        }
+        return utxoList;
+    }
+
+    @Benchmark
+    public List<UTXO> utxosStreaming() throws IOException {
+        return ResponseDecoder.decodeUtxos(CoinTicker.BLOCKNET,
+                new InputStreamReader(new ByteArrayInputStream(utxoResponse), StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public List<Transaction> historyLegacy() {
+        String res = new String(historyResponse, StandardCharsets.UTF_8);
+        JsonArray json = new Gson().fromJson(res, JsonArray.class);
+
+        List<Transaction> historyList = new ArrayList<>();
+        for (JsonElement elements : json) {
+            for (JsonElement element : elements.getAsJsonArray()) {
+                JsonObject jsonObject = element.getAsJsonObject();
+
+                List<String> fromAddresses = new Gson().fromJson(jsonObject.get("from_addresses"), new TypeToken<List<String>>() {
+                }.getType());
+
+                Transaction tx = new Transaction(CoinTicker.BLOCKNET,
+                        jsonObject.get("address").getAsString(),
+                        jsonObject.get("txid").getAsString(),
+                        jsonObject.get("blockhash").getAsString(),
+                        jsonObject.get("vout").getAsInt(),
+                        jsonObject.get("amount").getAsDouble(),
+                        jsonObject.get("confirmations").getAsInt(),
+                        jsonObject.get("blocktime").getAsInt(),
+                        fromAddresses);
+                tx.setCategory(jsonObject.get("category").getAsString());
+                tx.setFee(jsonObject.get("fee").getAsDouble());
+
+                historyList.add(tx);
+            }
+        }
+        return historyList;
+    }
+
+    @Benchmark
+    public List<Transaction> historyStreaming() throws IOException {
+        return ResponseDecoder.decodeHistory(CoinTicker.BLOCKNET,
+                new InputStreamReader(new ByteArrayInputStream(historyResponse), StandardCharsets.UTF_8));
+    }
+}
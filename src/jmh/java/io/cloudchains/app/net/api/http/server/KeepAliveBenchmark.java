@@ -0,0 +1,196 @@
+package io.cloudchains.app.net.api.http.server;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustained calls/sec against a server with the RPC servers' connection handling:
+ * a new connection per call as before, one persistent connection per client, and
+ * pipelined requests on a persistent connection. The handler answers immediately
+ * so the numbers show connection overhead, not RPC cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class KeepAliveBenchmark {
+	private static final int PIPELINE_DEPTH = 16;
+	private static final String BODY = "{\"method\":\"getblockcount\",\"params\":[]}";
+
+	private EventLoopGroup group;
+	private Channel serverChannel;
+	private int port;
+
+	@Setup
+	public void setup() throws InterruptedException {
+		group = new NioEventLoopGroup(2);
+		serverChannel = new ServerBootstrap()
+				.group(group)
+				.channel(NioServerSocketChannel.class)
+				.childHandler(new ChannelInitializer<SocketChannel>() {
+					@Override
+					protected void initChannel(SocketChannel ch) {
+						ChannelPipeline pipeline = ch.pipeline();
+						pipeline.addLast(new IdleStateHandler(0, 0, 60));
+						pipeline.addLast(new HttpRequestDecoder());
+						pipeline.addLast(new HttpResponseEncoder());
+						pipeline.addLast(new HttpObjectAggregator(1024 * 1024));
+						pipeline.addLast(new KeepAliveHandler(Integer.MAX_VALUE));
+						pipeline.addLast(new BlockCountHandler());
+					}
+				})
+				.bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+		port = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+	}
+
+	@TearDown
+	public void tearDown() {
+		serverChannel.close().syncUninterruptibly();
+		group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+	}
+
+	@State(Scope.Thread)
+	public static class Connection {
+		private Socket socket;
+		private OutputStream out;
+		private InputStream in;
+
+		@Setup
+		public void open(KeepAliveBenchmark server) throws IOException {
+			socket = new Socket("127.0.0.1", server.port);
+			socket.setTcpNoDelay(true);
+			out = socket.getOutputStream();
+			in = new BufferedInputStream(socket.getInputStream());
+		}
+
+		@TearDown
+		public void close() throws IOException {
+			socket.close();
+		}
+	}
+
+	@Benchmark
+	public int connectionPerCall() throws IOException {
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			socket.setTcpNoDelay(true);
+			socket.getOutputStream().write(request(false));
+			return readResponse(new BufferedInputStream(socket.getInputStream()));
+		}
+	}
+
+	@Benchmark
+	public int persistent(Connection connection) throws IOException {
+		connection.out.write(request(true));
+		return readResponse(connection.in);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PIPELINE_DEPTH)
+	public int pipelined(Connection connection) throws IOException {
+		byte[] request = request(true);
+		for (int i = 0; i < PIPELINE_DEPTH; i++)
+			connection.out.write(request);
+
+		int bytes = 0;
+		for (int i = 0; i < PIPELINE_DEPTH; i++)
+			bytes += readResponse(connection.in);
+
+		return bytes;
+	}
+
+	private static byte[] request(boolean keepAlive) {
+		return ("POST / HTTP/1.1\r\n"
+				+ "Host: 127.0.0.1\r\n"
+				+ "Content-Type: application/json\r\n"
+				+ "Connection: " + (keepAlive ? "keep-alive" : "close") + "\r\n"
+				+ "Content-Length: " + BODY.length() + "\r\n\r\n"
+				+ BODY).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Reads one response and returns its body length.
+	 */
+	private static int readResponse(InputStream in) throws IOException {
+		int contentLength = 0;
+		StringBuilder line = new StringBuilder();
+		while (true) {
+			int b = in.read();
+			if (b == -1)
+				throw new IOException("Connection closed");
+			if (b != '\n') {
+				if (b != '\r')
+					line.append((char) b);
+				continue;
+			}
+
+			if (line.length() == 0)
+				break;
+
+			String header = line.toString().toLowerCase();
+			if (header.startsWith("content-length:"))
+				contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+			line.setLength(0);
+		}
+
+		for (int i = 0; i < contentLength; i++) {
+			if (in.read() == -1)
+				throw new IOException("Connection closed");
+		}
+
+		return contentLength;
+	}
+
+	private static class BlockCountHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+			boolean keepAlive = HttpUtil.isKeepAlive(request);
+			ByteBuf content = Unpooled.copiedBuffer("{\"result\":1500000,\"error\":null}", CharsetUtil.UTF_8);
+
+			FullHttpResponse response = new DefaultFullHttpResponse(request.protocolVersion(), HttpResponseStatus.OK, content);
+			response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+			response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+			response.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
+
+			if (keepAlive)
+				ctx.writeAndFlush(response);
+			else
+				ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+		}
+	}
+}
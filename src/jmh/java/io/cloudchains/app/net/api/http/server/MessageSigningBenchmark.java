@@ -0,0 +1,43 @@
+package io.cloudchains.app.net.api.http.server;
+
+import io.cloudchains.app.net.CoinTicker;
+import org.bitcoinj.core.ECKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * signmessage and verifymessage. Signing recovers the public key from the
+ * signature to find the recovery id, verifying recovers it once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageSigningBenchmark {
+	private static final CoinTicker TICKER = CoinTicker.LITECOIN;
+
+	private ECKey key;
+	private String message;
+	private String signature;
+
+	@Setup
+	public void setup() {
+		key = ECKey.fromPrivate(BigInteger.valueOf(0x5eed));
+		message = "xbridge order 5f3a1c0e9d7b42a6 taker fee paid";
+		signature = HTTPServerHandler.signMessage(TICKER, key, message);
+	}
+
+	@Benchmark
+	public String signMessage() {
+		return HTTPServerHandler.signMessage(TICKER, key, message);
+	}
+
+	@Benchmark
+	public boolean verifyMessage() {
+		return HTTPServerHandler.verifyMessage(TICKER, key, signature, message);
+	}
+}
@@ -0,0 +1,56 @@
+package io.cloudchains.app.net.api.http.server;
+
+import com.subgraph.orchid.encoders.Hex;
+import io.cloudchains.app.net.CoinInstance;
+import io.cloudchains.app.net.SyntheticWallet;
+import io.cloudchains.app.util.UTXO;
+import org.bitcoinj.core.*;
+import org.bitcoinj.params.MainNetParams;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Input signing as done by the signrawtransaction call: decode the raw transaction,
+ * look up the utxo and key of each input in the wallet, sign and serialize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignRawTransactionBenchmark {
+	@Param({"1", "10", "100"})
+	public int inputs;
+
+	private NetworkParameters params;
+	private CoinInstance coin;
+	private String rawTx;
+
+	@Setup
+	public void setup() {
+		params = MainNetParams.get();
+		SyntheticWallet wallet = new SyntheticWallet(100, 1000);
+		coin = wallet.getCoin();
+
+		Transaction tx = new Transaction(params);
+		long value = 0;
+		for (int i = 0; i < inputs; i++) {
+			UTXO utxo = wallet.getUtxos().get(i);
+			TransactionOutPoint outPoint = new TransactionOutPoint(params, utxo.getVout(), Sha256Hash.wrap(utxo.getTxid()));
+			tx.addInput(new TransactionInput(params, null, new byte[0], outPoint));
+			value += utxo.getValue();
+		}
+		tx.addOutput(Coin.valueOf(value - 10000), wallet.getAddresses().get(0).getAddress());
+
+		rawTx = new String(Hex.encode(tx.bitcoinSerialize()));
+	}
+
+	@Benchmark
+	public String signRawTransaction() {
+		Transaction tx = new Transaction(params, Hex.decode(rawTx));
+		Transaction signedTx = HTTPServerHandler.signInputs(coin, tx);
+		return new String(Hex.encode(signedTx.bitcoinSerialize()));
+	}
+}
@@ -0,0 +1,38 @@
+package io.cloudchains.app.net.xrouter;
+
+import org.bitcoinj.core.ECKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing of an outgoing XRouter packet: hash, sign and pad the signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XRouterPacketBenchmark {
+	private XRouterPacketManager packetManager;
+	private ECKey key;
+	private byte[] packet;
+
+	@Setup
+	public void setup() {
+		// signPacket uses neither the serializer nor the network parameters
+		packetManager = new XRouterPacketManager(null, null);
+		key = ECKey.fromPrivate(BigInteger.valueOf(0x5eed));
+
+		packet = new byte[256];
+		new Random(42).nextBytes(packet);
+	}
+
+	@Benchmark
+	public byte[] signPacket() {
+		return packetManager.signPacket(packet, key);
+	}
+}
@@ -0,0 +1,112 @@
+package io.cloudchains.app.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+/**
+ * Cost of debug logging on the RPC path with the logger at INFO, as it runs
+ * outside of debugging. The disabled CCLogger and guarded variants should show
+ * no allocation in gc.alloc.rate.norm, unlike the eager concatenation. The
+ * enabled variants compare writing an INFO record on the calling thread with
+ * handing it to AsyncLogHandler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+	private static final Logger LOGGER = LogManager.getLogManager().getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+	private String response;
+	private String ticker;
+	private long blockCount;
+
+	// Enabled variants log to their own loggers, each with one handler
+	private Logger syncLogger;
+	private Logger asyncLogger;
+	private Handler syncHandler;
+	private AsyncLogHandler asyncHandler;
+
+	@Setup
+	public void setup() {
+		response = "{\"result\":\"" + "ab".repeat(256) + "\",\"error\":null,\"id\":1}";
+		ticker = "BLOCK";
+		blockCount = 2750000;
+
+		for (Handler handler : LOGGER.getHandlers())
+			LOGGER.removeHandler(handler);
+		LOGGER.setUseParentHandlers(false);
+		LOGGER.setLevel(Level.INFO);
+
+		syncHandler = new StreamHandler(OutputStream.nullOutputStream(), new SimpleFormatter());
+		syncHandler.setLevel(Level.INFO);
+		syncLogger = newLogger("xlite.bench.sync", syncHandler);
+
+		StreamHandler delegate = new StreamHandler(OutputStream.nullOutputStream(), new SimpleFormatter());
+		delegate.setLevel(Level.INFO);
+		asyncHandler = new AsyncLogHandler(delegate);
+		asyncLogger = newLogger("xlite.bench.async", asyncHandler);
+	}
+
+	private static Logger newLogger(String name, Handler handler) {
+		Logger logger = Logger.getLogger(name);
+		logger.setUseParentHandlers(false);
+		logger.setLevel(Level.INFO);
+		logger.addHandler(handler);
+		return logger;
+	}
+
+	@TearDown
+	public void tearDown() {
+		syncLogger.removeHandler(syncHandler);
+		asyncLogger.removeHandler(asyncHandler);
+		syncHandler.close();
+		asyncHandler.close();
+	}
+
+	@Benchmark
+	public void disabledEager() {
+		LOGGER.log(Level.FINER, "[httpclient] getTransaction " + response);
+	}
+
+	@Benchmark
+	public void disabledCCLogger() {
+		CCLogger.log(Level.FINER, "[httpclient] getTransaction ", response);
+	}
+
+	@Benchmark
+	public void disabledCCLoggerLong() {
+		CCLogger.log(Level.FINER, "[xrouter] Retrieved size: ", blockCount);
+	}
+
+	@Benchmark
+	public void disabledGuarded() {
+		if (LOGGER.isLoggable(Level.FINER))
+			LOGGER.log(Level.FINER, "[httpclient] Got blockcount for currency " + ticker + " - " + blockCount);
+	}
+
+	@Benchmark
+	public void disabledSupplier() {
+		CCLogger.log(Level.FINER, () -> "[httpclient] Got blockcount for currency " + ticker + " - " + blockCount);
+	}
+
+	@Benchmark
+	public void enabledSync() {
+		syncLogger.log(Level.INFO, "[httpclient] Got blockcount for currency " + ticker + " - " + blockCount);
+	}
+
+	@Benchmark
+	public void enabledAsync() {
+		asyncLogger.log(Level.INFO, "[httpclient] Got blockcount for currency " + ticker + " - " + blockCount);
+	}
+}
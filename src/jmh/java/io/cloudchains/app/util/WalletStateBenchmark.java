@@ -0,0 +1,126 @@
+package io.cloudchains.app.util;
+
+import io.cloudchains.app.net.CoinTicker;
+import org.bitcoinj.core.Sha256Hash;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-address utxo lists scanned before with WalletState, on a wallet
+ * of 100k utxos spread over 5k addresses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalletStateBenchmark {
+	private static final int UTXOS = 100000;
+	private static final int ADDRESSES = 5000;
+
+	private List<UTXO> utxos;
+	private Map<String, List<UTXO>> legacy;
+	private WalletStore walletStore;
+	private Sha256Hash[] probes;
+	private int[] probeVouts;
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		utxos = new ArrayList<>(UTXOS);
+		for (int i = 0; i < UTXOS; i++)
+			utxos.add(new UTXO(CoinTicker.BLOCKNET, "address" + (i % ADDRESSES), String.format("%064x", i * 7919L), i % 3, 1500000 + i, 100000L + i));
+
+		legacy = buildLegacy();
+		walletStore = buildIndexed();
+
+		Random random = new Random(42);
+		probes = new Sha256Hash[1024];
+		probeVouts = new int[probes.length];
+		for (int i = 0; i < probes.length; i++) {
+			UTXO utxo = utxos.get(random.nextInt(UTXOS));
+			probes[i] = Sha256Hash.wrap(utxo.getTxid());
+			probeVouts[i] = utxo.getVout();
+		}
+	}
+
+	private Map<String, List<UTXO>> buildLegacy() {
+		Map<String, List<UTXO>> addresses = new HashMap<>();
+		for (UTXO utxo : utxos) {
+			List<UTXO> list = addresses.computeIfAbsent(utxo.getAddress(), a -> new ArrayList<>());
+			boolean exists = list.stream().anyMatch(o -> o.getTxid().equals(utxo.getTxid()) && o.getVout() == utxo.getVout());
+			if (!exists)
+				list.add(utxo);
+		}
+		return addresses;
+	}
+
+	private WalletStore buildIndexed() {
+		WalletStore store = new WalletStore();
+		store.update(builder -> {
+			for (UTXO utxo : utxos)
+				builder.addUtxo(utxo);
+			return null;
+		});
+		return store;
+	}
+
+	private int nextProbe() {
+		next = (next + 1) & (probes.length - 1);
+		return next;
+	}
+
+	@Benchmark
+	public Object buildLegacyWallet() {
+		return buildLegacy();
+	}
+
+	@Benchmark
+	public Object buildIndexedWallet() {
+		return buildIndexed();
+	}
+
+	@Benchmark
+	public UTXO lookupLegacy() {
+		int probe = nextProbe();
+		for (List<UTXO> list : legacy.values()) {
+			for (UTXO utxo : list) {
+				if (Sha256Hash.wrap(utxo.getTxid()).equals(probes[probe]) && utxo.getVout() == probeVouts[probe])
+					return utxo;
+			}
+		}
+		return null;
+	}
+
+	@Benchmark
+	public UTXO lookupIndexed() {
+		int probe = nextProbe();
+		return walletStore.get().getUnspent(new Outpoint(probes[probe], probeVouts[probe]));
+	}
+
+	@Benchmark
+	public long markSpentIndexed() {
+		int probe = nextProbe();
+		Outpoint outpoint = new Outpoint(probes[probe], probeVouts[probe]);
+		walletStore.setSpent(outpoint, true);
+		walletStore.setSpent(outpoint, false);
+		return walletStore.get().getBalance("address0");
+	}
+
+	@Benchmark
+	@Threads(5)
+	public long concurrentReads() {
+		int probe = ThreadLocalRandom.current().nextInt(probes.length);
+		WalletState state = walletStore.get();
+		UTXO utxo = state.getUnspent(new Outpoint(probes[probe], probeVouts[probe]));
+		return utxo == null ? 0 : state.getBalance(utxo.getAddress());
+	}
+}
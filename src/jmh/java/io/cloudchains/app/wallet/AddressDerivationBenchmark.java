@@ -0,0 +1,48 @@
+package io.cloudchains.app.wallet;
+
+import io.cloudchains.app.util.AddressBalance;
+import io.cloudchains.app.util.WalletStore;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.wallet.DeterministicSeed;
+import org.bitcoinj.wallet.Wallet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HD derivation of a new address as done by getnewaddress. The coin's own wallet
+ * only exists after it was initialized from disk, so the derivation WalletHelper
+ * delegates to runs on a wallet restored from a fixed mnemonic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddressDerivationBenchmark {
+	private static final String MNEMONIC = "one two three cake neutral benefit quick hip level mother fine burst";
+
+	private NetworkParameters params;
+	private WalletStore walletStore;
+	private Wallet wallet;
+
+	@Setup
+	public void setup() {
+		params = MainNetParams.get();
+		walletStore = new WalletStore();
+	}
+
+	@Setup(Level.Iteration)
+	public void restoreWallet() {
+		// Every derived key stays in the key chain, start each iteration from the seed
+		wallet = Wallet.fromSeed(params, new DeterministicSeed(Arrays.asList(MNEMONIC.split(" ")), null, "", 0));
+	}
+
+	@Benchmark
+	public AddressBalance generateAddress() {
+		return WalletHelper.deriveAddress(wallet, params, walletStore);
+	}
+}
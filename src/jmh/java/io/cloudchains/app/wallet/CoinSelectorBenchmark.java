@@ -0,0 +1,45 @@
+package io.cloudchains.app.wallet;
+
+import io.cloudchains.app.net.SyntheticWallet;
+import io.cloudchains.app.util.UTXO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coin selection on a synthetic wallet, for a small payment covered by the first
+ * few utxos and for one that needs half of the wallet's balance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoinSelectorBenchmark {
+	@Param({"100", "2000"})
+	public int addresses;
+
+	@Param({"1000", "50000"})
+	public int utxos;
+
+	private WalletHelper walletHelper;
+	private double halfBalance;
+
+	@Setup
+	public void setup() {
+		walletHelper = new SyntheticWallet(addresses, utxos).getCoin().getWalletHelper();
+		halfBalance = walletHelper.getTotalBalance() / 2;
+	}
+
+	@Benchmark
+	public ArrayList<UTXO> selectSmall() {
+		return walletHelper.coinSelector(0.005);
+	}
+
+	@Benchmark
+	public ArrayList<UTXO> selectHalf() {
+		return walletHelper.coinSelector(halfBalance);
+	}
+}
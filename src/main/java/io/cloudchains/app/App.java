@@ -3,8 +3,10 @@ package io.cloudchains.app;
 import io.cloudchains.app.console.*;
 import io.cloudchains.app.net.api.JSONRPCController;
 import io.cloudchains.app.net.api.JSONRPCMasterServer;
-import io.cloudchains.app.net.api.http.client.HTTPClient;
+import io.cloudchains.app.net.api.http.client.HTTPClientRegistry;
+import io.cloudchains.app.util.AsyncLogHandler;
 import io.cloudchains.app.util.CCLogger;
+import io.cloudchains.app.util.txcache.TransactionStore;
 
 import java.io.File;
 import java.io.IOException;
@@ -22,8 +24,6 @@ public class App {
 	public static String BASE_URL = "https://xliterevp.mywire.org/";
 	// "http://xl-dae-prox.airdns.org:42111/";
 	// DEBUG ENDPOINT
-	public static HTTPClient feeUpdateHttpClient = new HTTPClient(2);
-	public static HTTPClient heightUpdateHttpClient = new HTTPClient(2);
 	public static JSONRPCMasterServer masterRPC = JSONRPCController.getMasterServer();
 	public static ConsoleMenu console = null;
 
@@ -34,6 +34,7 @@ public class App {
 
         Runtime.getRuntime().addShutdownHook(new Thread(App::shutdown));
 
+		Handler fileHandler = null;
 		try {
 			String userHomeDir;
 			String OS = (System.getProperty("os.name")).toLowerCase();
@@ -49,7 +50,7 @@ public class App {
 			}
 
 			DateTimeFormatter timeStampPattern = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-			Handler fileHandler = new FileHandler(
+			fileHandler = new FileHandler(
 					userHomeDir +
 							File.separator +
 							"CloudChains" +
@@ -73,9 +74,6 @@ public class App {
 				}
 			});
 			fileHandler.setLevel(Level.INFO);
-
-			LOGGER.addHandler(fileHandler);
-
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 		}
@@ -88,7 +86,11 @@ public class App {
 		};
 		consoleHandler.setLevel(Level.FINE);
 
-		LOGGER.addHandler(consoleHandler);
+		// Records are written from a single thread, callers only enqueue them
+		if (fileHandler != null)
+			LOGGER.addHandler(new AsyncLogHandler(fileHandler, consoleHandler));
+		else
+			LOGGER.addHandler(new AsyncLogHandler(consoleHandler));
 
 		console = new ConsoleMenu(args);
 		console.init();
@@ -99,18 +101,16 @@ public class App {
 			System.out.println("Shutting down...");
 		}
 
-		if (feeUpdateHttpClient != null) {
-			feeUpdateHttpClient.close();
-		}
-
-		if (heightUpdateHttpClient != null) {
-			heightUpdateHttpClient.close();
-		}
-
 		if (masterRPC != null) {
 			masterRPC.deinit();
 		}
 
+		JSONRPCController.stopUnifiedServer();
+		JSONRPCController.shutdownWorkerPool();
+		JSONRPCController.shutdownEventLoops();
+		HTTPClientRegistry.closeAll();
+		TransactionStore.closeAll();
+
 		if (console != null) {
 			console.deinit();
 		}
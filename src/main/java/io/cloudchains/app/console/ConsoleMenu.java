@@ -7,6 +7,7 @@ import io.cloudchains.app.crypto.LoginUtils;
 import io.cloudchains.app.net.CoinInstance;
 import io.cloudchains.app.net.CoinTicker;
 import io.cloudchains.app.net.CoinTickerUtils;
+import io.cloudchains.app.net.api.JSONRPCController;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetNetworkParameters;
 import io.cloudchains.app.util.ConfigHelper;
 import io.cloudchains.app.util.background.BackgroundTimerThread;
@@ -314,6 +315,7 @@ public class ConsoleMenu {
         }
 
         App.masterRPC.start();
+        JSONRPCController.startUnifiedServer();
         backgroundTimerThread = new BackgroundTimerThread();
         (new Thread(backgroundTimerThread)).start();
     }
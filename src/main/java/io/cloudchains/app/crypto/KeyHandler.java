@@ -51,7 +51,7 @@ public class KeyHandler {
         return keyFile.exists();
     }
 
-    private static String encryptBaseSeed(String passphrase, byte[] seedBytes, byte[] salt) {
+    static String encryptBaseSeed(String passphrase, byte[] seedBytes, byte[] salt) {
         try {
             SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
             PBEKeySpec spec = new PBEKeySpec(passphrase.toCharArray(), salt, 16384, 256);
@@ -68,6 +68,24 @@ public class KeyHandler {
         }
     }
 
+    /**
+     * Reverses encryptBaseSeed.
+     * @return Mnemonic words of the seed
+     * @throws Exception if the passphrase is wrong
+     */
+    static List<String> decryptBaseSeed(String passphrase, byte[] seedEncrypted, byte[] salt) throws Exception {
+        SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
+        PBEKeySpec spec = new PBEKeySpec(passphrase.toCharArray(), salt, 16384, 256);
+        SecretKey tmp = skf.generateSecret(spec);
+        SecretKey key = new SecretKeySpec(tmp.getEncoded(), "AES");
+
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.DECRYPT_MODE, key);
+        String seed = new String(cipher.doFinal(seedEncrypted));
+
+        return Arrays.asList(seed.split(" "));
+    }
+
     public static List<String> getBaseSeed(String passphrase) {
         File keyFile = new File(ConfigHelper.getLocalDataDirectory() + "key.dat");
         BufferedReader bufferedReader;
@@ -82,16 +100,7 @@ public class KeyHandler {
                 byte[] salt = Base64.decode(saltB64);
                 byte[] seedEncrypted = Base64.decode(seedEncryptedB64);
 
-                SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-                PBEKeySpec spec = new PBEKeySpec(passphrase.toCharArray(), salt, 16384, 256);
-                SecretKey tmp = skf.generateSecret(spec);
-                SecretKey key = new SecretKeySpec(tmp.getEncoded(), "AES");
-
-                Cipher cipher = Cipher.getInstance("AES");
-                cipher.init(Cipher.DECRYPT_MODE, key);
-                String seed = new String(cipher.doFinal(seedEncrypted));
-
-                return Arrays.asList(seed.split(" "));
+                return decryptBaseSeed(passphrase, seedEncrypted, salt);
             } catch (Exception e) {
                 LOGGER.log(Level.FINER, "Error while obtaining base seed: " + e);
                 LOGGER.log(Level.FINER, "Bad password.");
@@ -0,0 +1,7 @@
+package io.cloudchains.app.net;
+
+public interface BlockCountChangedEventListener {
+
+	void onBlockCountChanged(CoinTicker ticker, int previousBlockCount, int blockCount);
+
+}
@@ -30,9 +30,12 @@ import io.cloudchains.app.net.xrouter.XRouterMessage;
 import io.cloudchains.app.net.xrouter.XRouterMessageSerializer;
 import io.cloudchains.app.net.xrouter.XRouterPacketManager;
 import io.cloudchains.app.util.AddressBalance;
+import io.cloudchains.app.util.CCLogger;
 import io.cloudchains.app.util.CloudTransaction;
 import io.cloudchains.app.util.ConfigHelper;
 import io.cloudchains.app.util.UTXO;
+import io.cloudchains.app.util.WalletState;
+import io.cloudchains.app.util.WalletStore;
 import io.cloudchains.app.util.history.Transaction;
 import io.cloudchains.app.wallet.WalletHelper;
 import org.bitcoinj.core.*;
@@ -41,7 +44,6 @@ import org.bitcoinj.store.BlockStoreException;
 import org.bitcoinj.store.SPVBlockStore;
 import org.bitcoinj.utils.BtcFormat;
 import org.bitcoinj.utils.ListenerRegistration;
-import org.bitcoinj.utils.MonetaryFormat;
 import org.bitcoinj.utils.Threading;
 import org.bitcoinj.wallet.DeterministicSeed;
 import org.bitcoinj.wallet.Wallet;
@@ -57,7 +59,6 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
-import com.subgraph.orchid.encoders.Hex;
 
 public class CoinInstance {
     public static class CoinError {
@@ -89,14 +90,17 @@ public class CoinInstance {
 	private static CoinInstance activeCurrency;
 	private static CoinTicker activeBlocknetNetwork = null;
 	private static CopyOnWriteArrayList<ListenerRegistration<ActiveCoinChangedEventListener>> activeCoinChangedListeners = new CopyOnWriteArrayList<>();
+	private static CopyOnWriteArrayList<ListenerRegistration<BlockCountChangedEventListener>> blockCountChangedListeners = new CopyOnWriteArrayList<>();
 	private static HashMap<CoinTicker, AtomicInteger> blockCounts = new HashMap<>();
 	private static HashMap<CoinTicker, AtomicDouble> relayFees = new HashMap<>();
+	// Time in milliseconds each coin's block count last advanced
+	private static ConcurrentHashMap<CoinTicker, Long> blockCountTimes = new ConcurrentHashMap<>();
 
 	private ConfigHelper configHelper;
 	private WalletHelper walletHelper = null;
 	private CoinTicker ticker;
 	private ConcurrentHashMap<String, Transaction> transactionList = new ConcurrentHashMap<>();
-	private ArrayList<AddressBalance> addressKeyPairs = new ArrayList<>();
+	private WalletStore walletStore = new WalletStore();
 	private ArrayList<CloudTransaction> transactionObservableList = new ArrayList<>();
 	private BlocknetPeerGroup blocknetPeerGroup;
 	private BlocknetParameters blocknetNetworkParameters;
@@ -148,6 +152,14 @@ public class CoinInstance {
 		return blockCounts.get(ticker).get();
 	}
 
+	/**
+	 * @return Milliseconds since the block count of a coin last advanced, -1 if it never did
+	 */
+	public static long getBlockCountAge(CoinTicker ticker) {
+		Long time = blockCountTimes.get(ticker);
+		return time == null ? -1 : System.currentTimeMillis() - time;
+	}
+
 	public static double getRelayFeeByTicker(CoinTicker ticker) {
 		if (!relayFees.containsKey(ticker)) {
 			return -1;
@@ -182,25 +194,50 @@ public class CoinInstance {
 		activeCoinChangedListeners.add(new ListenerRegistration<>(listener, Threading.SAME_THREAD));
 	}
 
+	/**
+	 * Registers a listener called whenever a coin's block count increases.
+	 */
+	public static void addBlockCountChangedListener(BlockCountChangedEventListener listener) {
+		blockCountChangedListeners.add(new ListenerRegistration<>(listener, Threading.SAME_THREAD));
+	}
+
+	public static void removeBlockCountChangedListener(BlockCountChangedEventListener listener) {
+		ListenerRegistration.removeFromList(listener, blockCountChangedListeners);
+	}
+
 	public static CoinInstance getActiveCurrency() {
 		return activeCurrency;
 	}
 
 	public AddressBalance getAddress(String addressB58) {
-		for (AddressBalance address : addressKeyPairs) {
-			if (address.getAddress().toBase58().equals(addressB58))
-				return address;
-		}
+		if (addressB58 == null)
+			return null;
 
-		return null;
+		return getWalletState().getAddress(addressB58);
+	}
+
+	public AddressBalance getAddressByHash160(byte[] hash160) {
+		if (hash160 == null)
+			return null;
+
+		return getWalletState().getAddressByHash160(hash160);
+	}
+
+	/**
+	 * Adds an address to the wallet and both lookup indexes.
+	 * @return false if the address was already tracked
+	 */
+	private boolean addAddress(AddressBalance addressBalance) {
+		return walletStore.addAddress(addressBalance);
 	}
 
 	public AddressBalance generateAddress(boolean updateConfig) {
 		AddressBalance addressKeyPair = getWalletHelper().generateAddress();
 		Address address = addressKeyPair.getAddress();
 		DumpedPrivateKey privateKey = addressKeyPair.getPrivateKey();
-		addressKeyPairs.add(addressKeyPair);
-		LOGGER.log(Level.FINER, "[wallet] DEBUG: Generated new address, have " + addressKeyPairs.size() + ": " + address.toBase58() + ", private key: " + privateKey.toBase58() + " (hex: " + privateKey.getKey().getPrivateKeyAsHex() + ")");
+		addAddress(addressKeyPair);
+		if (LOGGER.isLoggable(Level.FINER))
+			LOGGER.log(Level.FINER, "[wallet] DEBUG: Generated new address, have " + getWalletState().getAddresses().size() + ": " + address.toBase58() + ", private key: " + privateKey.toBase58() + " (hex: " + privateKey.getKey().getPrivateKeyAsHex() + ")");
 
 		if (updateConfig) {
 			configHelper.setAddressCount(configHelper.getAddressCount() + 1);
@@ -213,11 +250,7 @@ public class CoinInstance {
 
 	public void importPrivateKey(String privKey) {
 		AddressBalance addressKeyPair = getWalletHelper().generateFromPrivateKey(privKey);
-		AddressBalance addrExists = addressKeyPairs.stream()
-				.filter(e -> e.getAddress().equals(addressKeyPair.getAddress())).findAny().orElse(null);
-
-		if (addrExists == null)
-			addressKeyPairs.add(addressKeyPair);
+		addAddress(addressKeyPair);
 	}
 
 	public CoinTicker getTicker() {
@@ -246,7 +279,7 @@ public class CoinInstance {
 
 		if (ticker == CoinTicker.BLOCKNET || ticker == CoinTicker.BLOCKNET_TESTNET5) {
 			activeBlocknetNetwork = ticker;
-			LOGGER.log(Level.FINER, "[coin] Initialized active Blocknet network: " + ticker.toString());
+			CCLogger.log(Level.FINER, "[coin] Initialized active Blocknet network: ", ticker);
 			LOGGER.log(Level.FINER, "[coin] All subsequent calls to this function requesting a Blocknet network will return the above regardless of testnet or mainnet status.");
 		}
 
@@ -311,6 +344,8 @@ public class CoinInstance {
 			blocknetPeerGroup.stop();
 		}
 
+		JSONRPCController.unregisterRPCCoin(this);
+
 		if (coinRPCServer != null) {
 			try {
 				coinRPCServer.deinit();
@@ -434,7 +469,7 @@ public class CoinInstance {
 			// 	break;
 			// }
 			default: {
-				LOGGER.log(Level.FINER, "[coin] ERROR: Invalid/unsupported network: " + ticker.toString());
+				CCLogger.log(Level.FINER, "[coin] ERROR: Invalid/unsupported network: ", ticker);
 				return new CoinError("Unsupported coin", CoinError.CoinErrorCode.UNSUPPORTEDCOIN);
 			}
 		}
@@ -489,14 +524,19 @@ public class CoinInstance {
 			rpcPort = configHelper.getRpcPort();
 		}
 
-		if (configHelper.isRpcEnabled() && configHelper.validAuth() && rpcPort != -1) {
-			coinRPCServer = JSONRPCController.getRPCServer(this);
-			LOGGER.log(Level.INFO, "[rpc] Starting JSON-RPC server for coin " + CoinTickerUtils.tickerToString(getTicker()) + " on port " + getRPCPort());
+		if (configHelper.isRpcEnabled() && configHelper.validAuth()) {
+			JSONRPCController.registerRPCCoin(this);
 
-			if (coinRPCServer.isAlive())
-				coinRPCServer.deinit();
+			// Without a port of its own the coin is only reachable through the unified listener
+			if (rpcPort > 0) {
+				coinRPCServer = JSONRPCController.getRPCServer(this);
+				LOGGER.log(Level.INFO, "[rpc] Starting JSON-RPC server for coin " + CoinTickerUtils.tickerToString(getTicker()) + " on port " + getRPCPort());
+
+				if (coinRPCServer.isAlive())
+					coinRPCServer.deinit();
 
-			coinRPCServer.start();
+				coinRPCServer.start();
+			}
 		}
 
 		// Blocknet Network / XRouter not used (Dec 10)
@@ -552,7 +592,8 @@ public class CoinInstance {
 			updateConfig = true;
 		}
 
-		LOGGER.log(Level.FINER, "[wallet] Generating " + configAddressCount + " forward addresses for network " + getTicker().toString() + ".");
+		if (LOGGER.isLoggable(Level.FINER))
+			LOGGER.log(Level.FINER, "[wallet] Generating " + configAddressCount + " forward addresses for network " + getTicker().toString() + ".");
 
 		// Ensure that internal HD wallet pointer matches the count we're expecting.
 		// Required because wallet doesn't remember last HD wallet address prior to
@@ -594,13 +635,7 @@ public class CoinInstance {
 	}
 
 	public double getAllBalances() {
-		double balance = 0;
-
-		for (AddressBalance inst : getAddressKeyPairs()) {
-			balance += inst.getBalanceProp();
-		}
-
-		return balance;
+		return getWalletState().getTotalBalance() / 100000000.0;
 	}
 
 	public String getAllBalancesFormatted() {
@@ -749,7 +784,7 @@ public class CoinInstance {
 				break;
 			}
 			default: {
-				LOGGER.log(Level.FINER, "[coin] ERROR: Unknown XRouter Message! Command: " + command);
+				CCLogger.log(Level.FINER, "[coin] ERROR: Unknown XRouter Message! Command: ", command);
 				uuid = null;
 				break;
 			}
@@ -762,49 +797,22 @@ public class CoinInstance {
 	}
 
 	public JsonArray getAllUTXOS() {
-		MonetaryFormat PLAIN_FORMAT = MonetaryFormat.BTC.minDecimals(8).repeatOptionalDecimals(1, 0).noCode();
+		int totalBlocks = CoinInstance.getBlockCountByTicker(getTicker());
 
+		WalletState state = getWalletState();
 		JsonArray unspentTxsJSON = new JsonArray();
-		for (AddressBalance addressBalance : getAddressKeyPairs()) {
-			for (UTXO utxo : addressBalance.getUtxos()) {
-				if (utxo.isSpent())
-					continue;
-
-				org.bitcoinj.core.UTXO bUtxo = utxo.createUTXO();
-
+		for (AddressBalance addressBalance : state.getAddresses()) {
+			for (UTXO utxo : state.getUnspent(addressBalance.getAddrProp())) {
 				JsonObject utxoJSON = new JsonObject();
-				utxoJSON.addProperty("txid", bUtxo.getHash().toString());
-				utxoJSON.addProperty("vout", bUtxo.getIndex());
-				utxoJSON.addProperty("address", bUtxo.getAddress());
-
-				Monetary monetary = new Monetary() {
-					@Override
-					public int smallestUnitExponent() {
-						return 8;
-					}
-
-					@Override
-					public long getValue() {
-						return utxo.getValue();
-					}
-
-					@Override
-					public int signum() {
-						if (this.getValue() == 0)
-							return 0;
-						return this.getValue() < 0 ? -1 : 1;
-					}
-				};
-
-				BigDecimal amountDecimal = new BigDecimal(PLAIN_FORMAT.format(monetary).toString());
-
-				utxoJSON.addProperty("amount", amountDecimal);
-				utxoJSON.addProperty("scriptPubKey", new String(Hex.encode(bUtxo.getScript().getProgram())));
+				utxoJSON.addProperty("txid", utxo.getTxid());
+				utxoJSON.addProperty("vout", utxo.getVout());
+				utxoJSON.addProperty("address", utxo.getAddress());
+				utxoJSON.addProperty("amount", BigDecimal.valueOf(utxo.getValue(), 8));
+				utxoJSON.addProperty("scriptPubKey", utxo.getScriptHex());
 				utxoJSON.addProperty("spendable", true);
 
-				int totalBlocks = CoinInstance.getBlockCountByTicker(getTicker());
-				int confirmations = (totalBlocks - bUtxo.getHeight()) + 1;
-				if (bUtxo.getHeight() == 0)
+				int confirmations = (totalBlocks - utxo.getHeight()) + 1;
+				if (utxo.getHeight() == 0)
 					confirmations = 0;
 
 				utxoJSON.addProperty("confirmations", confirmations);
@@ -846,8 +854,8 @@ public class CoinInstance {
 		params.add(CoinTickerUtils.tickerToString(getTicker()));
 
 		JSONArray utxoAddresses = new JSONArray();
-		for (AddressBalance addressBalance : getAddressKeyPairs()) {
-			utxoAddresses.put(addressBalance.getAddress().toBase58());
+		for (AddressBalance addressBalance : getWalletState().getAddresses()) {
+			utxoAddresses.put(addressBalance.getAddrProp());
 		}
 
 		params.add(utxoAddresses.toString());
@@ -856,13 +864,7 @@ public class CoinInstance {
 	}
 
 	public AddressBalance getAddressBalance(String address) {
-		for (AddressBalance addressBalance : getAddressKeyPairs()) {
-			if (addressBalance.getAddress().toBase58().equals(address)) {
-				return addressBalance;
-			}
-		}
-
-		return null;
+		return getAddress(address);
 	}
 
 	public ConfigHelper getConfigHelper() {
@@ -878,10 +880,17 @@ public class CoinInstance {
 
 	public void addBlockCount(CoinTicker ticker, Integer blockCount) {
 		if (blockCounts.containsKey(ticker)) {
-			if (blockCounts.get(ticker).get() > blockCount)
-				return;
-
-			blockCounts.get(ticker).set(blockCount);
+			AtomicInteger current = blockCounts.get(ticker);
+			int previous;
+			do {
+				previous = current.get();
+				if (previous >= blockCount)
+					return;
+			} while (!current.compareAndSet(previous, blockCount));
+
+			blockCountTimes.put(ticker, System.currentTimeMillis());
+			for (ListenerRegistration<BlockCountChangedEventListener> registration : blockCountChangedListeners)
+				registration.listener.onBlockCountChanged(ticker, previous, blockCount);
 			return;
 		}
 
@@ -914,27 +923,36 @@ public class CoinInstance {
 	}
 
 	public void processUtxos(List<UTXO> utxoList) {
-		//  first lets clear UTXOs out of each address
-		for (UTXO utxo : utxoList) {
-			AddressBalance addressBalance = getAddress(utxo.getAddress());
-			addressBalance.clearUtxos();
-		}
+		// Replace the unspent utxos of every address in the reply in one version, so
+		// readers never see an address cleared but not yet refilled
+		List<UTXO> newUtxos = walletStore.update(builder -> {
+			// Diffed against the version being updated, not one read before the update ran
+			WalletState previous = builder.getBase();
+
+			HashSet<String> replyAddresses = new HashSet<>();
+			for (UTXO utxo : utxoList) {
+				if (replyAddresses.add(utxo.getAddress()) && builder.getAddress(utxo.getAddress()) != null)
+					builder.clearUnspent(utxo.getAddress());
+			}
 
-		// now let's add them back
-		for (UTXO utxo : utxoList) {
-			AddressBalance addressBalance = getAddress(utxo.getAddress());
+			List<UTXO> added = new ArrayList<>();
+			for (UTXO utxo : utxoList) {
+				if (builder.getAddress(utxo.getAddress()) == null) {
+					CCLogger.log(Level.FINER, "[utxo-parser] Warning: Encountered non-tracked address in reply: ", utxo.getAddress());
+					continue;
+				}
 
-			if (addressBalance == null) {
-				LOGGER.log(Level.FINER, "[utxo-parser] Warning: Encountered non-tracked address in reply: " + utxo.getAddress());
-				continue;
+				if (builder.addUtxo(utxo) && previous.getUtxo(utxo.getOutpoint()) == null)
+					added.add(utxo);
 			}
 
-			boolean isNewUtxo = addressBalance.addUtxo(utxo);
+			return added;
+		});
 
-			if (isNewUtxo) {
-				addCloudTransaction(new CloudTransaction(utxo));
+		for (UTXO utxo : newUtxos) {
+			addCloudTransaction(new CloudTransaction(utxo));
+			if (LOGGER.isLoggable(Level.FINER))
 				LOGGER.log(Level.FINER, "[utxo-parser] Added new UTXO, address: " + utxo.getAddress() + " value: " + utxo.getAmount());
-			}
 		}
 
 		setLastUtxoUpdate(System.currentTimeMillis());
@@ -955,10 +973,19 @@ public class CoinInstance {
 		if (configHelper.getAddressCount() != generatedAddressCount)
 			generateForwardAddresses(false);
 
+		if (configHelper.isRpcEnabled() && configHelper.validAuth())
+			JSONRPCController.registerRPCCoin(this);
+		else
+			JSONRPCController.unregisterRPCCoin(this);
+
 		if (coinRPCServer == null)
 			return; // no rpc available, skip
 
 		JSONRPCController.removeRPCServer(this);
+		coinRPCServer = null;
+
+		if (rpcPort <= 0)
+			return;
 
 		coinRPCServer = JSONRPCController.getRPCServer(this);
 
@@ -981,8 +1008,22 @@ public class CoinInstance {
 		return blocknetPeerGroup.getBestBlocknetPeer(currency);
 	}
 
+	public WalletStore getWalletStore() {
+		return walletStore;
+	}
+
+	/**
+	 * @return Current wallet version, safe to read from any thread without locking
+	 */
+	public WalletState getWalletState() {
+		return walletStore.get();
+	}
+
+	/**
+	 * @return Copy of the wallet addresses at the current version
+	 */
 	public ArrayList<AddressBalance> getAddressKeyPairs() {
-		return addressKeyPairs;
+		return new ArrayList<>(getWalletState().getAddresses());
 	}
 
 	public ArrayList<CloudTransaction> getTransactionList() {
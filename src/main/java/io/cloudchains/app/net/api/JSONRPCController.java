@@ -1,19 +1,111 @@
 package io.cloudchains.app.net.api;
 
 import io.cloudchains.app.net.CoinInstance;
+import io.cloudchains.app.net.CoinTicker;
+import io.cloudchains.app.net.api.http.server.RPCWorkerPool;
 import io.cloudchains.app.util.ConfigHelper;
 
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class JSONRPCController {
 
 	private static final HashMap<CoinInstance, JSONRPCServer> servers = new HashMap<>();
-	private static JSONRPCMasterServer masterServer = new JSONRPCMasterServer(new ConfigHelper("master").getMasterRpcPort());
+	private static final ConfigHelper masterConfig = new ConfigHelper("master");
+	private static JSONRPCMasterServer masterServer = new JSONRPCMasterServer(masterConfig.getMasterRpcPort());
+	private static RPCWorkerPool workerPool = null;
+	private static RPCEventLoops eventLoops = null;
+	private static JSONRPCUnifiedServer unifiedServer = null;
+	private static final ConcurrentHashMap<CoinTicker, CoinInstance> rpcCoins = new ConcurrentHashMap<>();
 
 	public static JSONRPCMasterServer getMasterServer() {
 		return masterServer;
 	}
 
+	public static ConfigHelper getMasterConfig() {
+		return masterConfig;
+	}
+
+	/**
+	 * Returns the shared worker pool used by the coin RPC servers.
+	 * @return Worker pool or null if async dispatch is disabled
+	 */
+	public static synchronized RPCWorkerPool getWorkerPool() {
+		if (!masterConfig.isRpcAsyncDispatch())
+			return null;
+
+		if (workerPool == null)
+			workerPool = new RPCWorkerPool(masterConfig.getRpcWorkerThreads(), masterConfig.getRpcWorkerQueueSize());
+
+		return workerPool;
+	}
+
+	public static synchronized void shutdownWorkerPool() {
+		if (workerPool == null)
+			return;
+
+		workerPool.shutdown();
+		workerPool = null;
+	}
+
+	/**
+	 * Returns the event loops shared by the master and coin RPC servers.
+	 * @return Event loops, created on first use
+	 */
+	public static synchronized RPCEventLoops getEventLoops() {
+		if (eventLoops == null)
+			eventLoops = new RPCEventLoops(masterConfig.getRpcBossThreads(), masterConfig.getRpcEventLoopThreads(), masterConfig.isRpcNativeTransport());
+
+		return eventLoops;
+	}
+
+	public static synchronized void shutdownEventLoops() {
+		if (eventLoops == null)
+			return;
+
+		eventLoops.shutdown();
+		eventLoops = null;
+	}
+
+	/**
+	 * Starts the unified RPC listener if a port is configured for it.
+	 */
+	public static synchronized void startUnifiedServer() {
+		int port = masterConfig.getRpcUnifiedPort();
+		if (port <= 0 || unifiedServer != null)
+			return;
+
+		unifiedServer = new JSONRPCUnifiedServer(port);
+		unifiedServer.start();
+	}
+
+	public static synchronized void stopUnifiedServer() {
+		if (unifiedServer == null)
+			return;
+
+		unifiedServer.deinit();
+		unifiedServer = null;
+	}
+
+	/**
+	 * @return Coin with RPC enabled, or null
+	 */
+	public static CoinInstance getRPCCoin(CoinTicker ticker) {
+		return rpcCoins.get(ticker);
+	}
+
+	/**
+	 * Makes a coin reachable through the unified listener, whether or not it binds
+	 * a port of its own.
+	 */
+	public static void registerRPCCoin(CoinInstance coinInstance) {
+		rpcCoins.put(coinInstance.getTicker(), coinInstance);
+	}
+
+	public static void unregisterRPCCoin(CoinInstance coinInstance) {
+		rpcCoins.remove(coinInstance.getTicker(), coinInstance);
+	}
+
 	public static JSONRPCServer getRPCServer(CoinInstance coinInstance) {
 		if (coinInstance == null || coinInstance.getRPCPort() == -1) {
 			throw new IllegalArgumentException("Bad coin instance");
@@ -27,7 +119,8 @@ public class JSONRPCController {
 	}
 
 	public static void removeRPCServer(CoinInstance coinInstance) {
-		if (coinInstance == null || coinInstance.getRPCPort() == -1) {
+		// The port may already be changed by a config reload, the server is found by coin
+		if (coinInstance == null) {
 			throw new IllegalArgumentException("Bad coin instance");
 		}
 
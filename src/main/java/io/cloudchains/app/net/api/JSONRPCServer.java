@@ -7,9 +7,6 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 
 import java.util.logging.Level;
 import java.util.logging.LogManager;
@@ -31,14 +28,14 @@ public class JSONRPCServer extends Thread {
 	}
 
 	public void run() {
-		EventLoopGroup workerGroup = new NioEventLoopGroup(5);
+		RPCEventLoops eventLoops = JSONRPCController.getEventLoops();
 		try {
 			ServerBootstrap bootstrap = new ServerBootstrap();
-			bootstrap.group(workerGroup)
+			bootstrap.group(eventLoops.getBossGroup(), eventLoops.getWorkerGroup())
 					.option(ChannelOption.SO_BACKLOG, 128)
 					.option(ChannelOption.SO_REUSEADDR, true)
 					.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
-					.channel(NioServerSocketChannel.class)
+					.channel(eventLoops.getServerChannelClass())
 					.childHandler(new HTTPServerInitializer(coin));
 
 			channel = bootstrap.bind(port).sync().channel();
@@ -0,0 +1,61 @@
+package io.cloudchains.app.net.api;
+
+import io.cloudchains.app.net.api.http.server.HTTPServerInitializer;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Single listener serving every coin's RPC, routed by path or header. Runs next
+ * to the per-coin ports.
+ */
+public class JSONRPCUnifiedServer extends Thread {
+	private final static LogManager LOGMANAGER = LogManager.getLogManager();
+	private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+	private final int port;
+	private boolean stopping = false;
+
+	private Channel channel;
+
+	JSONRPCUnifiedServer(int port) {
+		this.port = port;
+	}
+
+	public void run() {
+		RPCEventLoops eventLoops = JSONRPCController.getEventLoops();
+		try {
+			LOGGER.log(Level.INFO, "[rpc] Starting unified RPC server on port " + port + ".");
+
+			ServerBootstrap bootstrap = new ServerBootstrap();
+			bootstrap.group(eventLoops.getBossGroup(), eventLoops.getWorkerGroup())
+					.option(ChannelOption.SO_BACKLOG, 128)
+					.option(ChannelOption.SO_REUSEADDR, true)
+					.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+					.channel(eventLoops.getServerChannelClass())
+					.childHandler(new HTTPServerInitializer());
+
+			channel = bootstrap.bind(port).sync().channel();
+
+			channel.closeFuture().sync();
+		} catch (Exception e) {
+			if (!stopping) {
+				LOGGER.log(Level.FINER, "[json-rpc-server] ERROR: Error during server operation! (unified RPC)");
+				e.printStackTrace();
+			}
+		}
+	}
+
+	public void deinit() {
+		stopping = true;
+		LOGGER.log(Level.FINER, "[json-rpc-server] Interrupting server.");
+
+		if (channel != null && channel.isOpen())
+			channel.close();
+	}
+}
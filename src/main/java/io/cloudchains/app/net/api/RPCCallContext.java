@@ -0,0 +1,72 @@
+package io.cloudchains.app.net.api;
+
+/**
+ * Per-thread record of the RPC call being served. The backend client reports
+ * its blocking upstream requests, waits on requests completed by other threads
+ * and cache lookups here so the call's latency can be attributed. Reports made
+ * outside of a call are ignored.
+ */
+public final class RPCCallContext {
+	private static final ThreadLocal<RPCCallContext> CURRENT = new ThreadLocal<>();
+
+	private final RPCCallContext previous;
+	private long upstreamNanos = 0;
+	private int cacheHits = 0;
+	private int cacheMisses = 0;
+
+	private RPCCallContext(RPCCallContext previous) {
+		this.previous = previous;
+	}
+
+	/**
+	 * Starts recording a call on the current thread, must be paired with {@link #end()}.
+	 */
+	public static RPCCallContext begin() {
+		RPCCallContext context = new RPCCallContext(CURRENT.get());
+		CURRENT.set(context);
+		return context;
+	}
+
+	public void end() {
+		if (previous != null)
+			CURRENT.set(previous);
+		else
+			CURRENT.remove();
+	}
+
+	public static void recordUpstream(long nanos) {
+		RPCCallContext context = CURRENT.get();
+		if (context != null)
+			context.upstreamNanos += nanos;
+	}
+
+	public static void recordCacheHit() {
+		RPCCallContext context = CURRENT.get();
+		if (context != null)
+			context.cacheHits++;
+	}
+
+	public static void recordCacheMiss() {
+		RPCCallContext context = CURRENT.get();
+		if (context != null)
+			context.cacheMisses++;
+	}
+
+	public long getUpstreamNanos() {
+		return upstreamNanos;
+	}
+
+	/**
+	 * @return true if the call consulted a cache and every lookup was served from it
+	 */
+	public boolean isCacheHit() {
+		return cacheHits > 0 && cacheMisses == 0;
+	}
+
+	/**
+	 * @return true if at least one cache lookup of the call had to go to the backend
+	 */
+	public boolean isCacheMiss() {
+		return cacheMisses > 0;
+	}
+}
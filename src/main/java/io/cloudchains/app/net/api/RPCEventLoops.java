@@ -0,0 +1,112 @@
+package io.cloudchains.app.net.api;
+
+import com.google.gson.JsonObject;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Boss and worker event loops shared by the master and all coin RPC servers.
+ * Uses the native epoll transport when it is available, NIO otherwise.
+ */
+public class RPCEventLoops {
+	private final static LogManager LOGMANAGER = LogManager.getLogManager();
+	private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+	private final boolean epoll;
+	private final int bossThreads;
+	private final int workerThreads;
+	private final EventLoopGroup bossGroup;
+	private final EventLoopGroup workerGroup;
+
+	/**
+	 * @param bossThreads Threads accepting connections
+	 * @param workerThreads Threads serving connections, 0 for one per core
+	 * @param nativeTransport Use epoll if the platform supports it
+	 */
+	public RPCEventLoops(int bossThreads, int workerThreads, boolean nativeTransport) {
+		this.bossThreads = Math.max(1, bossThreads);
+		this.workerThreads = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+		this.epoll = nativeTransport && isEpollAvailable();
+
+		if (epoll) {
+			bossGroup = new EpollEventLoopGroup(this.bossThreads, new DefaultThreadFactory("rpc-boss"));
+			workerGroup = new EpollEventLoopGroup(this.workerThreads, new DefaultThreadFactory("rpc-io"));
+		} else {
+			bossGroup = new NioEventLoopGroup(this.bossThreads, new DefaultThreadFactory("rpc-boss"));
+			workerGroup = new NioEventLoopGroup(this.workerThreads, new DefaultThreadFactory("rpc-io"));
+		}
+
+		LOGGER.log(Level.FINER, "[rpc] Started " + getTransport() + " event loops with " + this.bossThreads + " boss and " + this.workerThreads + " worker threads.");
+	}
+
+	public EventLoopGroup getBossGroup() {
+		return bossGroup;
+	}
+
+	public EventLoopGroup getWorkerGroup() {
+		return workerGroup;
+	}
+
+	public Class<? extends ServerSocketChannel> getServerChannelClass() {
+		return epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+	}
+
+	public String getTransport() {
+		return epoll ? "epoll" : "nio";
+	}
+
+	public int getBossPendingTasks() {
+		return getPendingTasks(bossGroup);
+	}
+
+	public int getWorkerPendingTasks() {
+		return getPendingTasks(workerGroup);
+	}
+
+	private static int getPendingTasks(EventLoopGroup group) {
+		int pending = 0;
+		for (EventExecutor executor : group) {
+			if (executor instanceof SingleThreadEventExecutor)
+				pending += ((SingleThreadEventExecutor) executor).pendingTasks();
+		}
+
+		return pending;
+	}
+
+	public JsonObject getStats() {
+		JsonObject stats = new JsonObject();
+		stats.addProperty("transport", getTransport());
+		stats.addProperty("bossthreads", bossThreads);
+		stats.addProperty("workerthreads", workerThreads);
+		return stats;
+	}
+
+	public void shutdown() {
+		bossGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+		workerGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * The native library may be missing, e.g. on other platforms or in a native image.
+	 */
+	private static boolean isEpollAvailable() {
+		try {
+			return Epoll.isAvailable();
+		} catch (Throwable e) {
+			return false;
+		}
+	}
+}
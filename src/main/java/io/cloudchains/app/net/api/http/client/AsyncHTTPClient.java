@@ -0,0 +1,265 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.AttributeKey;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking client for the backend built on Netty. Requests share a small
+ * event loop group and a fixed pool of keep-alive connections. Every call has
+ * a deadline and cancelling the returned future closes its connection.
+ */
+public class AsyncHTTPClient {
+    private final static LogManager LOGMANAGER = LogManager.getLogManager();
+    private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private static final AttributeKey<CompletableFuture<String>> RESPONSE_KEY = AttributeKey.valueOf("xlite.response");
+    private static final int EVENT_LOOP_THREADS = 2;
+    private static final int CONNECT_TIMEOUT = 30000;
+    private static final int MAX_RESPONSE_SIZE = 64 * 1024 * 1024;
+    private static final int MAX_PENDING_ACQUIRES = 1024;
+
+    private final String baseUrl;
+    private final String host;
+    private final EventLoopGroup group;
+    private final FixedChannelPool pool;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    AsyncHTTPClient(String baseUrl, int maximumSockets) {
+        this.baseUrl = baseUrl;
+
+        URI uri = URI.create(baseUrl);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        host = uri.getHost();
+        int port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+
+        SslContext sslContext = null;
+        if (secure) {
+            try {
+                // Same trust policy as the blocking client
+                sslContext = SslContextBuilder.forClient()
+                        .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                        .build();
+            } catch (SSLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        final SslContext finalSslContext = sslContext;
+        group = new NioEventLoopGroup(EVENT_LOOP_THREADS, new DefaultThreadFactory("http-async", true));
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .remoteAddress(host, port);
+
+        pool = new FixedChannelPool(bootstrap, new AbstractChannelPoolHandler() {
+            @Override
+            public void channelCreated(Channel ch) {
+                ChannelPipeline pipeline = ch.pipeline();
+                if (finalSslContext != null)
+                    pipeline.addLast(finalSslContext.newHandler(ch.alloc(), host, port));
+                pipeline.addLast(new HttpClientCodec());
+                pipeline.addLast(new HttpContentDecompressor());
+                pipeline.addLast(new HttpObjectAggregator(MAX_RESPONSE_SIZE));
+                pipeline.addLast(new ResponseHandler());
+            }
+        }, ChannelHealthChecker.ACTIVE, FixedChannelPool.AcquireTimeoutAction.FAIL, CONNECT_TIMEOUT, maximumSockets, MAX_PENDING_ACQUIRES);
+    }
+
+    /**
+     * Sends a GET request.
+     * @param endpoint Path appended to the base URL
+     * @param timeoutMillis Deadline for the whole call, including waiting for a connection
+     * @return Response body, or null if the backend did not answer with 200
+     */
+    public CompletableFuture<String> get(String endpoint, long timeoutMillis) {
+        return UpstreamMetrics.track(execute(HttpMethod.GET, endpoint, null, timeoutMillis), endpoint, "");
+    }
+
+    /**
+     * Sends a POST request with a JSON body.
+     * @param endpoint Path appended to the base URL
+     * @param params Request body, a single call or a batch array
+     * @param timeoutMillis Deadline for the whole call, including waiting for a connection
+     * @return Response body, or null if the backend did not answer with 200
+     */
+    public CompletableFuture<String> post(String endpoint, JsonElement params, long timeoutMillis) {
+        return UpstreamMetrics.track(execute(HttpMethod.POST, endpoint, params.toString(), timeoutMillis),
+                UpstreamMetrics.endpointOf(endpoint, params), UpstreamMetrics.tickerOf(params));
+    }
+
+    /**
+     * Runs a task on the client's event loop after a delay.
+     */
+    ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return group.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private CompletableFuture<String> execute(HttpMethod method, String endpoint, String body, long timeoutMillis) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        requests.incrementAndGet();
+
+        ScheduledFuture<?> deadline = group.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException(method + " " + endpoint + " timed out after " + timeoutMillis + " ms")))
+                timeouts.incrementAndGet();
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((res, e) -> deadline.cancel(false));
+
+        pool.acquire().addListener((Future<Channel> acquired) -> {
+            if (!acquired.isSuccess()) {
+                failures.incrementAndGet();
+                result.completeExceptionally(acquired.cause());
+                return;
+            }
+
+            Channel channel = acquired.getNow();
+
+            // Timed out or cancelled while waiting for a connection
+            if (result.isDone()) {
+                pool.release(channel);
+                return;
+            }
+
+            channel.attr(RESPONSE_KEY).set(result);
+            result.whenComplete((res, e) -> {
+                // Timed out, cancelled or failed: never hand a connection with an
+                // outstanding response back to the pool
+                if (e != null) {
+                    channel.attr(RESPONSE_KEY).set(null);
+                    channel.close();
+                }
+
+                pool.release(channel);
+            });
+
+            channel.writeAndFlush(buildRequest(method, endpoint, body)).addListener(written -> {
+                if (!written.isSuccess()) {
+                    failures.incrementAndGet();
+                    result.completeExceptionally(written.cause());
+                }
+            });
+        });
+
+        return result;
+    }
+
+    private FullHttpRequest buildRequest(HttpMethod method, String endpoint, String body) {
+        URI uri = URI.create(baseUrl + endpoint);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null)
+            path += "?" + uri.getRawQuery();
+
+        ByteBuf content = body == null ? Unpooled.EMPTY_BUFFER : Unpooled.copiedBuffer(body, CharsetUtil.UTF_8);
+
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, path, content);
+        request.headers().set(HttpHeaderNames.HOST, host);
+        request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderValues.GZIP);
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        request.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        return request;
+    }
+
+    public JsonObject getStats() {
+        JsonObject stats = new JsonObject();
+        stats.addProperty("acquired", pool.acquiredChannelCount());
+        stats.addProperty("requests", requests.get());
+        stats.addProperty("timeouts", timeouts.get());
+        stats.addProperty("failures", failures.get());
+        return stats;
+    }
+
+    public void close() {
+        pool.close();
+        group.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+    }
+
+    private class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            CompletableFuture<String> result = ctx.channel().attr(RESPONSE_KEY).getAndSet(null);
+            if (result == null)
+                return;
+
+            if (!HttpUtil.isKeepAlive(response))
+                ctx.close();
+
+            if (response.status().code() != 200 || response.content().readableBytes() == 0) {
+                LOGGER.log(Level.WARNING, "[httpclient-async] Bad response: " + response.status());
+                result.complete(null);
+                return;
+            }
+
+            result.complete(response.content().toString(CharsetUtil.UTF_8));
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            CompletableFuture<String> result = ctx.channel().attr(RESPONSE_KEY).getAndSet(null);
+            if (result != null && result.completeExceptionally(new ClosedChannelException()))
+                failures.incrementAndGet();
+
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            CompletableFuture<String> result = ctx.channel().attr(RESPONSE_KEY).getAndSet(null);
+            if (result != null && result.completeExceptionally(cause instanceof IOException ? cause : new IOException(cause)))
+                failures.incrementAndGet();
+
+            ctx.close();
+        }
+    }
+}
@@ -1,19 +1,24 @@
 package io.cloudchains.app.net.api.http.client;
 
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
 import com.subgraph.orchid.encoders.Hex;
-import io.cloudchains.app.App;
+import io.cloudchains.app.net.BlockCountChangedEventListener;
 import io.cloudchains.app.net.CoinInstance;
 import io.cloudchains.app.net.CoinTicker;
 import io.cloudchains.app.net.CoinTickerUtils;
-import io.cloudchains.app.util.AddressBalance;
+import io.cloudchains.app.net.api.JSONRPCController;
+import io.cloudchains.app.net.api.RPCCallContext;
+import io.cloudchains.app.util.CCLogger;
+import io.cloudchains.app.util.ConfigHelper;
 import io.cloudchains.app.util.UTXO;
 import io.cloudchains.app.util.history.Transaction;
+import io.cloudchains.app.util.txcache.TransactionStore;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
@@ -25,14 +30,16 @@ import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.util.EntityUtils;
 import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Utils;
 import org.bitcoinj.script.Script;
 import org.bitcoinj.script.ScriptBuilder;
 import org.json.JSONArray;
@@ -40,15 +47,25 @@ import org.json.JSONObject;
 
 import javax.net.ssl.SSLContext;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -57,13 +74,31 @@ public class HTTPClient {
     private final static LogManager LOGMANAGER = LogManager.getLogManager();
     private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
 
+    private static final long BACKGROUND_REFRESH_TIMEOUT = 60000;
+
+    private final String baseUrl;
     private CloseableHttpClient client;
-    private ConcurrentHashMap<String, Long> lastFetchTimes;
+    private InstrumentedConnectionManager connectionManager;
+    private final int maximumSockets;
+    private AsyncHTTPClient asyncClient;
+    private RpcBatcher rpcBatcher;
+    private final SingleFlight<String, Boolean> refreshFlights = new SingleFlight<>();
+    private RawTransactionResolver rawTransactionResolver;
+    private final ConcurrentHashMap<String, CacheEntry> cacheEntries = new ConcurrentHashMap<>();
+    private final BlockCountChangedEventListener blockCountListener = (ticker, previous, blockCount) -> onBlockCountChanged(ticker);
     private int logCount = 0;
 
-    public HTTPClient(int maximumSockets) {
+    /**
+     * Use {@link HTTPClientRegistry#get()} instead of creating clients directly.
+     * @param baseUrl Backend base URL
+     * @param maximumSockets Maximum pooled connections to the backend
+     * @param idleTimeout Seconds after which idle connections are closed
+     */
+    HTTPClient(String baseUrl, int maximumSockets, int idleTimeout) {
+        this.baseUrl = baseUrl;
+        this.maximumSockets = maximumSockets;
         SSLContext sslContext = null;
-        lastFetchTimes = new ConcurrentHashMap<>();
+        CoinInstance.addBlockCountChangedListener(blockCountListener);
 
         try {
             sslContext = new SSLContextBuilder()
@@ -82,7 +117,7 @@ public class HTTPClient {
         requestBuilder.setSocketTimeout(30000);
 
         assert sslContext != null;
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+        connectionManager = new InstrumentedConnectionManager(
                 RegistryBuilder.<ConnectionSocketFactory>create()
                         .register("http", PlainConnectionSocketFactory.INSTANCE)
                         .register("https", new SSLConnectionSocketFactory(sslContext,
@@ -92,27 +127,94 @@ public class HTTPClient {
         connectionManager.setDefaultMaxPerRoute(maximumSockets);
         connectionManager.setMaxTotal(maximumSockets);
 
+        final long idleTimeoutMillis = TimeUnit.SECONDS.toMillis(idleTimeout);
         client = HttpClients.custom()
                 .setDefaultHeaders(headers)
                 .setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE)
                 .setSSLContext(sslContext)
                 .setConnectionManager(connectionManager)
                 .setDefaultRequestConfig(requestBuilder.build())
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? Math.min(keepAlive, idleTimeoutMillis) : idleTimeoutMillis;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout, TimeUnit.SECONDS)
                 .build();
     }
 
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public JsonObject getStats() {
+        JsonObject stats = connectionManager.getStats();
+        stats.add("singleflight", refreshFlights.getStats());
+        synchronized (this) {
+            if (asyncClient != null)
+                stats.add("async", asyncClient.getStats());
+            if (rpcBatcher != null)
+                stats.add("batch", rpcBatcher.getStats());
+            if (rawTransactionResolver != null)
+                stats.add("rawtransactions", rawTransactionResolver.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the non-blocking client for this backend, created on first use.
+     * @return Async client
+     */
+    public synchronized AsyncHTTPClient getAsyncClient() {
+        if (asyncClient == null)
+            asyncClient = new AsyncHTTPClient(baseUrl, maximumSockets);
+
+        return asyncClient;
+    }
+
+    /**
+     * Returns the batcher packing JSON-RPC calls into array requests, created on first use.
+     * @return Batcher sending through the async client
+     */
+    public synchronized RpcBatcher getRpcBatcher() {
+        if (rpcBatcher == null)
+            rpcBatcher = new RpcBatcher(getAsyncClient(), JSONRPCController.getMasterConfig().getRpcBatchSize());
+
+        return rpcBatcher;
+    }
+
+    public synchronized RawTransactionResolver getRawTransactionResolver() {
+        if (rawTransactionResolver == null) {
+            ConfigHelper masterConfig = JSONRPCController.getMasterConfig();
+            rawTransactionResolver = new RawTransactionResolver(this, masterConfig.getRawTxParallelism(), masterConfig.getRawTxCacheSize());
+        }
+
+        return rawTransactionResolver;
+    }
+
     public void close() {
+        CoinInstance.removeBlockCountChangedListener(blockCountListener);
+
         try {
             client.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
+
+        synchronized (this) {
+            if (asyncClient != null) {
+                asyncClient.close();
+                asyncClient = null;
+                rpcBatcher = null;
+            }
+        }
     }
 
     private String doGet(String endpoint) {
         String res = null;
-        HttpGet httpget = new HttpGet(App.BASE_URL + endpoint);
+        HttpGet httpget = new HttpGet(baseUrl + endpoint);
         CloseableHttpResponse response = null;
+        long start = System.nanoTime();
         try {
             response = client.execute(httpget);
             if (validateResponse(response)) {
@@ -123,6 +225,9 @@ public class HTTPClient {
         } catch (IOException e) {
             e.printStackTrace();
         }  finally {
+            long elapsed = System.nanoTime() - start;
+            RPCCallContext.recordUpstream(elapsed);
+            UpstreamMetrics.recordRequest(endpoint, "", elapsed, res == null);
             httpget.reset();
             if (response != null) {
                 try {
@@ -139,7 +244,7 @@ public class HTTPClient {
     private String doPost(String endpoint, JsonObject params) {
         String res = null;
         HttpPost httpPost = new HttpPost();
-        httpPost.setURI(URI.create(App.BASE_URL + endpoint));
+        httpPost.setURI(URI.create(baseUrl + endpoint));
         try {
             httpPost.setEntity(new StringEntity(params.toString()));
         } catch (UnsupportedEncodingException e) {
@@ -150,6 +255,7 @@ public class HTTPClient {
         }
 
         CloseableHttpResponse response = null;
+        long start = System.nanoTime();
         try {
             response = client.execute(httpPost);
             HttpEntity entity = response.getEntity();
@@ -162,6 +268,9 @@ public class HTTPClient {
             e.printStackTrace();
             LOGGER.log(Level.WARNING, "doPost failed to execute post " + endpoint + " err: " + e.toString());
         } finally {
+            long elapsed = System.nanoTime() - start;
+            RPCCallContext.recordUpstream(elapsed);
+            UpstreamMetrics.recordRequest(UpstreamMetrics.endpointOf(endpoint, params), UpstreamMetrics.tickerOf(params), elapsed, res == null);
             httpPost.reset();
             if (response != null) {
                 try {
@@ -176,6 +285,54 @@ public class HTTPClient {
         return res;
     }
 
+    /**
+     * Posts a request and decodes the response body while it is streamed from the socket.
+     * @param endpoint Path appended to the base URL
+     * @param params Request body
+     * @param decoder Response decoder
+     * @return Decoded response or null on error
+     */
+    private <T> T doPost(String endpoint, JsonObject params, BodyDecoder<T> decoder) {
+        HttpPost httpPost = new HttpPost(URI.create(baseUrl + endpoint));
+        httpPost.setEntity(new StringEntity(params.toString(), ContentType.APPLICATION_JSON));
+
+        long start = System.nanoTime();
+        T res = null;
+        try (CloseableHttpResponse response = client.execute(httpPost)) {
+            HttpEntity entity = response.getEntity();
+            if (!validateResponse(response)) {
+                LOGGER.log(Level.WARNING, "doPost " + endpoint + " bad response: " + EntityUtils.toString(entity));
+                return null;
+            }
+
+            Charset charset = ContentType.getOrDefault(entity).getCharset();
+            try (Reader reader = new InputStreamReader(entity.getContent(), charset != null ? charset : StandardCharsets.UTF_8)) {
+                res = decoder.decode(reader);
+                return res;
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "doPost failed to decode " + endpoint + " err: " + e.toString());
+            return null;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RPCCallContext.recordUpstream(elapsed);
+            UpstreamMetrics.recordRequest(UpstreamMetrics.endpointOf(endpoint, params), UpstreamMetrics.tickerOf(params), elapsed, res == null);
+            httpPost.reset();
+        }
+    }
+
+    private <T> T decode(String res, BodyDecoder<T> decoder) {
+        if (res == null)
+            return null;
+
+        try {
+            return decoder.decode(new StringReader(res));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "[httpclient] Failed to decode response: " + e.toString());
+            return null;
+        }
+    }
+
     /**
      * Returns all utxos for a list of addresses.
      * Note: This method does neither use nor update any caches!
@@ -196,7 +353,8 @@ public class HTTPClient {
         params.add("params", innerParams);
 
         String res = doPost("/", params);
-        LOGGER.log(Level.FINER, "[httpclient] getUtxosUncached " + coinInstance.getTicker() + " " + res);
+        if (LOGGER.isLoggable(Level.FINER))
+            LOGGER.log(Level.FINER, "[httpclient] getUtxosUncached " + coinInstance.getTicker() + " " + res);
 
         if (res == null) {
             LOGGER.log(Level.WARNING, "[httpclient] getUtxosUncached " + coinInstance.getTicker() + " null post result");
@@ -252,75 +410,95 @@ public class HTTPClient {
     /**
      * Returns all utxos.
      * @param coinTicker Fetch utxos from this coin
-     * @param expiry Time in milliseconds until cache expires
-     * @return JsonArray or null on error
+     * @param expiry Maximum cache age in milliseconds, a new block always expires the cache
+     * @return Utxos with the time they were fetched or null on error
      */
-    public JsonArray getUtxos(CoinTicker coinTicker, int expiry) {
+    public Snapshot getUtxos(CoinTicker coinTicker, int expiry) {
         CoinInstance coinInstance = CoinInstance.getInstance(coinTicker);
-        long lastFetchTime = lastFetchTimes.getOrDefault(lastFetchTimesKey(coinTicker, "getUtxos"), 0L);
         long currentTime = System.currentTimeMillis();
-        if (currentTime - lastFetchTime < expiry)
-            return coinInstance.getAllUTXOS();
+        int height = CoinInstance.getBlockCountByTicker(coinTicker);
+        if (isCacheFresh(coinTicker, "getUtxos", expiry, currentTime, height))
+            return snapshot(coinTicker, "getUtxos", coinInstance::getAllUTXOS);
 
-        ArrayList<String> utxoParams = coinInstance.getUTXOParams();
-        if (utxoParams.size() == 0) {
-            LOGGER.log(Level.WARNING, "[httpclient] getUtxos " + coinInstance.getTicker() + " null param size");
+        JsonObject params = addressParams(coinInstance, "getutxos", "getUtxos");
+        if (params == null)
             return null;
+
+        if (isCacheServable(coinTicker, "getUtxos", currentTime)) {
+            refreshInBackground(coinTicker, "getUtxos", startUtxoRefresh(coinTicker, params, currentTime, height, BACKGROUND_REFRESH_TIMEOUT));
+            return snapshot(coinTicker, "getUtxos", coinInstance::getAllUTXOS);
         }
 
-        JsonArray innerParams = new Gson().toJsonTree(utxoParams).getAsJsonArray();
+        boolean refreshed = refreshFlights.execute(flightKey(coinTicker, params), () -> refreshUtxos(coinTicker, doPost("/", params, reader -> ResponseDecoder.decodeUtxos(coinTicker, reader)), currentTime, height));
+        return refreshed ? snapshot(coinTicker, "getUtxos", coinInstance::getAllUTXOS) : null;
+    }
 
-        JsonObject params = new JsonObject();
-        params.addProperty("method", "getutxos");
-        params.add("params", innerParams);
+    /**
+     * Non-blocking variant of {@link #getUtxos(CoinTicker, int)}.
+     * @param coinTicker Fetch utxos from this coin
+     * @param expiry Maximum cache age in milliseconds, a new block always expires the cache
+     * @param timeoutMillis Deadline for the upstream call
+     * @return Future completing with the utxos or null on error
+     */
+    public CompletableFuture<JsonArray> getUtxosAsync(CoinTicker coinTicker, int expiry, long timeoutMillis) {
+        CoinInstance coinInstance = CoinInstance.getInstance(coinTicker);
+        long currentTime = System.currentTimeMillis();
+        int height = CoinInstance.getBlockCountByTicker(coinTicker);
+        if (isCacheFresh(coinTicker, "getUtxos", expiry, currentTime, height))
+            return CompletableFuture.completedFuture(coinInstance.getAllUTXOS());
 
-        String res = doPost("/", params);
-        LOGGER.log(Level.FINER, "[httpclient] getUtxos " + coinInstance.getTicker() + " " + res);
+        JsonObject params = addressParams(coinInstance, "getutxos", "getUtxos");
+        if (params == null)
+            return CompletableFuture.completedFuture(null);
 
-        if (res == null) {
-            LOGGER.log(Level.WARNING, "[httpclient] getUtxos " + coinInstance.getTicker() + " null post result");
-            return null;
+        if (isCacheServable(coinTicker, "getUtxos", currentTime)) {
+            refreshInBackground(coinTicker, "getUtxos", startUtxoRefresh(coinTicker, params, currentTime, height, BACKGROUND_REFRESH_TIMEOUT));
+            return CompletableFuture.completedFuture(coinInstance.getAllUTXOS());
         }
 
-        JSONObject jsonObject = null;
-        JSONArray utxoArr = null;
-        try {
-            jsonObject = new JSONObject(res);
-            utxoArr = jsonObject.getJSONArray("utxos");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        return startUtxoRefresh(coinTicker, params, currentTime, height, timeoutMillis)
+                .thenApply(refreshed -> refreshed ? coinInstance.getAllUTXOS() : null);
+    }
 
-        if (jsonObject == null || utxoArr == null) {
-            if (jsonObject == null)
-                LOGGER.log(Level.WARNING, "[httpclient] getUtxos " + coinInstance.getTicker() + " null jsonObject");
-            if (utxoArr == null)
-                LOGGER.log(Level.WARNING, "[httpclient] getUtxos " + coinInstance.getTicker() + " null utxoArr");
-            return null;
-        }
+    private CompletableFuture<Boolean> startUtxoRefresh(CoinTicker coinTicker, JsonObject params, long fetchTime, int height, long timeoutMillis) {
+        return refreshFlights.executeAsync(flightKey(coinTicker, params),
+                () -> parseAsync(getAsyncClient().post("/", params, timeoutMillis), res -> refreshUtxos(coinTicker, decode(res, reader -> ResponseDecoder.decodeUtxos(coinTicker, reader)), fetchTime, height)));
+    }
 
-        List<UTXO> utxoList = new ArrayList<>();
-        for (int i = 0; i < utxoArr.length(); i++) {
-            UTXO utxo = new UTXO(coinTicker,
-                    utxoArr.getJSONObject(i).getString("address"),
-                    utxoArr.getJSONObject(i).getString("txhash"),
-                    utxoArr.getJSONObject(i).getInt("vout"),
-                    utxoArr.getJSONObject(i).getInt("block_number"),
-                    (long) Math.floor(utxoArr.getJSONObject(i).getDouble("value") * 100000000.0));
+    /**
+     * Updates the coin's utxos from a decoded getutxos response.
+     * @return false if the response could not be used
+     */
+    private boolean refreshUtxos(CoinTicker coinTicker, List<UTXO> utxoList, long fetchTime, int height) {
+        CoinInstance coinInstance = CoinInstance.getInstance(coinTicker);
 
-            utxoList.add(utxo);
+        if (utxoList == null) {
+            LOGGER.log(Level.WARNING, "[httpclient] getUtxos " + coinInstance.getTicker() + " null utxoArr");
+            return false;
         }
 
-        // Update last fetch time
-        lastFetchTimes.put(lastFetchTimesKey(coinTicker, "getUtxos"), currentTime);
+        if (LOGGER.isLoggable(Level.FINER))
+            LOGGER.log(Level.FINER, "[httpclient] getUtxos " + coinInstance.getTicker() + " received " + utxoList.size() + " utxos");
 
         coinInstance.processUtxos(utxoList);
-        return coinInstance.getAllUTXOS();
+
+        // Marked after the utxos are in place, a snapshot never pairs older data with this time
+        markFetched(coinTicker, "getUtxos", fetchTime, height);
+        return true;
     }
 
     public void getAllFees() {
-        String res = doGet("/fees");
+        processFees(doGet("/fees"));
+    }
 
+    public CompletableFuture<Void> getAllFeesAsync(long timeoutMillis) {
+        return parseAsync(getAsyncClient().get("/fees", timeoutMillis), res -> {
+            processFees(res);
+            return null;
+        });
+    }
+
+    private void processFees(String res) {
         if (res == null) return;
 
         JsonObject result = new Gson().fromJson(res, JsonObject.class);
@@ -341,30 +519,95 @@ public class HTTPClient {
 
             if (logCount % 30 == 0)
                 LOGGER.log(Level.INFO, "[httpclient] Got relayfee for currency " + ticker + " - " + fee);
-            else
+            else if (LOGGER.isLoggable(Level.FINER))
                 LOGGER.log(Level.FINER, "[httpclient] Got relayfee for currency " + ticker + " - " + fee);
         }
         logCount += 1;
     }
 
     public JsonObject getRawTransaction(CoinTicker coinTicker, String txid, boolean verbose) {
-        ArrayList<String> rawTxParams = new ArrayList<>();
-        rawTxParams.add(0, CoinTickerUtils.tickerToString(coinTicker));
-        rawTxParams.add(1, txid);
-        rawTxParams.add(2, String.valueOf(verbose));
+        JsonObject stored = getStoredRawTransaction(coinTicker, txid, verbose);
+        if (stored != null)
+            return stored;
+
+        JsonObject params = rpcParams("getrawtransaction", CoinTickerUtils.tickerToString(coinTicker), txid, String.valueOf(verbose));
+        JsonObject res = parseResult("getRawTransaction", doPost("/", params));
+        storeRawTransaction(coinTicker, verbose, res);
+        return res;
+    }
 
-        JsonArray innerParams = new Gson().toJsonTree(rawTxParams).getAsJsonArray();
+    public CompletableFuture<JsonObject> getRawTransactionAsync(CoinTicker coinTicker, String txid, boolean verbose, long timeoutMillis) {
+        JsonObject stored = getStoredRawTransaction(coinTicker, txid, verbose);
+        if (stored != null)
+            return CompletableFuture.completedFuture(stored);
+
+        JsonObject params = rpcParams("getrawtransaction", CoinTickerUtils.tickerToString(coinTicker), txid, String.valueOf(verbose));
+        return parseAsync(getRpcBatcher().post(params, timeoutMillis), res -> {
+            JsonObject result = parseResult("getRawTransaction", res);
+            storeRawTransaction(coinTicker, verbose, result);
+            return result;
+        });
+    }
 
-        JsonObject params = new JsonObject();
-        params.addProperty("method", "getrawtransaction");
-        params.add("params", innerParams);
+    /**
+     * Serves a getrawtransaction response from the on-disk transaction store.
+     * Confirmations are recomputed from the current block count.
+     * @return Response or null if the transaction is not stored
+     */
+    private JsonObject getStoredRawTransaction(CoinTicker coinTicker, String txid, boolean verbose) {
+        int blockCount = CoinInstance.getBlockCountByTicker(coinTicker);
+        TransactionStore store = TransactionStore.getStore(coinTicker);
+        if (blockCount <= 0 || store == null)
+            return null;
 
-        String res = doPost("/", params);
-        LOGGER.log(Level.FINER, "[httpclient] getRawTransaction " + res);
+        TransactionStore.StoredTransaction stored = store.get(txid.toLowerCase());
+        UpstreamMetrics.recordCache("txstore", CoinTickerUtils.tickerToString(coinTicker), stored != null);
+        if (stored == null) {
+            RPCCallContext.recordCacheMiss();
+            return null;
+        }
 
-        if (res == null) return null;
+        RPCCallContext.recordCacheHit();
 
-        return new Gson().fromJson(res, JsonObject.class);
+        JsonObject res = new JsonObject();
+        if (verbose) {
+            JsonObject tx = new Gson().fromJson(stored.getJson(), JsonObject.class);
+            tx.addProperty("confirmations", blockCount - stored.getHeight() + 1);
+            res.add("result", tx);
+        } else {
+            res.addProperty("result", stored.getHex());
+        }
+        res.add("error", JsonNull.INSTANCE);
+        return res;
+    }
+
+    /**
+     * Writes a verbose getrawtransaction result to the transaction store once it is
+     * deep enough that it will not be reorganized away.
+     */
+    private void storeRawTransaction(CoinTicker coinTicker, boolean verbose, JsonObject res) {
+        if (!verbose || res == null || !res.has("result") || !res.get("result").isJsonObject())
+            return;
+
+        JsonObject tx = res.getAsJsonObject("result");
+        if (!tx.has("txid") || !tx.has("hex") || !tx.has("confirmations"))
+            return;
+
+        int blockCount = CoinInstance.getBlockCountByTicker(coinTicker);
+        int confirmations = tx.get("confirmations").getAsInt();
+        if (blockCount <= 0 || confirmations < JSONRPCController.getMasterConfig().getTxCacheConfirmations())
+            return;
+
+        TransactionStore store = TransactionStore.getStore(coinTicker);
+        if (store == null)
+            return;
+
+        int height = tx.has("height") ? tx.get("height").getAsInt() : blockCount - confirmations + 1;
+        try {
+            store.put(tx.get("txid").getAsString().toLowerCase(), height, Utils.HEX.decode(tx.get("hex").getAsString().toLowerCase()), tx.toString());
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "[httpclient] Not caching malformed transaction " + tx.get("txid"));
+        }
     }
 
     public JsonObject getRawMempool(CoinTicker coinTicker, boolean verbose) {
@@ -379,7 +622,7 @@ public class HTTPClient {
         params.add("params", innerParams);
 
         String res = doPost("/", params);
-        LOGGER.log(Level.FINER, "[httpclient] getRawMempool " + res);
+        CCLogger.log(Level.FINER, "[httpclient] getRawMempool ", res);
 
         if (res == null) return null;
 
@@ -406,12 +649,22 @@ public class HTTPClient {
 
         coinInstance.addBlockCount(coinTicker, blockCount);
 
-        LOGGER.log(Level.FINER, "[httpclient] Got blockcount for currency " + coinTicker + " - " + blockCount);
+        if (LOGGER.isLoggable(Level.FINER))
+            LOGGER.log(Level.FINER, "[httpclient] Got blockcount for currency " + coinTicker + " - " + blockCount);
     }
 
     public void getAllBlockCounts() {
-        String res = doGet("/height");
+        processBlockCounts(doGet("/height"));
+    }
+
+    public CompletableFuture<Void> getAllBlockCountsAsync(long timeoutMillis) {
+        return parseAsync(getAsyncClient().get("/height", timeoutMillis), res -> {
+            processBlockCounts(res);
+            return null;
+        });
+    }
 
+    private void processBlockCounts(String res) {
         if (res == null) return;
 
         JsonObject result = new Gson().fromJson(res, JsonObject.class);
@@ -431,28 +684,19 @@ public class HTTPClient {
             coinInstance.addBlockCount(coinTicker, blockCount);
             coinInstance.resetUpdateFailures();
 
-            LOGGER.log(Level.FINER, "[httpclient] Got blockcount for currency " + ticker + " - " + blockCount);
+            if (LOGGER.isLoggable(Level.FINER))
+                LOGGER.log(Level.FINER, "[httpclient] Got blockcount for currency " + ticker + " - " + blockCount);
         }
     }
 
     public JsonObject getBlock(CoinTicker coinTicker, String hash, boolean verbose) {
-        ArrayList<String> rawParams = new ArrayList<>();
-        rawParams.add(0, CoinTickerUtils.tickerToString(coinTicker));
-        rawParams.add(1, hash);
-        rawParams.add(2, String.valueOf(verbose));
-
-        JsonArray innerParams = new Gson().toJsonTree(rawParams).getAsJsonArray();
-
-        JsonObject params = new JsonObject();
-        params.addProperty("method", "getblock");
-        params.add("params", innerParams);
-
-        String res = doPost("/", params);
-        LOGGER.log(Level.FINER, "[httpclient] getBlock " + res);
-
-        if (res == null) return null;
+        JsonObject params = rpcParams("getblock", CoinTickerUtils.tickerToString(coinTicker), hash, String.valueOf(verbose));
+        return parseResult("getBlock", doPost("/", params));
+    }
 
-        return new Gson().fromJson(res, JsonObject.class);
+    public CompletableFuture<JsonObject> getBlockAsync(CoinTicker coinTicker, String hash, boolean verbose, long timeoutMillis) {
+        JsonObject params = rpcParams("getblock", CoinTickerUtils.tickerToString(coinTicker), hash, String.valueOf(verbose));
+        return parseAsync(getAsyncClient().post("/", params, timeoutMillis), res -> parseResult("getBlock", res));
     }
 
     public JsonObject getBlockHash(CoinTicker coinTicker, int height) {
@@ -465,7 +709,7 @@ public class HTTPClient {
         params.add("params", innerParams);
 
         String res = doPost("/", params);
-        LOGGER.log(Level.FINER, "[httpclient] getBlockHash " + res);
+        CCLogger.log(Level.FINER, "[httpclient] getBlockHash ", res);
 
         if (res == null) return null;
 
@@ -485,7 +729,7 @@ public class HTTPClient {
         params.add("params", innerParams);
 
         String res = doPost("/", params);
-        LOGGER.log(Level.FINER, "[httpclient] getTransaction " + res);
+        CCLogger.log(Level.FINER, "[httpclient] getTransaction ", res);
 
         if (res == null) return null;
 
@@ -493,102 +737,101 @@ public class HTTPClient {
     }
 
     public JsonObject sendRawTransaction(CoinTicker coinTicker, String rawTx) {
-        ArrayList<String> rawTxParams = new ArrayList<>();
-        rawTxParams.add(0, CoinTickerUtils.tickerToString(coinTicker));
-        rawTxParams.add(1, rawTx);
+        JsonObject params = rpcParams("sendrawtransaction", CoinTickerUtils.tickerToString(coinTicker), rawTx);
+        return parseResult("sendRawTransaction", doPost("/", params));
+    }
 
-        JsonArray innerParams = new Gson().toJsonTree(rawTxParams).getAsJsonArray();
+    public CompletableFuture<JsonObject> sendRawTransactionAsync(CoinTicker coinTicker, String rawTx, long timeoutMillis) {
+        JsonObject params = rpcParams("sendrawtransaction", CoinTickerUtils.tickerToString(coinTicker), rawTx);
+        return parseAsync(getAsyncClient().post("/", params, timeoutMillis), res -> parseResult("sendRawTransaction", res));
+    }
 
-        JsonObject params = new JsonObject();
-        params.addProperty("method", "sendrawtransaction");
-        params.add("params", innerParams);
+    /**
+     * Return all transactions associated with the coin.
+     * @param coinTicker Coin
+     * @param startTime Beginning of the time frame in unix time
+     * @param endTime End of the time frame in unix time
+     * @param expiry Maximum cache age in milliseconds, a new block always expires the cache
+     * @return Transactions with the time they were fetched or null on error
+     */
+    public Snapshot getHistory(CoinTicker coinTicker, int startTime, int endTime, int expiry) {
+        CoinInstance coinInstance = CoinInstance.getInstance(coinTicker);
+        long currentTime = System.currentTimeMillis();
+        int height = CoinInstance.getBlockCountByTicker(coinTicker);
+        if (isCacheFresh(coinTicker, "getHistory", expiry, currentTime, height))
+            return snapshot(coinTicker, "getHistory", () -> filterHistory(coinInstance.getAllTransactions(), startTime, endTime));
 
-        String res = doPost("/", params);
-        LOGGER.log(Level.FINER, "[httpclient] sendRawTransaction " + res);
+        JsonObject params = addressParams(coinInstance, "gethistory", "getHistory");
+        if (params == null)
+            return null;
 
-        if (res == null) return null;
+        if (isCacheServable(coinTicker, "getHistory", currentTime)) {
+            refreshInBackground(coinTicker, "getHistory", startHistoryRefresh(coinTicker, params, currentTime, height, BACKGROUND_REFRESH_TIMEOUT));
+            return snapshot(coinTicker, "getHistory", () -> filterHistory(coinInstance.getAllTransactions(), startTime, endTime));
+        }
 
-        return new Gson().fromJson(res, JsonObject.class);
+        boolean refreshed = refreshFlights.execute(flightKey(coinTicker, params), () -> refreshHistory(coinTicker, doPost("/", params, reader -> ResponseDecoder.decodeHistory(coinTicker, reader)), currentTime, height));
+        return refreshed ? snapshot(coinTicker, "getHistory", () -> filterHistory(coinInstance.getAllTransactions(), startTime, endTime)) : null;
     }
 
     /**
-     * Return all transactions associated with the coin.
+     * Non-blocking variant of {@link #getHistory(CoinTicker, int, int, int)}.
      * @param coinTicker Coin
      * @param startTime Beginning of the time frame in unix time
      * @param endTime End of the time frame in unix time
-     * @param expiry Time in milliseconds until cache expires
-     * @return JsonArray or null on error
+     * @param expiry Maximum cache age in milliseconds, a new block always expires the cache
+     * @param timeoutMillis Deadline for the upstream call
+     * @return Future completing with the transactions or null on error
      */
-    public JsonArray getHistory(CoinTicker coinTicker, int startTime, int endTime, int expiry) {
+    public CompletableFuture<JsonArray> getHistoryAsync(CoinTicker coinTicker, int startTime, int endTime, int expiry, long timeoutMillis) {
         CoinInstance coinInstance = CoinInstance.getInstance(coinTicker);
-        long lastFetchTime = lastFetchTimes.getOrDefault(lastFetchTimesKey(coinTicker, "getHistory"), 0L);
         long currentTime = System.currentTimeMillis();
-        if (currentTime - lastFetchTime < expiry)
-            return filterHistory(coinInstance.getAllTransactions(), startTime, endTime);
+        int height = CoinInstance.getBlockCountByTicker(coinTicker);
+        if (isCacheFresh(coinTicker, "getHistory", expiry, currentTime, height))
+            return CompletableFuture.completedFuture(filterHistory(coinInstance.getAllTransactions(), startTime, endTime));
 
-        ArrayList<String> utxoParams = coinInstance.getUTXOParams();
-        if (utxoParams.size() == 0) {
-            LOGGER.log(Level.WARNING, "[httpclient] getHistory " + coinInstance.getTicker() + " null param size");
-            return null;
+        JsonObject params = addressParams(coinInstance, "gethistory", "getHistory");
+        if (params == null)
+            return CompletableFuture.completedFuture(null);
+
+        if (isCacheServable(coinTicker, "getHistory", currentTime)) {
+            refreshInBackground(coinTicker, "getHistory", startHistoryRefresh(coinTicker, params, currentTime, height, BACKGROUND_REFRESH_TIMEOUT));
+            return CompletableFuture.completedFuture(filterHistory(coinInstance.getAllTransactions(), startTime, endTime));
         }
 
-        JsonArray innerParams = new Gson().toJsonTree(utxoParams).getAsJsonArray();
+        return startHistoryRefresh(coinTicker, params, currentTime, height, timeoutMillis)
+                .thenApply(refreshed -> refreshed ? filterHistory(coinInstance.getAllTransactions(), startTime, endTime) : null);
+    }
 
-        JsonObject params = new JsonObject();
-        params.addProperty("method", "gethistory");
-        params.add("params", innerParams);
+    private CompletableFuture<Boolean> startHistoryRefresh(CoinTicker coinTicker, JsonObject params, long fetchTime, int height, long timeoutMillis) {
+        return refreshFlights.executeAsync(flightKey(coinTicker, params),
+                () -> parseAsync(getAsyncClient().post("/", params, timeoutMillis), res -> refreshHistory(coinTicker, decode(res, reader -> ResponseDecoder.decodeHistory(coinTicker, reader)), fetchTime, height)));
+    }
 
-        String res = doPost("/", params);
-        LOGGER.log(Level.FINER, "[httpclient] getHistory " + coinInstance.getTicker() + " " + res);
-        if (res == null) {
-            LOGGER.log(Level.WARNING, "[httpclient] getHistory " + coinInstance.getTicker() + " null post result");
-            return null;
-        }
+    /**
+     * Updates the coin's transaction history from a decoded gethistory response.
+     * @return false if the response could not be used
+     */
+    private boolean refreshHistory(CoinTicker coinTicker, List<Transaction> historyList, long fetchTime, int height) {
+        CoinInstance coinInstance = CoinInstance.getInstance(coinTicker);
 
-        JsonArray json = new Gson().fromJson(res, JsonArray.class);
-        if (json == null) {
+        if (historyList == null) {
             LOGGER.log(Level.WARNING, "[httpclient] getHistory " + coinInstance.getTicker() + " null json");
-            return null;
+            return false;
         }
 
-        List<Transaction> historyList = new ArrayList<>();
-        for (JsonElement elements : json) {
-            for (JsonElement element : elements.getAsJsonArray()) {
-                //LOGGER.log(Level.WARNING, "*** DEBUG *** [httpclient] getHistory " + element);
-                JsonObject jsonObject = element.getAsJsonObject();
-
-                List<String> fromAddresses = new Gson().fromJson(jsonObject.get("from_addresses"), new TypeToken<List<String>>() {
-                }.getType());
-
-                Transaction tx = new Transaction(coinTicker,
-                        jsonObject.get("address").getAsString(),
-                        jsonObject.get("txid").getAsString(),
-                        jsonObject.get("blockhash").getAsString(),
-                        jsonObject.get("vout").getAsInt(),
-                        jsonObject.get("amount").getAsDouble(),
-                        jsonObject.get("confirmations").getAsInt(),
-                        jsonObject.get("blocktime").getAsInt(),
-                        fromAddresses);
-                tx.setCategory(jsonObject.get("category").getAsString());
-                tx.setFee(jsonObject.get("fee").getAsDouble());
-
-                historyList.add(tx);
-            }
-        }
+        if (LOGGER.isLoggable(Level.FINER))
+            LOGGER.log(Level.FINER, "[httpclient] getHistory " + coinInstance.getTicker() + " received " + historyList.size() + " transactions");
         coinInstance.processHistoryTxs(historyList);
 
-        // Return the latest transaction history
-        JsonArray txs = coinInstance.getAllTransactions();
-        if (txs == null) {
+        // Make sure the latest transaction history is available
+        if (coinInstance.getAllTransactions() == null) {
             LOGGER.log(Level.WARNING, "[httpclient] getHistory " + coinInstance.getTicker() + " null txs");
-            return null;
+            return false;
         }
 
-        // Update last fetch time
-        lastFetchTimes.put(lastFetchTimesKey(coinTicker, "getHistory"), currentTime);
-
-        // Filter txs by time if time frame requested
-        return filterHistory(txs, startTime, endTime);
+        markFetched(coinTicker, "getHistory", fetchTime, height);
+        return true;
     }
 
     /**
@@ -596,16 +839,19 @@ public class HTTPClient {
      * @param coinTicker Coin
      * @param startTime Beginning of the time frame in unix time
      * @param endTime End of the time frame in unix time
-     * @param expiry Time in milliseconds until cache expires
+     * @param expiry Maximum cache age in milliseconds, a new block always expires the cache
      * @return JsonArray or null on error
      */
     public JsonArray getTransactionHistory(CoinTicker coinTicker, int startTime, int endTime, int expiry) {
         CoinInstance coinInstance = CoinInstance.getInstance(coinTicker);
-        long lastFetchTime = lastFetchTimes.getOrDefault(lastFetchTimesKey(coinTicker, "getAddressHistory"), 0L);
-        long currentTime = System.currentTimeMillis() / 1000;
-        if ((currentTime - lastFetchTime) < expiry)
+        long currentTime = System.currentTimeMillis();
+        int height = CoinInstance.getBlockCountByTicker(coinTicker);
+        if (isCacheFresh(coinTicker, "getAddressHistory", expiry, currentTime, height))
             return filterHistory(coinInstance.getAllTransactions(), startTime, endTime);
 
+        RPCCallContext.recordCacheMiss();
+        UpstreamMetrics.recordCache("getAddressHistory", CoinTickerUtils.tickerToString(coinTicker), false);
+
         ArrayList<String> utxoParams = coinInstance.getUTXOParams();
         if (utxoParams.size() == 0) {
             LOGGER.log(Level.WARNING, "[httpclient] getAddressHistory " + coinInstance.getTicker() + " null param size");
@@ -619,7 +865,8 @@ public class HTTPClient {
         params.add("params", innerParams);
 
         String res = doPost("/", params);
-        LOGGER.log(Level.FINER, "[httpclient] getAddressHistory " + coinInstance.getTicker() + " " + res);
+        if (LOGGER.isLoggable(Level.FINER))
+            LOGGER.log(Level.FINER, "[httpclient] getAddressHistory " + coinInstance.getTicker() + " " + res);
         if (res == null) {
             LOGGER.log(Level.WARNING, "[httpclient] getAddressHistory " + coinInstance.getTicker() + " null post result");
             return null;
@@ -631,138 +878,103 @@ public class HTTPClient {
             return null;
         }
 
-        List<Transaction> historyList = new ArrayList<>();
+        List<String> txids = new ArrayList<>();
         for (JsonElement elements : json) {
-            for (JsonElement element : elements.getAsJsonArray()) {
-                //LOGGER.log(Level.WARNING, "*** DEBUG *** [httpclient] getAddressHistory " + element );
-                JsonObject jsonObject = element.getAsJsonObject();
-
-                String txid = jsonObject.get("tx_hash").getAsString();
-                JsonObject rawTransaction = null;
-
-                int fails = 1;
-                while (fails > 0) {
-                    if (fails >= 5)
-                        fails = 0;
-
-                    try {
-                        rawTransaction = getRawTransaction(coinTicker, txid, true);
-
-                        if (rawTransaction != null && !rawTransaction.get("result").isJsonNull()) {
-                            rawTransaction = rawTransaction.getAsJsonObject("result");
-                            fails = 0;
-
-                            break;
-                        } else
-                            ++fails;
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        ++fails;
-                    }
-                }
+            for (JsonElement element : elements.getAsJsonArray())
+                txids.add(element.getAsJsonObject().get("tx_hash").getAsString());
+        }
 
-                if (fails != 0)
-                    continue;
+        // Resolve the history transactions first, then every prevout they spend
+        RawTransactionResolver resolver = getRawTransactionResolver();
+        Map<String, JsonObject> rawTransactions = resolver.resolve(coinTicker, txids);
 
-                for (JsonElement vin : rawTransaction.get("vin").getAsJsonArray()) {
-                    String vinTxid = vin.getAsJsonObject().get("txid").getAsString();
-                    int voutInt = vin.getAsJsonObject().get("vout").getAsInt();
+        List<String> prevoutTxids = new ArrayList<>();
+        for (JsonObject rawTransaction : rawTransactions.values()) {
+            for (JsonElement vin : rawTransaction.get("vin").getAsJsonArray()) {
+                if (vin.getAsJsonObject().has("txid"))
+                    prevoutTxids.add(vin.getAsJsonObject().get("txid").getAsString());
+            }
+        }
+        Map<String, JsonObject> prevoutTransactions = resolver.resolve(coinTicker, prevoutTxids);
 
-                    JsonObject voutRawTransaction = null;
+        List<Transaction> historyList = new ArrayList<>();
+        for (String txid : txids) {
+            JsonObject rawTransaction = rawTransactions.get(txid);
+            if (rawTransaction == null)
+                continue;
 
-                    fails = 1;
-                    while (fails > 0) {
-                        if (fails >= 5)
-                            fails = 0;
+            for (JsonElement vin : rawTransaction.get("vin").getAsJsonArray()) {
+                if (!vin.getAsJsonObject().has("txid"))
+                    continue;
 
-                        try {
-                            voutRawTransaction = getRawTransaction(coinTicker, vinTxid, true);
+                String vinTxid = vin.getAsJsonObject().get("txid").getAsString();
+                int voutInt = vin.getAsJsonObject().get("vout").getAsInt();
 
-                            if (voutRawTransaction != null && !voutRawTransaction.get("result").isJsonNull()) {
-                                voutRawTransaction = voutRawTransaction.getAsJsonObject("result");
-                                fails = 0;
+                JsonObject voutRawTransaction = prevoutTransactions.get(vinTxid);
+                if (voutRawTransaction == null)
+                    continue;
 
-                                break;
-                            } else
-                                ++fails;
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                            ++fails;
-                        }
-                    }
+                JsonObject vout = voutRawTransaction.get("vout").getAsJsonArray().get(voutInt).getAsJsonObject();
+                JsonObject scriptPubKey = vout.getAsJsonObject("scriptPubKey");
 
-                    if (fails != 0)
-                        continue;
+                if ((scriptPubKey == null || scriptPubKey.isJsonNull()) || scriptPubKey.get("addresses").isJsonNull())
+                    continue;
 
-                    JsonObject vout = voutRawTransaction.get("vout").getAsJsonArray().get(voutInt).getAsJsonObject();
-                    JsonObject scriptPubKey = vout.getAsJsonObject("scriptPubKey");
+                for (JsonElement addressElement : scriptPubKey.getAsJsonArray("addresses")) {
+                    String address = addressElement.getAsString();
 
-                    if ((scriptPubKey == null || scriptPubKey.isJsonNull()) || scriptPubKey.get("addresses").isJsonNull())
+                    if (coinInstance.getAddress(address) == null)
                         continue;
 
-                    for (JsonElement addressElement : scriptPubKey.getAsJsonArray("addresses")) {
-                        String address = addressElement.getAsString();
-
-                        for (AddressBalance addressBalance : coinInstance.getAddressKeyPairs()) {
-                            String utxoAddress = addressBalance.getAddress().toBase58();
-
-                            if (utxoAddress.equals(address)) {
-                                List<String> fromAddresses = new ArrayList<>();
-
-                                Transaction tx = new Transaction(coinTicker,
-                                        address,
-                                        txid,
-                                        rawTransaction.get("blockhash").getAsString(),
-                                        voutInt,
-                                        vout.get("value").getAsDouble(),
-                                        rawTransaction.get("confirmations").getAsInt(),
-                                        rawTransaction.get("blocktime").getAsInt(),
-                                        fromAddresses);
-                                tx.setCategory("send");
-                                tx.setFee(0.0);
-
-                                historyList.add(tx);
-                            }
-                        }
-                    }
+                    List<String> fromAddresses = new ArrayList<>();
+
+                    Transaction tx = new Transaction(coinTicker,
+                            address,
+                            txid,
+                            rawTransaction.get("blockhash").getAsString(),
+                            voutInt,
+                            vout.get("value").getAsDouble(),
+                            rawTransaction.get("confirmations").getAsInt(),
+                            rawTransaction.get("blocktime").getAsInt(),
+                            fromAddresses);
+                    tx.setCategory("send");
+                    tx.setFee(0.0);
+
+                    historyList.add(tx);
                 }
+            }
+
+            for (JsonElement vout : rawTransaction.get("vout").getAsJsonArray()) {
+                JsonObject scriptPubKey = vout.getAsJsonObject().getAsJsonObject("scriptPubKey");
 
+                try {
+                    if (scriptPubKey.isJsonNull() || scriptPubKey.get("addresses").isJsonNull())
+                        continue;
+                } catch (Exception e) {
+                    continue;
+                }
 
-                for (JsonElement vout : rawTransaction.get("vout").getAsJsonArray()) {
-                    JsonObject scriptPubKey = vout.getAsJsonObject().getAsJsonObject("scriptPubKey");
+                for (JsonElement addressElement : scriptPubKey.getAsJsonArray("addresses")) {
+                    String address = addressElement.getAsString();
 
-                    try {
-                        if (scriptPubKey.isJsonNull() || scriptPubKey.get("addresses").isJsonNull())
-                            continue;
-                    } catch (Exception e) {
+                    if (coinInstance.getAddress(address) == null)
                         continue;
-                    }
-
-                    for (JsonElement addressElement : scriptPubKey.getAsJsonArray("addresses")) {
-                        String address = addressElement.getAsString();
-
-                        for (AddressBalance addressBalance : coinInstance.getAddressKeyPairs()) {
-                            String utxoAddress = addressBalance.getAddress().toBase58();
-
-                            if (utxoAddress.equals(address)) {
-                                List<String> fromAddresses = new ArrayList<>();
-
-                                Transaction tx = new Transaction(coinTicker,
-                                        address,
-                                        txid,
-                                        rawTransaction.get("blockhash").getAsString(),
-                                        vout.getAsJsonObject().get("n").getAsInt(),
-                                        vout.getAsJsonObject().get("value").getAsDouble(),
-                                        rawTransaction.get("confirmations").getAsInt(),
-                                        rawTransaction.get("blocktime").getAsInt(),
-                                        fromAddresses);
-                                tx.setCategory("receive");
-                                tx.setFee(0.0);
-
-                                historyList.add(tx);
-                            }
-                        }
-                    }
+
+                    List<String> fromAddresses = new ArrayList<>();
+
+                    Transaction tx = new Transaction(coinTicker,
+                            address,
+                            txid,
+                            rawTransaction.get("blockhash").getAsString(),
+                            vout.getAsJsonObject().get("n").getAsInt(),
+                            vout.getAsJsonObject().get("value").getAsDouble(),
+                            rawTransaction.get("confirmations").getAsInt(),
+                            rawTransaction.get("blocktime").getAsInt(),
+                            fromAddresses);
+                    tx.setCategory("receive");
+                    tx.setFee(0.0);
+
+                    historyList.add(tx);
                 }
             }
         }
@@ -775,13 +987,68 @@ public class HTTPClient {
             return null;
         }
 
-        // Update last fetch time
-        lastFetchTimes.put(lastFetchTimesKey(coinTicker, "getAddressHistory"), currentTime);
+        markFetched(coinTicker, "getAddressHistory", currentTime, height);
 
         // Filter txs by time if time frame requested
         return filterHistory(txs, startTime, endTime);
     }
 
+    /**
+     * Builds a backend request with the coin's address list as parameters.
+     * @param coinInstance Coin
+     * @param method Backend method
+     * @param logName Name used in log messages
+     * @return Request or null if the coin has no addresses
+     */
+    private JsonObject addressParams(CoinInstance coinInstance, String method, String logName) {
+        ArrayList<String> utxoParams = coinInstance.getUTXOParams();
+        if (utxoParams.size() == 0) {
+            LOGGER.log(Level.WARNING, "[httpclient] " + logName + " " + coinInstance.getTicker() + " null param size");
+            return null;
+        }
+
+        JsonObject params = new JsonObject();
+        params.addProperty("method", method);
+        params.add("params", new Gson().toJsonTree(utxoParams).getAsJsonArray());
+        return params;
+    }
+
+    private JsonObject rpcParams(String method, String... rpcParams) {
+        JsonArray innerParams = new JsonArray();
+        for (String param : rpcParams)
+            innerParams.add(param);
+
+        JsonObject params = new JsonObject();
+        params.addProperty("method", method);
+        params.add("params", innerParams);
+        return params;
+    }
+
+    private JsonObject parseResult(String logName, String res) {
+        if (LOGGER.isLoggable(Level.FINER))
+            LOGGER.log(Level.FINER, "[httpclient] " + logName + " " + res);
+
+        if (res == null) return null;
+
+        return new Gson().fromJson(res, JsonObject.class);
+    }
+
+    /**
+     * Parses the response off the network thread. Cancelling the returned future
+     * also cancels the upstream request.
+     * @param request Pending upstream request
+     * @param parser Response handler, receives null if the backend did not answer with 200
+     * @return Future completing with the parsed result
+     */
+    private static <T> CompletableFuture<T> parseAsync(CompletableFuture<String> request, Function<String, T> parser) {
+        CompletableFuture<T> result = request.thenApplyAsync(parser);
+        result.whenComplete((res, e) -> {
+            if (result.isCancelled())
+                request.cancel(true);
+        });
+        return result;
+    }
+
     private boolean validateResponse(HttpResponse response) {
         return response.getStatusLine().getStatusCode() == 200 && response.getEntity().getContentLength() != 0;
     }
@@ -794,7 +1061,7 @@ public class HTTPClient {
      * @param endTime Transaction on or before this time
      * @return Filtered transaction list
      */
-    private JsonArray filterHistory(JsonArray txs, int startTime, int endTime) {
+    static JsonArray filterHistory(JsonArray txs, int startTime, int endTime) {
         if (endTime <= 0)
             return txs;
         Iterator<JsonElement> it = txs.iterator();
@@ -807,13 +1074,170 @@ public class HTTPClient {
         return txs;
     }
 
+    private interface BodyDecoder<T> {
+        T decode(Reader reader) throws IOException;
+    }
+
+    /**
+     * Returns the key used to coalesce identical concurrent requests.
+     * @param ticker Coin
+     * @param params Backend request
+     * @return Coalescing key
+     */
+    private String flightKey(CoinTicker ticker, JsonObject params) {
+        return ticker.name() + ":" + params.get("method").getAsString() + ":"
+                + Hashing.murmur3_128().hashString(params.toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cached data is used while it was fetched at the current block height and is
+     * younger than the expiry. A new block invalidates it regardless of age.
+     * @param ticker Coin
+     * @param method Cache key name
+     * @param expiry Maximum age in milliseconds
+     * @param currentTime Current time in milliseconds
+     * @param height Current block count of the coin
+     * @return true if the cached data can be used
+     */
+    private boolean isCacheFresh(CoinTicker ticker, String method, long expiry, long currentTime, int height) {
+        CacheEntry entry = cacheEntries.get(cacheKey(ticker, method));
+        boolean fresh = entry != null && entry.height == height && currentTime - entry.fetchTime < expiry;
+        if (fresh) {
+            RPCCallContext.recordCacheHit();
+            UpstreamMetrics.recordCache(method, CoinTickerUtils.tickerToString(ticker), true);
+        }
+        return fresh;
+    }
+
+    private void markFetched(CoinTicker ticker, String method, long fetchTime, int height) {
+        cacheEntries.put(cacheKey(ticker, method), new CacheEntry(fetchTime, height));
+    }
+
+    /**
+     * Cached data that is no longer fresh may still be served, while a refresh runs
+     * in the background, if it is younger than the configured staleness bound.
+     * @param ticker Coin
+     * @param method Cache key name
+     * @param currentTime Current time in milliseconds
+     * @return true if the cached data can be served stale
+     */
+    private boolean isCacheServable(CoinTicker ticker, String method, long currentTime) {
+        long maxStaleness = JSONRPCController.getMasterConfig().getCacheMaxStaleness();
+        CacheEntry entry = cacheEntries.get(cacheKey(ticker, method));
+        boolean servable = maxStaleness > 0 && entry != null && currentTime - entry.fetchTime < maxStaleness;
+        if (servable)
+            RPCCallContext.recordCacheHit();
+        else
+            RPCCallContext.recordCacheMiss();
+        UpstreamMetrics.recordCache(method, CoinTickerUtils.tickerToString(ticker), servable);
+        return servable;
+    }
+
+    private void refreshInBackground(CoinTicker ticker, String method, CompletableFuture<Boolean> refresh) {
+        refresh.whenComplete((refreshed, e) -> {
+            if (e != null || !refreshed)
+                LOGGER.log(Level.WARNING, "[httpclient] Background " + method + " " + ticker + " failed" + (e != null ? ": " + e : ""));
+        });
+    }
+
+    /**
+     * Reads cached data together with the time it was fetched. The time is read
+     * first and entries are marked only once their data is in place, so a refresh
+     * finishing in between can make the data newer than the time but never older.
+     * @param ticker Coin
+     * @param method Cache key name
+     * @param data Reads the cached data
+     * @return Snapshot or null if there is no data
+     */
+    private Snapshot snapshot(CoinTicker ticker, String method, Supplier<JsonArray> data) {
+        CacheEntry entry = cacheEntries.get(cacheKey(ticker, method));
+        JsonArray result = data.get();
+        return result == null ? null : new Snapshot(result, entry == null ? -1 : entry.fetchTime);
+    }
+
+    /**
+     * Called when a coin's block count changes. Without a staleness bound the coin's
+     * cache is dropped, otherwise it keeps being served while it refreshes.
+     * @param ticker Coin
+     */
+    private void onBlockCountChanged(CoinTicker ticker) {
+        if (JSONRPCController.getMasterConfig().getCacheMaxStaleness() <= 0) {
+            invalidate(ticker);
+            return;
+        }
+
+        CoinInstance coinInstance = CoinInstance.getInstance(ticker);
+        long currentTime = System.currentTimeMillis();
+        int height = CoinInstance.getBlockCountByTicker(ticker);
+
+        if (cacheEntries.containsKey(cacheKey(ticker, "getUtxos"))) {
+            JsonObject params = addressParams(coinInstance, "getutxos", "getUtxos");
+            if (params != null)
+                refreshInBackground(ticker, "getUtxos", startUtxoRefresh(ticker, params, currentTime, height, BACKGROUND_REFRESH_TIMEOUT));
+        }
+
+        if (cacheEntries.containsKey(cacheKey(ticker, "getHistory"))) {
+            JsonObject params = addressParams(coinInstance, "gethistory", "getHistory");
+            if (params != null)
+                refreshInBackground(ticker, "getHistory", startHistoryRefresh(ticker, params, currentTime, height, BACKGROUND_REFRESH_TIMEOUT));
+        }
+
+        // Address history has no background refresh
+        cacheEntries.remove(cacheKey(ticker, "getAddressHistory"));
+    }
+
+    /**
+     * Drops all cached data of a coin.
+     * @param ticker Coin
+     */
+    private void invalidate(CoinTicker ticker) {
+        String suffix = ":" + ticker.name();
+        cacheEntries.keySet().removeIf(key -> key.endsWith(suffix));
+        if (LOGGER.isLoggable(Level.FINER))
+            LOGGER.log(Level.FINER, "[httpclient] New block for " + ticker + ", cache invalidated");
+    }
+
     /**
-     * Returns the key used with last fetch times.
+     * Returns the key used with cache entries.
      * @param ticker Coin
      * @param method Storage key name
      * @return Storage key
      */
-    private String lastFetchTimesKey(CoinTicker ticker, String method) {
+    private String cacheKey(CoinTicker ticker, String method) {
         return method + ":" + ticker.name();
     }
+
+    /**
+     * Cached data returned with the time it was fetched from the backend.
+     */
+    public static class Snapshot {
+        private final JsonArray data;
+        private final long fetchTime;
+
+        private Snapshot(JsonArray data, long fetchTime) {
+            this.data = data;
+            this.fetchTime = fetchTime;
+        }
+
+        public JsonArray getData() {
+            return data;
+        }
+
+        /**
+         * @return Milliseconds since the data was fetched or -1 if unknown
+         */
+        public long getAge() {
+            return fetchTime < 0 ? -1 : Math.max(0, System.currentTimeMillis() - fetchTime);
+        }
+    }
+
+    private static class CacheEntry {
+        private final long fetchTime;
+        private final int height;
+
+        private CacheEntry(long fetchTime, int height) {
+            this.fetchTime = fetchTime;
+            this.height = height;
+        }
+    }
 }
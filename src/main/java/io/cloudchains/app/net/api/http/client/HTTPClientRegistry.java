@@ -0,0 +1,49 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.gson.JsonObject;
+import io.cloudchains.app.App;
+import io.cloudchains.app.net.api.JSONRPCController;
+import io.cloudchains.app.util.ConfigHelper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of upstream clients, one per backend URL. Clients keep
+ * their connections alive and are shared by every RPC server and background task.
+ */
+public class HTTPClientRegistry {
+    private static final ConcurrentHashMap<String, HTTPClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared client for the currently configured backend.
+     * @return Shared client
+     */
+    public static HTTPClient get() {
+        return get(App.BASE_URL);
+    }
+
+    public static HTTPClient get(String baseUrl) {
+        return clients.computeIfAbsent(baseUrl, url -> {
+            ConfigHelper masterConfig = JSONRPCController.getMasterConfig();
+            return new HTTPClient(url, masterConfig.getHttpMaxConnections(), masterConfig.getHttpIdleTimeout());
+        });
+    }
+
+    public static JsonObject getStats() {
+        JsonObject stats = new JsonObject();
+        for (Map.Entry<String, HTTPClient> entry : clients.entrySet()) {
+            stats.add(entry.getKey(), entry.getValue().getStats());
+        }
+
+        return stats;
+    }
+
+    public static void closeAll() {
+        for (HTTPClient client : clients.values()) {
+            client.close();
+        }
+
+        clients.clear();
+    }
+}
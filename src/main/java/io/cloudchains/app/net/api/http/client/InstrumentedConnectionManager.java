@@ -0,0 +1,85 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.gson.JsonObject;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection pool that records how often connections are leased, how long
+ * callers waited for a lease and how many new (TLS) connections were opened.
+ */
+public class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+    private final AtomicLong leaseWaitNanos = new AtomicLong();
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    public InstrumentedConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry) {
+        super(socketFactoryRegistry);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        final ConnectionRequest request = super.requestConnection(route, state);
+
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    HttpClientConnection connection = request.get(timeout, timeUnit);
+                    leases.incrementAndGet();
+                    return connection;
+                } catch (ConnectionPoolTimeoutException e) {
+                    leaseTimeouts.incrementAndGet();
+                    throw e;
+                } finally {
+                    long waited = System.nanoTime() - start;
+                    leaseWaitNanos.addAndGet(waited);
+                    maxLeaseWaitNanos.accumulateAndGet(waited, Math::max);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void connect(HttpClientConnection managedConn, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+        super.connect(managedConn, route, connectTimeout, context);
+        connectionsOpened.incrementAndGet();
+    }
+
+    public JsonObject getStats() {
+        PoolStats poolStats = getTotalStats();
+        long leaseCount = leases.get();
+
+        JsonObject stats = new JsonObject();
+        stats.addProperty("max", poolStats.getMax());
+        stats.addProperty("leased", poolStats.getLeased());
+        stats.addProperty("available", poolStats.getAvailable());
+        stats.addProperty("pending", poolStats.getPending());
+        stats.addProperty("leases", leaseCount);
+        stats.addProperty("leasetimeouts", leaseTimeouts.get());
+        stats.addProperty("connectionsopened", connectionsOpened.get());
+        stats.addProperty("avgleasewaitms", leaseCount == 0 ? 0.0 : leaseWaitNanos.get() / (double) leaseCount / 1000000.0);
+        stats.addProperty("maxleasewaitms", maxLeaseWaitNanos.get() / 1000000.0);
+        return stats;
+    }
+}
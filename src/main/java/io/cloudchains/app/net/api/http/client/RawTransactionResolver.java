@@ -0,0 +1,200 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.cloudchains.app.net.CoinInstance;
+import io.cloudchains.app.net.CoinTicker;
+import io.cloudchains.app.net.api.RPCCallContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Resolves verbose raw transactions for many txids at once. Distinct txids are
+ * fetched concurrently in JSON-RPC batches with bounded parallelism and confirmed
+ * transactions are memoized, so a refresh only fetches txids it has not seen
+ * confirmed before.
+ */
+public class RawTransactionResolver {
+    private final static LogManager LOGMANAGER = LogManager.getLogManager();
+    private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long REQUEST_TIMEOUT = 30000;
+
+    private final HTTPClient client;
+    private final Semaphore permits;
+    private final LinkedHashMap<String, MemoEntry> memo;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    RawTransactionResolver(HTTPClient client, int parallelism, int cacheSize) {
+        this.client = client;
+        this.permits = new Semaphore(Math.max(1, parallelism));
+        this.memo = new LinkedHashMap<String, MemoEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MemoEntry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the verbose raw transaction for each txid. Txids that could not be
+     * fetched after several attempts are missing from the result.
+     * @param coinTicker Coin
+     * @param txids Transactions to resolve, duplicates are fetched once
+     * @return Map of txid to the raw transaction "result" object
+     */
+    public Map<String, JsonObject> resolve(CoinTicker coinTicker, Collection<String> txids) {
+        long start = System.nanoTime();
+        int blockCount = CoinInstance.getBlockCountByTicker(coinTicker);
+        Map<String, JsonObject> resolved = new HashMap<>();
+        Map<String, CompletableFuture<JsonObject>> pending = new LinkedHashMap<>();
+
+        // Each permit covers one batch worth of lookups, sent as a single request
+        int batchSize = client.getRpcBatcher().getBatchSize();
+        List<CompletableFuture<JsonObject>> batch = new ArrayList<>();
+
+        for (String txid : new LinkedHashSet<>(txids)) {
+            JsonObject memoized = getMemoized(coinTicker, txid, blockCount);
+            if (memoized != null) {
+                hits.incrementAndGet();
+                resolved.put(txid, memoized);
+                continue;
+            }
+
+            if (batch.isEmpty()) {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            CompletableFuture<JsonObject> future = fetch(coinTicker, txid, 1);
+            pending.put(txid, future);
+            batch.add(future);
+
+            if (batch.size() >= batchSize) {
+                releaseWhenDone(batch);
+                batch = new ArrayList<>();
+            }
+        }
+
+        if (!batch.isEmpty())
+            releaseWhenDone(batch);
+
+        for (Map.Entry<String, CompletableFuture<JsonObject>> entry : pending.entrySet()) {
+            JsonObject tx = entry.getValue().join();
+            if (tx == null) {
+                failures.incrementAndGet();
+                LOGGER.log(Level.WARNING, "[httpclient] Failed to resolve raw transaction " + entry.getKey());
+                continue;
+            }
+
+            memoize(coinTicker, entry.getKey(), tx, blockCount);
+            resolved.put(entry.getKey(), tx);
+        }
+
+        // The fetches complete on the batcher's threads, the caller's wait is the upstream time
+        if (!pending.isEmpty())
+            RPCCallContext.recordUpstream(System.nanoTime() - start);
+
+        return resolved;
+    }
+
+    private void releaseWhenDone(List<CompletableFuture<JsonObject>> batch) {
+        CompletableFuture.allOf(batch.toArray(new CompletableFuture[0])).whenComplete((res, e) -> permits.release());
+    }
+
+    private CompletableFuture<JsonObject> fetch(CoinTicker coinTicker, String txid, int attempt) {
+        fetches.incrementAndGet();
+        return client.getRawTransactionAsync(coinTicker, txid, true, REQUEST_TIMEOUT)
+                .handle((res, e) -> {
+                    if (e != null || res == null || !res.has("result") || !res.get("result").isJsonObject())
+                        return null;
+
+                    return res.getAsJsonObject("result");
+                })
+                .thenCompose(tx -> tx != null || attempt >= MAX_ATTEMPTS
+                        ? CompletableFuture.completedFuture(tx)
+                        : fetch(coinTicker, txid, attempt + 1));
+    }
+
+    private void memoize(CoinTicker coinTicker, String txid, JsonObject tx, int blockCount) {
+        JsonElement confirmations = tx.get("confirmations");
+        if (confirmations == null || !confirmations.isJsonPrimitive() || confirmations.getAsInt() <= 0)
+            return;
+
+        synchronized (memo) {
+            memo.put(memoKey(coinTicker, txid), new MemoEntry(tx, confirmations.getAsInt(), blockCount));
+        }
+    }
+
+    /**
+     * Returns a memoized transaction with its confirmations advanced to the current block count.
+     */
+    private JsonObject getMemoized(CoinTicker coinTicker, String txid, int blockCount) {
+        MemoEntry entry;
+        synchronized (memo) {
+            entry = memo.get(memoKey(coinTicker, txid));
+        }
+
+        if (entry == null)
+            return null;
+
+        int confirmations = entry.confirmations;
+        if (blockCount > 0 && entry.blockCount > 0 && blockCount > entry.blockCount)
+            confirmations += blockCount - entry.blockCount;
+
+        // Shallow copy, nested elements are never modified
+        JsonObject tx = new JsonObject();
+        for (Map.Entry<String, JsonElement> field : entry.tx.entrySet())
+            tx.add(field.getKey(), field.getValue());
+        tx.addProperty("confirmations", confirmations);
+        return tx;
+    }
+
+    private static String memoKey(CoinTicker coinTicker, String txid) {
+        return coinTicker.name() + ":" + txid;
+    }
+
+    public JsonObject getStats() {
+        JsonObject stats = new JsonObject();
+        synchronized (memo) {
+            stats.addProperty("cached", memo.size());
+        }
+        stats.addProperty("available", permits.availablePermits());
+        stats.addProperty("hits", hits.get());
+        stats.addProperty("fetches", fetches.get());
+        stats.addProperty("failures", failures.get());
+        return stats;
+    }
+
+    private static class MemoEntry {
+        private final JsonObject tx;
+        private final int confirmations;
+        private final int blockCount;
+
+        private MemoEntry(JsonObject tx, int confirmations, int blockCount) {
+            this.tx = tx;
+            this.confirmations = confirmations;
+            this.blockCount = blockCount;
+        }
+    }
+}
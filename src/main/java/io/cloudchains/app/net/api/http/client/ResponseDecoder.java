@@ -0,0 +1,263 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.cloudchains.app.net.CoinTicker;
+import io.cloudchains.app.util.UTXO;
+import io.cloudchains.app.util.history.Transaction;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Single pass decoders for the large backend responses. Objects are built straight
+ * from the token stream without materializing a JSON tree or the response string.
+ * Entries missing a required field are skipped rather than given a default, a
+ * wrong txid or vout would make an outpoint that is not ours.
+ */
+public class ResponseDecoder {
+    private final static LogManager LOGMANAGER = LogManager.getLogManager();
+    private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    /**
+     * Decodes a getutxos response of the form {"utxos": [{...}, ...]}.
+     * @param coinTicker Coin the utxos belong to
+     * @param in Response body
+     * @return Utxos or null if the response has no utxo list
+     * @throws IOException On malformed input
+     */
+    public static List<UTXO> decodeUtxos(CoinTicker coinTicker, Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        List<UTXO> utxos = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("utxos") || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                reader.skipValue();
+                continue;
+            }
+
+            utxos = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                UTXO utxo = decodeUtxo(coinTicker, reader);
+                if (utxo != null)
+                    utxos.add(utxo);
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+
+        return utxos;
+    }
+
+    /**
+     * @return Utxo or null if the entry lacks its address, txid, vout or value
+     */
+    private static UTXO decodeUtxo(CoinTicker coinTicker, JsonReader reader) throws IOException {
+        String address = null;
+        String txid = null;
+        Integer vout = null;
+        int height = 0;
+        Double value = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "address":
+                    address = nextString(reader);
+                    break;
+                case "txhash":
+                    txid = nextString(reader);
+                    break;
+                case "vout":
+                    vout = nextIntOrNull(reader);
+                    break;
+                case "block_number":
+                    height = nextInt(reader);
+                    break;
+                case "value":
+                    value = nextDoubleOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (address == null || !isTxid(txid) || vout == null || vout < 0 || value == null) {
+            LOGGER.log(Level.WARNING, "[httpclient] getUtxos " + coinTicker + " skipping malformed utxo " + txid + ":" + vout + " address " + address + " value " + value);
+            return null;
+        }
+
+        return new UTXO(coinTicker, address, txid, vout, height, (long) Math.floor(value * 100000000.0));
+    }
+
+    /**
+     * Decodes a gethistory response, one array of transactions per address.
+     * @param coinTicker Coin the transactions belong to
+     * @param in Response body
+     * @return Transactions or null if the response is not an array
+     * @throws IOException On malformed input
+     */
+    public static List<Transaction> decodeHistory(CoinTicker coinTicker, Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        if (reader.peek() != JsonToken.BEGIN_ARRAY)
+            return null;
+
+        List<Transaction> transactions = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Transaction tx = decodeTransaction(coinTicker, reader);
+                if (tx != null)
+                    transactions.add(tx);
+            }
+            reader.endArray();
+        }
+        reader.endArray();
+
+        return transactions;
+    }
+
+    /**
+     * @return Transaction or null if the entry lacks its txid, vout or amount
+     */
+    private static Transaction decodeTransaction(CoinTicker coinTicker, JsonReader reader) throws IOException {
+        String address = null;
+        String txid = null;
+        String blockhash = null;
+        String category = null;
+        Integer vout = null;
+        int confirmations = 0;
+        int blocktime = 0;
+        Double amount = null;
+        double fee = 0;
+        List<String> fromAddresses = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "address":
+                    address = nextString(reader);
+                    break;
+                case "txid":
+                    txid = nextString(reader);
+                    break;
+                case "blockhash":
+                    blockhash = nextString(reader);
+                    break;
+                case "category":
+                    category = nextString(reader);
+                    break;
+                case "vout":
+                    vout = nextIntOrNull(reader);
+                    break;
+                case "confirmations":
+                    confirmations = nextInt(reader);
+                    break;
+                case "blocktime":
+                    blocktime = nextInt(reader);
+                    break;
+                case "amount":
+                    amount = nextDoubleOrNull(reader);
+                    break;
+                case "fee":
+                    fee = nextDouble(reader);
+                    break;
+                case "from_addresses":
+                    fromAddresses = nextStringList(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!isTxid(txid) || vout == null || vout < 0 || amount == null) {
+            LOGGER.log(Level.WARNING, "[httpclient] getHistory " + coinTicker + " skipping malformed transaction " + txid + ":" + vout + " amount " + amount);
+            return null;
+        }
+
+        Transaction tx = new Transaction(coinTicker, address, txid, blockhash, vout, amount, confirmations, blocktime, fromAddresses);
+        tx.setCategory(category);
+        tx.setFee(fee);
+        return tx;
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        return reader.nextString();
+    }
+
+    private static int nextInt(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+
+        return reader.nextInt();
+    }
+
+    private static Integer nextIntOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        return reader.nextInt();
+    }
+
+    private static Double nextDoubleOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        return reader.nextDouble();
+    }
+
+    private static boolean isTxid(String txid) {
+        if (txid == null || txid.length() != 64)
+            return false;
+
+        for (int i = 0; i < txid.length(); i++) {
+            if (Character.digit(txid.charAt(i), 16) == -1)
+                return false;
+        }
+        return true;
+    }
+
+    private static double nextDouble(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+
+        return reader.nextDouble();
+    }
+
+    private static List<String> nextStringList(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+
+        List<String> list = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext())
+            list.add(nextString(reader));
+        reader.endArray();
+        return list;
+    }
+}
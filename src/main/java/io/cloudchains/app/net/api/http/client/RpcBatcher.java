@@ -0,0 +1,218 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Packs JSON-RPC calls into batch array requests. Calls made within a short
+ * window, or until the batch is full, go out in a single POST and the replies are
+ * matched back to each call by id. If the backend does not answer a batch with an
+ * array whose ids match the calls, the calls are sent one by one and batching is
+ * turned off. Calls left out of a matched reply are sent on their own.
+ */
+public class RpcBatcher {
+    private final static LogManager LOGMANAGER = LogManager.getLogManager();
+    private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    private static final String ENDPOINT = "/";
+    private static final long LINGER_MILLIS = 2;
+
+    private final AsyncHTTPClient client;
+    private final int maxBatchSize;
+    private volatile boolean supported = true;
+
+    private List<Call> queued = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    RpcBatcher(AsyncHTTPClient client, int maxBatchSize) {
+        this.client = client;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Queues a call for the next batch. Drop-in for {@link AsyncHTTPClient#post}.
+     * @param params Call with method and params, not modified
+     * @param timeoutMillis Deadline for the call
+     * @return Reply object of this call, or null if the backend did not answer it
+     */
+    public CompletableFuture<String> post(JsonObject params, long timeoutMillis) {
+        if (getBatchSize() <= 1)
+            return client.post(ENDPOINT, params, timeoutMillis);
+
+        Call call = new Call(params, timeoutMillis);
+        List<Call> batch = null;
+        synchronized (this) {
+            queued.add(call);
+            if (queued.size() >= maxBatchSize)
+                batch = takeQueued();
+            else if (flushTask == null)
+                flushTask = client.schedule(this::flush, LINGER_MILLIS);
+        }
+
+        if (batch != null)
+            send(batch);
+
+        return call.result;
+    }
+
+    /**
+     * @return Calls sent per request, 1 if batching is disabled or not supported by the backend
+     */
+    public int getBatchSize() {
+        return supported ? Math.max(1, maxBatchSize) : 1;
+    }
+
+    private void flush() {
+        List<Call> batch;
+        synchronized (this) {
+            flushTask = null;
+            batch = takeQueued();
+        }
+
+        if (!batch.isEmpty())
+            send(batch);
+    }
+
+    private List<Call> takeQueued() {
+        List<Call> batch = queued;
+        queued = new ArrayList<>();
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+
+        return batch;
+    }
+
+    private void send(List<Call> batch) {
+        if (batch.size() == 1) {
+            sendSingle(batch.get(0));
+            return;
+        }
+
+        JsonArray request = new JsonArray();
+        Map<Long, Call> byId = new HashMap<>();
+        long timeoutMillis = 0;
+        for (Call call : batch) {
+            long id = nextId.incrementAndGet();
+            JsonObject params = call.params.deepCopy();
+            params.addProperty("jsonrpc", "2.0");
+            params.addProperty("id", id);
+            request.add(params);
+            byId.put(id, call);
+            timeoutMillis = Math.max(timeoutMillis, call.timeoutMillis);
+        }
+
+        batches.incrementAndGet();
+        calls.addAndGet(batch.size());
+
+        client.post(ENDPOINT, request, timeoutMillis).whenCompleteAsync((res, e) -> {
+            if (e != null) {
+                for (Call call : batch)
+                    call.result.completeExceptionally(e);
+                return;
+            }
+
+            JsonElement reply = null;
+            try {
+                reply = res == null ? null : new Gson().fromJson(res, JsonElement.class);
+            } catch (JsonParseException ignored) {
+            }
+
+            if (reply == null || !reply.isJsonArray()) {
+                // A non-200 may be a one-off backend error, any other answer means no batch support
+                fallBack(batch, res != null);
+                return;
+            }
+
+            int matched = 0;
+            for (JsonElement element : reply.getAsJsonArray()) {
+                if (!element.isJsonObject())
+                    continue;
+
+                JsonElement id = element.getAsJsonObject().get("id");
+                if (id == null || !id.isJsonPrimitive() || !id.getAsJsonPrimitive().isNumber())
+                    continue;
+
+                Call call = byId.remove(id.getAsLong());
+                if (call != null) {
+                    call.result.complete(element.toString());
+                    matched++;
+                }
+            }
+
+            // An array without our ids, e.g. string ids or a proxy stripping them, cannot be demuxed
+            if (matched == 0) {
+                fallBack(batch, true);
+                return;
+            }
+
+            // Calls the backend left out of its reply
+            for (Call call : byId.values())
+                sendSingle(call);
+        });
+    }
+
+    /**
+     * Sends the calls of a batch the backend did not answer usable one by one.
+     * @param unsupported true if batching is turned off for further calls
+     */
+    private void fallBack(List<Call> batch, boolean unsupported) {
+        if (unsupported && supported) {
+            supported = false;
+            LOGGER.log(Level.WARNING, "[httpclient] Backend does not support batch requests, sending calls individually");
+        }
+
+        fallbacks.incrementAndGet();
+        for (Call call : batch)
+            sendSingle(call);
+    }
+
+    private void sendSingle(Call call) {
+        client.post(ENDPOINT, call.params, call.timeoutMillis).whenComplete((res, e) -> {
+            if (e != null)
+                call.result.completeExceptionally(e);
+            else
+                call.result.complete(res);
+        });
+    }
+
+    public JsonObject getStats() {
+        JsonObject stats = new JsonObject();
+        stats.addProperty("batchsize", getBatchSize());
+        stats.addProperty("batches", batches.get());
+        stats.addProperty("calls", calls.get());
+        stats.addProperty("fallbacks", fallbacks.get());
+        return stats;
+    }
+
+    private static class Call {
+        private final JsonObject params;
+        private final long timeoutMillis;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private Call(JsonObject params, long timeoutMillis) {
+            this.params = params;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+}
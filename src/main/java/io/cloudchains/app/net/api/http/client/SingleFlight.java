@@ -0,0 +1,110 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gson.JsonObject;
+import io.cloudchains.app.net.api.RPCCallContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent requests. The first caller for a key runs the
+ * loader, callers arriving while it is in flight wait for the same result.
+ * Nothing is cached once the call completes.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Runs the loader on the calling thread unless a call for the key is already in flight.
+     * @param key Request key
+     * @param loader Performs the request
+     * @return Result shared by all concurrent callers
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            // The leader records its own request, a joiner records how long it waited for it
+            long start = System.nanoTime();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw unwrap(e.getCause() != null ? e.getCause() : e);
+            } finally {
+                RPCCallContext.recordUpstream(System.nanoTime() - start);
+            }
+        }
+
+        executions.incrementAndGet();
+        try {
+            V result = loader.get();
+            inFlight.remove(key, future);
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the loader unless a call for the key is already in flight. Cancelling the
+     * returned future only detaches that caller, the shared request keeps running.
+     * @param key Request key
+     * @param loader Starts the request
+     * @return Future completing with the shared result
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing.thenApply(result -> result);
+        }
+
+        executions.incrementAndGet();
+        try {
+            loader.get().whenComplete((result, e) -> {
+                inFlight.remove(key, future);
+                if (e != null)
+                    future.completeExceptionally(e);
+                else
+                    future.complete(result);
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+
+        return future.thenApply(result -> result);
+    }
+
+    /**
+     * Returns a joiner's failure as the leader throws it. A leader started by
+     * {@link #executeAsync} can fail with a checked exception, which is wrapped.
+     */
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof Error)
+            throw (Error) cause;
+        if (cause instanceof RuntimeException)
+            return (RuntimeException) cause;
+        return new UncheckedExecutionException(cause);
+    }
+
+    public JsonObject getStats() {
+        JsonObject stats = new JsonObject();
+        stats.addProperty("inflight", inFlight.size());
+        stats.addProperty("executions", executions.get());
+        stats.addProperty("coalesced", coalesced.get());
+        return stats;
+    }
+}
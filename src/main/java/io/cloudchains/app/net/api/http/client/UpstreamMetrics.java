@@ -0,0 +1,152 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import io.cloudchains.app.net.api.metrics.MetricsWriter;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide latency and error counts of backend requests by endpoint and
+ * ticker, and hit counts of the client caches, for the metrics endpoint.
+ * Series are keyed through nested maps so recording does not build keys.
+ */
+public class UpstreamMetrics {
+    // Bucket bounds in seconds
+    private static final double[] BUCKETS = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30 };
+    private static final String[] BUCKET_LABELS = { "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10", "30" };
+
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Requests>> requests = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Lookups>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param endpoint Backend method, or path for plain GET requests
+     * @param ticker Coin the request is for, empty if it spans all coins
+     * @param error Request failed or the backend did not answer with 200
+     */
+    static void recordRequest(String endpoint, String ticker, long nanos, boolean error) {
+        requests.computeIfAbsent(endpoint, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(ticker, k -> new Requests())
+                .record(nanos, error);
+    }
+
+    /**
+     * Records a request completing asynchronously, a null response counts as an error.
+     */
+    static <T> CompletableFuture<T> track(CompletableFuture<T> request, String endpoint, String ticker) {
+        long start = System.nanoTime();
+        request.whenComplete((res, e) -> recordRequest(endpoint, ticker, System.nanoTime() - start, e != null || res == null));
+        return request;
+    }
+
+    static void recordCache(String cache, String ticker, boolean hit) {
+        Lookups lookups = caches.computeIfAbsent(cache, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(ticker, k -> new Lookups());
+        (hit ? lookups.hits : lookups.misses).incrementAndGet();
+    }
+
+    /**
+     * @return Method of a call, or batch for an array request
+     */
+    static String endpointOf(String path, JsonElement params) {
+        if (params.isJsonArray())
+            return "batch";
+
+        JsonElement method = params.isJsonObject() ? params.getAsJsonObject().get("method") : null;
+        return method != null && method.isJsonPrimitive() ? method.getAsString() : path;
+    }
+
+    /**
+     * Calls to the backend carry the ticker as their first param.
+     * @return Ticker of a call or of the first call of a batch, empty if there is none
+     */
+    static String tickerOf(JsonElement params) {
+        if (params.isJsonArray()) {
+            JsonArray batch = params.getAsJsonArray();
+            return batch.size() > 0 ? tickerOf(batch.get(0)) : "";
+        }
+
+        JsonElement callParams = params.isJsonObject() ? params.getAsJsonObject().get("params") : null;
+        if (callParams == null || !callParams.isJsonArray() || callParams.getAsJsonArray().size() == 0)
+            return "";
+
+        JsonElement ticker = callParams.getAsJsonArray().get(0);
+        return ticker.isJsonPrimitive() ? ticker.getAsString() : "";
+    }
+
+    public static void write(MetricsWriter out) {
+        out.family("xlite_upstream_request_duration_seconds", "histogram", "Backend request latency by endpoint and ticker.");
+        for (Map.Entry<String, ConcurrentHashMap<String, Requests>> endpoint : requests.entrySet()) {
+            for (Map.Entry<String, Requests> ticker : endpoint.getValue().entrySet())
+                ticker.getValue().writeHistogram(out, endpoint.getKey(), ticker.getKey());
+        }
+
+        out.family("xlite_upstream_request_errors_total", "counter", "Failed backend requests by endpoint and ticker.");
+        for (Map.Entry<String, ConcurrentHashMap<String, Requests>> endpoint : requests.entrySet()) {
+            for (Map.Entry<String, Requests> ticker : endpoint.getValue().entrySet())
+                out.sample("xlite_upstream_request_errors_total", ticker.getValue().errors.get(), "endpoint", endpoint.getKey(), "ticker", ticker.getKey());
+        }
+
+        out.family("xlite_cache_lookups_total", "counter", "Client cache lookups by cache, ticker and result.");
+        for (Map.Entry<String, ConcurrentHashMap<String, Lookups>> cache : caches.entrySet()) {
+            for (Map.Entry<String, Lookups> ticker : cache.getValue().entrySet()) {
+                out.sample("xlite_cache_lookups_total", ticker.getValue().hits.get(), "cache", cache.getKey(), "ticker", ticker.getKey(), "result", "hit");
+                out.sample("xlite_cache_lookups_total", ticker.getValue().misses.get(), "cache", cache.getKey(), "ticker", ticker.getKey(), "result", "miss");
+            }
+        }
+
+        out.family("xlite_cache_hit_ratio", "gauge", "Share of client cache lookups served from the cache.");
+        for (Map.Entry<String, ConcurrentHashMap<String, Lookups>> cache : caches.entrySet()) {
+            for (Map.Entry<String, Lookups> ticker : cache.getValue().entrySet()) {
+                long hits = ticker.getValue().hits.get();
+                long total = hits + ticker.getValue().misses.get();
+                out.sample("xlite_cache_hit_ratio", total > 0 ? (double) hits / total : 0.0, "cache", cache.getKey(), "ticker", ticker.getKey());
+            }
+        }
+    }
+
+    private static class Requests {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS.length);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        private void record(long nanos, boolean error) {
+            double seconds = nanos / 1e9;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets.incrementAndGet(i);
+                    break;
+                }
+            }
+
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            if (error)
+                errors.incrementAndGet();
+        }
+
+        private void writeHistogram(MetricsWriter out, String endpoint, String ticker) {
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += buckets.get(i);
+                out.sample("xlite_upstream_request_duration_seconds_bucket", cumulative, "endpoint", endpoint, "ticker", ticker, "le", BUCKET_LABELS[i]);
+            }
+
+            // Counted separately from the buckets, a concurrent record may only have reached one
+            long total = Math.max(cumulative, count.get());
+            out.sample("xlite_upstream_request_duration_seconds_bucket", total, "endpoint", endpoint, "ticker", ticker, "le", "+Inf");
+            out.sample("xlite_upstream_request_duration_seconds_sum", totalNanos.get() / 1e9, "endpoint", endpoint, "ticker", ticker);
+            out.sample("xlite_upstream_request_duration_seconds_count", total, "endpoint", endpoint, "ticker", ticker);
+        }
+    }
+
+    private static class Lookups {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+    }
+}
@@ -9,14 +9,26 @@ import io.cloudchains.app.Version;
 import io.cloudchains.app.net.CoinInstance;
 import io.cloudchains.app.net.CoinTicker;
 import io.cloudchains.app.net.CoinTickerUtils;
+import io.cloudchains.app.net.api.JSONRPCController;
 import io.cloudchains.app.net.api.http.client.HTTPClient;
+import io.cloudchains.app.net.api.http.client.HTTPClientRegistry;
+import io.cloudchains.app.net.api.http.server.JsonResponseWriter;
+import io.cloudchains.app.net.api.http.server.RPCBatch;
+import io.cloudchains.app.net.api.http.server.RPCMethodRegistry;
+import io.cloudchains.app.net.api.http.server.RPCMethodStats;
+import io.cloudchains.app.net.api.http.server.RPCRequestDecoder;
+import io.cloudchains.app.net.api.http.server.RPCWorkerPool;
+import io.cloudchains.app.net.api.metrics.MetricsWriter;
+import io.cloudchains.app.net.api.metrics.PrometheusMetrics;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetPeer;
 import io.cloudchains.app.util.AddressBalance;
+import io.cloudchains.app.util.CCLogger;
 import io.cloudchains.app.util.ConfigHelper;
 import io.cloudchains.app.util.UTXO;
+import io.cloudchains.app.util.txcache.TransactionStore;
 import io.cloudchains.app.wallet.WalletHelper;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -45,11 +57,25 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 	private final static LogManager LOGMANAGER = LogManager.getLogManager();
 	private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
 
+	// Methods served by getBuiltinResponse
+	private static final String[] BUILTIN_METHODS = { "reloadconfig", "version", "getstats", "help", "stop" };
+
 	private ConfigHelper configHelper;
+	private RPCRequestDecoder requestDecoder;
+	private RPCMethodRegistry methods;
 
 	HTTPServerHandler() {
 		configHelper = new ConfigHelper("master");
 
+		// No master call carries transactions
+		int maxCallSize = configHelper.getRpcMaxCallSize();
+		requestDecoder = new RPCRequestDecoder(maxCallSize, maxCallSize);
+
+		methods = new RPCMethodRegistry(RPCMethodStats.forServer("master"));
+		for (String method : BUILTIN_METHODS)
+			methods.register(method, params -> getBuiltinResponse(method, params));
+		methods.register("getrpcstats", params -> getRpcStats());
+
 		if (configHelper.getRpcUsername().isEmpty() && configHelper.getRpcPassword().isEmpty()) {
 			configHelper.setRpcUsername(generateRandomString(12));
 			configHelper.setRpcPassword(generateRandomString(32));
@@ -78,8 +104,6 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 
 		FullHttpResponse httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST);
 		writeResponse(ctx, httpResponse, null);
-		ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
-		ctx.close();
 	}
 
 	@Override
@@ -123,6 +147,12 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				}
 			}
 
+			// Scraped with the RPC credentials as HTTP basic auth
+			if (successfulAuth && request.method() == HttpMethod.GET && request.uri().equals("/metrics")) {
+				writeMetrics(ctx, request);
+				return;
+			}
+
 			if (!request.uri().equals("/")) {
 				JsonObject onlyServerRootJSON = new JsonObject();
 				onlyServerRootJSON.addProperty("code", -1002);
@@ -156,29 +186,32 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 		}
 
 		if (status != HttpResponseStatus.OK) {
-			ByteBuf responseContent = Unpooled.copiedBuffer(response.toString(), CharsetUtil.UTF_8);
-			FullHttpResponse httpResponse = new DefaultFullHttpResponse(request.protocolVersion(), status, responseContent);
-
-			writeResponse(ctx, httpResponse, request);
-			ctx.write(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+			writeJsonResponse(ctx, request, status, response);
 			return;
 		}
 
 		if (request != null) {
-			String content = request.content().toString(CharsetUtil.UTF_8);
 			JsonObject jsonReq = null;
 
 			try {
-				jsonReq = new JsonParser().parse(content).getAsJsonObject();
+				jsonReq = requestDecoder.decode(request.content()).getAsJsonObject();
 
 				Preconditions.checkNotNull(jsonReq);
 
 				if (!jsonReq.has("method") || !jsonReq.has("params")) {
-					ctx.close();
 					throw new IllegalArgumentException("Bad JSON-RPC request by client.");
 				}
+			} catch (RPCRequestDecoder.RequestTooLargeException e) {
+				CCLogger.log(Level.FINER, "[http-server-handler] WARNING: ", e.getMessage());
+				JsonObject tooLargeJSON = new JsonObject();
+				tooLargeJSON.addProperty("code", -1116);
+				tooLargeJSON.addProperty("message", "Request exceeds " + e.getMaxSize() + " bytes.");
+
+				response.add("error", tooLargeJSON);
+				response.add("result", JsonNull.INSTANCE);
+				status = HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE;
 			} catch (Exception e) {
-				LOGGER.log(Level.INFO, "Failed Content: " + content);
+				LOGGER.log(Level.INFO, "Failed Content: " + request.content().toString(CharsetUtil.UTF_8));
 				e.printStackTrace();
 				JsonObject errorParsingJSON = new JsonObject();
 				errorParsingJSON.addProperty("code", -1001);
@@ -201,34 +234,40 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				JsonArray params = jsonReq.get("params").getAsJsonArray();
 
 				LOGGER.log(Level.INFO, "[http-server-handler] RPC CALL: " + method + " PARAMS: " + params.size());
-				for (int i = 0; i < params.size(); i++) {
-					LOGGER.log(Level.INFO, "[http-server-handler] PARAM " + i + ": " + params.get(i).toString());
+				if (LOGGER.isLoggable(Level.FINER)) {
+					for (int i = 0; i < params.size(); i++) {
+						LOGGER.log(Level.FINER, "[http-server-handler] PARAM " + i + ": " + params.get(i).toString());
+					}
 				}
 
 				response = getResponse(method, params);
 				LOGGER.log(Level.FINER, response.toString());
 			} else {
-				ByteBuf responseContent = Unpooled.copiedBuffer(response.toString(), CharsetUtil.UTF_8);
-				FullHttpResponse httpResponse = new DefaultFullHttpResponse(request.protocolVersion(), status, responseContent);
-
-				writeResponse(ctx, httpResponse, request);
-				ctx.write(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+				writeJsonResponse(ctx, request, status, response);
 				return;
 			}
 
 			if (request instanceof LastHttpContent) {
-				ByteBuf responseContent = Unpooled.copiedBuffer(response.toString(), CharsetUtil.UTF_8);
-
-				FullHttpResponse httpResponse = new DefaultFullHttpResponse(request.protocolVersion(), status, responseContent);
-
-				if (!writeResponse(ctx, httpResponse, request)) {
-					ctx.write(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
-				}
+				writeJsonResponse(ctx, request, status, response);
 			}
 		}
 	}
 
 	private JsonObject getResponse(String method, JsonArray params) {
+		return methods.call(method, params);
+	}
+
+	/**
+	 * Stats of the master and every coin server.
+	 */
+	private JsonObject getRpcStats() {
+		JsonObject response = new JsonObject();
+		response.add("result", RPCMethodStats.getAllStats());
+		response.add("error", JsonNull.INSTANCE);
+		return response;
+	}
+
+	private JsonObject getBuiltinResponse(String method, JsonArray params) {
 		JsonObject response = new JsonObject();
 		boolean shutdownRequested = false;
 
@@ -266,6 +305,24 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				response.add("error", JsonNull.INSTANCE);
 				break;
 			}
+			case "getstats": {
+				JsonObject statsJSON = new JsonObject();
+
+				RPCWorkerPool workerPool = JSONRPCController.getWorkerPool();
+				if (workerPool != null)
+					statsJSON.add("rpcworkers", workerPool.getStats());
+				else
+					statsJSON.add("rpcworkers", JsonNull.INSTANCE);
+
+				statsJSON.add("rpceventloops", JSONRPCController.getEventLoops().getStats());
+				statsJSON.add("rpcbatches", RPCBatch.getStats());
+				statsJSON.add("httpclients", HTTPClientRegistry.getStats());
+				statsJSON.add("txcache", TransactionStore.getAllStats());
+
+				response.add("result", statsJSON);
+				response.add("error", JsonNull.INSTANCE);
+				break;
+			}
 //			case "reloadconfigs": {
 //				boolean success = true;
 //				for (CoinInstance instance : CoinInstance.getCoinInstances()) {
@@ -293,7 +350,9 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 						+ "\n=====RPC Master=====\n"
 						+ "stop - Shutdown the server\n"
 						+ "reloadconfig <token> - Reload configuration for specified token\n"
-						+ "version - Get version\n";
+						+ "version - Get version\n"
+						+ "getstats - Get RPC server statistics\n"
+						+ "getrpcstats - Get call counts and latency percentiles per RPC method of all servers\n";
 //						+ "reloadconfigs - Reload all configuration files\n";
 
 				response.addProperty("result", helpString);
@@ -331,16 +390,55 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 
 		httpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
 		httpResponse.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, httpResponse.content().readableBytes());
-		httpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+		httpResponse.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
 		httpResponse.headers().set(HttpHeaderNames.SERVER, CoinInstance.getVersionString());
 
-		LOGGER.log(Level.FINER, "[http-server-handler] Writing response to channel. Keep alive? " + keepAlive);
-		LOGGER.log(Level.FINER, "[http-server-handler] Response content: " + httpResponse.content().toString(CharsetUtil.UTF_8));
-		ctx.write(httpResponse);
+		CCLogger.log(Level.FINER, "[http-server-handler] Writing response to channel. Keep alive? ", keepAlive);
+		if (LOGGER.isLoggable(Level.FINER))
+			LOGGER.log(Level.FINER, "[http-server-handler] Response content: " + httpResponse.content().toString(CharsetUtil.UTF_8));
+		ChannelFuture future = ctx.writeAndFlush(httpResponse);
+		if (!keepAlive)
+			future.addListener(ChannelFutureListener.CLOSE);
 
 		return keepAlive;
 	}
 
+	private void writeJsonResponse(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status, JsonElement response) {
+		boolean keepAlive = HttpUtil.isKeepAlive(request);
+
+		HttpResponse httpResponse = new DefaultHttpResponse(request.protocolVersion(), status);
+		httpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+		httpResponse.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
+		httpResponse.headers().set(HttpHeaderNames.SERVER, CoinInstance.getVersionString());
+
+		CCLogger.log(Level.FINER, "[http-server-handler] Writing response to channel. Keep alive? ", keepAlive);
+		ChannelFuture future = JsonResponseWriter.write(ctx, httpResponse, response);
+		if (!keepAlive)
+			future.addListener(ChannelFutureListener.CLOSE);
+	}
+
+	private void writeMetrics(ChannelHandlerContext ctx, FullHttpRequest request) {
+		boolean keepAlive = HttpUtil.isKeepAlive(request);
+
+		ByteBuf content = ctx.alloc().directBuffer();
+		try {
+			PrometheusMetrics.write(new MetricsWriter(content));
+		} catch (RuntimeException e) {
+			content.release();
+			throw e;
+		}
+
+		FullHttpResponse httpResponse = new DefaultFullHttpResponse(request.protocolVersion(), HttpResponseStatus.OK, content);
+		httpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, PrometheusMetrics.CONTENT_TYPE);
+		httpResponse.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+		httpResponse.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
+		httpResponse.headers().set(HttpHeaderNames.SERVER, CoinInstance.getVersionString());
+
+		ChannelFuture future = ctx.writeAndFlush(httpResponse);
+		if (!keepAlive)
+			future.addListener(ChannelFutureListener.CLOSE);
+	}
+
 	private static void send100Continue(ChannelHandlerContext ctx) {
 		FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE);
 		ctx.write(response);
@@ -1,13 +1,16 @@
 package io.cloudchains.app.net.api.http.master;
 
+import io.cloudchains.app.net.api.JSONRPCController;
 import io.cloudchains.app.net.api.http.server.ExceptionHandler;
+import io.cloudchains.app.net.api.http.server.KeepAliveHandler;
+import io.cloudchains.app.util.ConfigHelper;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
-import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 
 public class HTTPServerInitializer extends ChannelInitializer<SocketChannel> {
@@ -17,11 +20,14 @@ public class HTTPServerInitializer extends ChannelInitializer<SocketChannel> {
 	protected void initChannel(SocketChannel ch) {
 		ChannelPipeline pipeline = ch.pipeline();
 
+		ConfigHelper masterConfig = JSONRPCController.getMasterConfig();
+
 		pipeline.addLast(new WriteTimeoutHandler(30));
-		pipeline.addLast(new ReadTimeoutHandler(30));
+		pipeline.addLast(new IdleStateHandler(0, 0, masterConfig.getRpcIdleTimeout()));
 		pipeline.addLast(new HttpRequestDecoder());
 		pipeline.addLast(new HttpResponseEncoder());
-		pipeline.addLast(new HttpObjectAggregator(100000000));
+		pipeline.addLast(new HttpObjectAggregator(masterConfig.getRpcMaxCallSize()));
+		pipeline.addLast(new KeepAliveHandler(masterConfig.getRpcMaxRequestsPerConnection()));
 		pipeline.addLast(new HTTPServerHandler());
 		pipeline.addLast(new ExceptionHandler());
 	}
@@ -0,0 +1,86 @@
+package io.cloudchains.app.net.api.http.server;
+
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import io.cloudchains.app.net.CoinInstance;
+import io.cloudchains.app.net.CoinTicker;
+import io.cloudchains.app.net.CoinTickerUtils;
+import io.cloudchains.app.net.api.JSONRPCController;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Front of the unified RPC listener. Picks the coin from a /coin/TICKER path or
+ * an X-Coin header and hands the request to that coin's handler, which then sees
+ * it as if it had been sent to the coin's own port.
+ */
+public class CoinRouter extends SimpleChannelInboundHandler<FullHttpRequest> {
+	private static final String PATH_PREFIX = "/coin/";
+	private static final String COIN_HEADER = "X-Coin";
+
+	// Handlers of the coins this connection has called
+	private final Map<CoinTicker, HTTPServerHandler> handlers = new HashMap<>();
+
+	CoinRouter() {
+		// The coin handler releases the request
+		super(false);
+	}
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) throws Exception {
+		String ticker = null;
+		String uri = request.uri();
+
+		if (uri.startsWith(PATH_PREFIX)) {
+			ticker = uri.substring(PATH_PREFIX.length());
+			// The ticker ends at whichever of path or query comes first, /coin/BLOCK?next=/x included
+			int slash = ticker.indexOf('/');
+			int query = ticker.indexOf('?');
+			int end = slash == -1 || (query != -1 && query < slash) ? query : slash;
+
+			String rest = end == -1 ? "" : ticker.substring(end);
+			ticker = end == -1 ? ticker : ticker.substring(0, end);
+			// /coin/BLOCK?x=1 is /?x=1 to the coin handler
+			request.setUri(rest.startsWith("/") ? rest : "/" + rest);
+		} else if (request.headers().contains(COIN_HEADER)) {
+			ticker = request.headers().get(COIN_HEADER);
+		}
+
+		CoinTicker coinTicker = ticker == null ? null : CoinTickerUtils.stringToTicker(ticker.trim().toUpperCase());
+		CoinInstance coin = coinTicker == null ? null : JSONRPCController.getRPCCoin(coinTicker);
+		if (coin == null) {
+			writeUnknownCoin(ctx, request);
+			ReferenceCountUtil.release(request);
+			return;
+		}
+
+		handlers.computeIfAbsent(coinTicker, t -> new HTTPServerHandler(coin)).channelRead(ctx, request);
+	}
+
+	private void writeUnknownCoin(ChannelHandlerContext ctx, FullHttpRequest request) {
+		JsonObject unknownCoinJSON = new JsonObject();
+		unknownCoinJSON.addProperty("code", -1115);
+		unknownCoinJSON.addProperty("message", "Unknown coin. Use " + PATH_PREFIX + "<ticker> or the " + COIN_HEADER + " header.");
+
+		JsonObject response = new JsonObject();
+		response.add("error", unknownCoinJSON);
+		response.add("result", JsonNull.INSTANCE);
+
+		boolean keepAlive = HttpUtil.isKeepAlive(request);
+		HttpResponse httpResponse = new DefaultHttpResponse(request.protocolVersion(), HttpResponseStatus.NOT_FOUND);
+		httpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+		httpResponse.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
+		httpResponse.headers().set(HttpHeaderNames.SERVER, CoinInstance.getVersionString());
+
+		ChannelFuture future = JsonResponseWriter.write(ctx, httpResponse, response);
+		if (!keepAlive)
+			future.addListener(ChannelFutureListener.CLOSE);
+	}
+}
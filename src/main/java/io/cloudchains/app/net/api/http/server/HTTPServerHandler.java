@@ -8,16 +8,20 @@ import com.subgraph.orchid.encoders.Hex;
 import io.cloudchains.app.App;
 import io.cloudchains.app.Version;
 import io.cloudchains.app.net.CoinInstance;
+import io.cloudchains.app.net.CoinTicker;
 import io.cloudchains.app.net.CoinTickerUtils;
+import io.cloudchains.app.net.api.JSONRPCController;
 import io.cloudchains.app.net.api.http.client.HTTPClient;
+import io.cloudchains.app.net.api.http.client.HTTPClientRegistry;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetPeer;
 import io.cloudchains.app.util.AddressBalance;
+import io.cloudchains.app.util.CCLogger;
 import io.cloudchains.app.util.ConfigHelper;
+import io.cloudchains.app.util.Outpoint;
 import io.cloudchains.app.util.UTXO;
 import io.cloudchains.app.util.Utility;
 import io.cloudchains.app.wallet.WalletHelper;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -45,21 +49,37 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 	private final static LogManager LOGMANAGER = LogManager.getLogManager();
 	private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
 
+	// Methods served by getBuiltinResponse
+	private static final String[] BUILTIN_METHODS = {
+			"reloadconfig", "getinfo", "getblockcount", "getnetworkinfo", "listunspent", "listtransactions",
+			"getblockchaininfo", "getblockhash", "sendrawtransaction", "getrawtransaction", "getrawmempool",
+			"getblock", "gettransaction", "getaddressesbyaccount", "createrawtransaction",
+			"decoderawtransaction", "signrawtransaction", "gettxout", "getnewaddress", "importprivkey",
+			"dumpprivkey", "signmessage", "verifymessage", "sendtransaction", "version", "validateaddress",
+			"help"
+	};
+
 	private HTTPClient httpClient;
 	private CoinInstance coin;
 	private ConfigHelper configHelper;
+	private RPCWorkerPool workerPool;
+	private RPCRequestDecoder requestDecoder;
+	private RPCMethodRegistry methods;
 
 	HTTPServerHandler(CoinInstance coin) {
 		this.coin = coin;
 		this.configHelper = coin.getConfigHelper();
-		this.httpClient = new HTTPClient(5);
-	}
+		this.httpClient = HTTPClientRegistry.get();
+		this.workerPool = JSONRPCController.getWorkerPool();
 
-	@Override
-    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-	    super.channelInactive(ctx);
-        this.httpClient.close();
-    }
+		ConfigHelper masterConfig = JSONRPCController.getMasterConfig();
+		this.requestDecoder = new RPCRequestDecoder(masterConfig.getRpcMaxRequestSize(), masterConfig.getRpcMaxCallSize());
+
+		this.methods = new RPCMethodRegistry(RPCMethodStats.forServer(CoinTickerUtils.tickerToString(coin.getTicker())));
+		for (String method : BUILTIN_METHODS)
+			methods.register(method, params -> getBuiltinResponse(method, params));
+		methods.register("getrpcstats", params -> getRpcStats());
+	}
 
 	@Override
 	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
@@ -67,9 +87,6 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 
 		FullHttpResponse httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST);
 		writeResponse(ctx, httpResponse, null);
-		ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
-		ctx.close();
-		this.httpClient.close();
 	}
 
 	@Override
@@ -157,29 +174,38 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 		}
 
 		if (status != HttpResponseStatus.OK) {
-			ByteBuf responseContent = Unpooled.copiedBuffer(response.toString(), CharsetUtil.UTF_8);
-			FullHttpResponse httpResponse = new DefaultFullHttpResponse(request.protocolVersion(), status, responseContent);
-
-			writeResponse(ctx, httpResponse, request);
-			ctx.write(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+			writeJsonResponse(ctx, request.protocolVersion(), status, response, HttpUtil.isKeepAlive(request));
 			return;
 		}
 
 		if (request != null) {
-			String content = request.content().toString(CharsetUtil.UTF_8);
 			JsonObject jsonReq = null;
+			JsonArray batchReq = null;
 
 			try {
-				jsonReq = new JsonParser().parse(content).getAsJsonObject();
+				JsonElement parsed = requestDecoder.decode(request.content());
+				if (parsed.isJsonArray()) {
+					batchReq = parsed.getAsJsonArray();
+				} else {
+					jsonReq = parsed.getAsJsonObject();
 
-				Preconditions.checkNotNull(jsonReq);
+					Preconditions.checkNotNull(jsonReq);
 
-				if (!jsonReq.has("method") || !jsonReq.has("params")) {
-					ctx.close();
-					throw new IllegalArgumentException("Bad JSON-RPC request by client.");
+					if (!jsonReq.has("method") || !jsonReq.has("params")) {
+						throw new IllegalArgumentException("Bad JSON-RPC request by client.");
+					}
 				}
+			} catch (RPCRequestDecoder.RequestTooLargeException e) {
+				CCLogger.log(Level.FINER, "[http-server-handler] WARNING: ", e.getMessage());
+				JsonObject tooLargeJSON = new JsonObject();
+				tooLargeJSON.addProperty("code", -1116);
+				tooLargeJSON.addProperty("message", "Request exceeds " + e.getMaxSize() + " bytes.");
+
+				response.add("error", tooLargeJSON);
+				response.add("result", JsonNull.INSTANCE);
+				status = HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE;
 			} catch (Exception e) {
-				LOGGER.log(Level.INFO, "Failed Content: " + content);
+				LOGGER.log(Level.INFO, "Failed Content: " + request.content().toString(CharsetUtil.UTF_8));
 				e.printStackTrace();
 				JsonObject errorParsingJSON = new JsonObject();
 				errorParsingJSON.addProperty("code", -1001);
@@ -195,41 +221,142 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				status = HttpResponseStatus.BAD_REQUEST;
 			}
 
-			if (status == HttpResponseStatus.OK) {
+			if (status == HttpResponseStatus.OK && batchReq != null) {
+				dispatchBatch(ctx, request.protocolVersion(), batchReq, HttpUtil.isKeepAlive(request));
+			} else if (status == HttpResponseStatus.OK) {
 				Preconditions.checkNotNull(jsonReq);
 
 				String method = jsonReq.get("method").getAsString();
 				JsonArray params = jsonReq.get("params").getAsJsonArray();
 
 				LOGGER.log(Level.INFO, "[http-server-handler] RPC CALL: " + coin.getTicker()+ " " + method + " PARAMS: " + params.size());
-				for (int i = 0; i < params.size(); i++) {
-					LOGGER.log(Level.INFO, "[http-server-handler] PARAM " + i + ": " + params.get(i).toString());
+				if (LOGGER.isLoggable(Level.FINER)) {
+					for (int i = 0; i < params.size(); i++) {
+						LOGGER.log(Level.FINER, "[http-server-handler] PARAM " + i + ": " + params.get(i).toString());
+					}
 				}
 
-				response = getResponse(method, params);
-				// LOGGER.log(Level.FINER, response.toString());
+				HttpVersion protocolVersion = request.protocolVersion();
+				boolean keepAlive = HttpUtil.isKeepAlive(request);
+
+				if (workerPool == null) {
+					writeJsonResponse(ctx, protocolVersion, HttpResponseStatus.OK, getResponse(method, params), keepAlive);
+					return;
+				}
+
+				// Calls may block on the upstream backend, run them off the event loop
+				boolean queued = workerPool.submit(() -> dispatchResponse(ctx, protocolVersion, method, params, keepAlive));
+				if (!queued) {
+					JsonObject busyJSON = new JsonObject();
+					busyJSON.addProperty("code", -1113);
+					busyJSON.addProperty("message", "RPC server is busy. Try again later.");
+
+					response.add("error", busyJSON);
+					response.add("result", JsonNull.INSTANCE);
+					writeJsonResponse(ctx, protocolVersion, HttpResponseStatus.SERVICE_UNAVAILABLE, response, false);
+				}
 			} else {
-				ByteBuf responseContent = Unpooled.copiedBuffer(response.toString(), CharsetUtil.UTF_8);
-				FullHttpResponse httpResponse = new DefaultFullHttpResponse(request.protocolVersion(), status, responseContent);
+				writeJsonResponse(ctx, request.protocolVersion(), status, response, HttpUtil.isKeepAlive(request));
+			}
+		}
+	}
+
+	/**
+	 * Runs on a worker thread. The response is also serialized here, Netty hands
+	 * the writes to the channel's event loop in order.
+	 */
+	private void dispatchResponse(ChannelHandlerContext ctx, HttpVersion protocolVersion, String method, JsonArray params, boolean keepAlive) {
+		JsonObject response;
+		try {
+			response = getResponse(method, params);
+		} catch (Exception e) {
+			ctx.executor().execute(() -> exceptionCaught(ctx, e));
+			return;
+		}
+
+		if (!ctx.channel().isActive()) {
+			if (LOGGER.isLoggable(Level.FINER))
+				LOGGER.log(Level.FINER, "[http-server-handler] Client disconnected before " + method + " completed.");
+			return;
+		}
+
+		writeWorkerResponse(ctx, protocolVersion, response, keepAlive);
+	}
+
+	/**
+	 * Executes a JSON-RPC batch and writes the response array once every call has completed.
+	 */
+	private void dispatchBatch(ChannelHandlerContext ctx, HttpVersion protocolVersion, JsonArray batch, boolean keepAlive) {
+		int maxBatchSize = JSONRPCController.getMasterConfig().getRpcMaxBatchSize();
+		if (batch.size() == 0 || batch.size() > maxBatchSize) {
+			RPCBatch.rejectOversized();
+
+			JsonObject batchSizeJSON = new JsonObject();
+			batchSizeJSON.addProperty("code", -1114);
+			batchSizeJSON.addProperty("message", "Batch must contain between 1 and " + maxBatchSize + " calls.");
+
+			JsonObject response = new JsonObject();
+			response.add("error", batchSizeJSON);
+			response.add("result", JsonNull.INSTANCE);
+			writeJsonResponse(ctx, protocolVersion, HttpResponseStatus.BAD_REQUEST, response, keepAlive);
+			return;
+		}
 
-				writeResponse(ctx, httpResponse, request);
-				ctx.write(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+		LOGGER.log(Level.INFO, "[http-server-handler] RPC BATCH: " + coin.getTicker() + " " + batch.size() + " calls");
+
+		// Serialized on the thread completing the batch, keeping large responses off the event loop
+		new RPCBatch(batch, this::getResponse).execute(workerPool).whenComplete((responses, e) -> {
+			if (e != null) {
+				ctx.executor().execute(() -> exceptionCaught(ctx, e));
 				return;
 			}
 
-			if (request instanceof LastHttpContent) {
-				ByteBuf responseContent = Unpooled.copiedBuffer(response.toString(), CharsetUtil.UTF_8);
+			if (!ctx.channel().isActive()) {
+				LOGGER.log(Level.FINER, "[http-server-handler] Client disconnected before batch completed.");
+				return;
+			}
 
-				FullHttpResponse httpResponse = new DefaultFullHttpResponse(request.protocolVersion(), status, responseContent);
+			writeWorkerResponse(ctx, protocolVersion, responses, keepAlive);
+		});
+	}
 
-				if (!writeResponse(ctx, httpResponse, request)) {
-					ctx.write(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
-				}
-			}
+	/**
+	 * Writes a response off the event loop. Nothing would report a failed write
+	 * there, and without a response the connection keeps waiting for it, so the
+	 * failure is answered by exceptionCaught on the event loop.
+	 */
+	private void writeWorkerResponse(ChannelHandlerContext ctx, HttpVersion protocolVersion, JsonElement response, boolean keepAlive) {
+		try {
+			writeJsonResponse(ctx, protocolVersion, HttpResponseStatus.OK, response, keepAlive);
+		} catch (RuntimeException e) {
+			ctx.executor().execute(() -> exceptionCaught(ctx, e));
 		}
 	}
 
+	private void writeJsonResponse(ChannelHandlerContext ctx, HttpVersion protocolVersion, HttpResponseStatus status, JsonElement response, boolean keepAlive) {
+		HttpResponse httpResponse = new DefaultHttpResponse(protocolVersion, status);
+		httpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+		httpResponse.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
+		httpResponse.headers().set(HttpHeaderNames.SERVER, CoinInstance.getVersionString());
+
+		CCLogger.log(Level.FINER, "[http-server-handler] Writing response to channel. Keep alive? ", keepAlive);
+		ChannelFuture future = JsonResponseWriter.write(ctx, httpResponse, response);
+		if (!keepAlive)
+			future.addListener(ChannelFutureListener.CLOSE);
+	}
+
 	private JsonObject getResponse(String method, JsonArray params) {
+		return methods.call(method, params);
+	}
+
+	private JsonObject getRpcStats() {
+		JsonObject response = new JsonObject();
+		response.add("result", methods.getStats().getStats());
+		response.add("error", JsonNull.INSTANCE);
+		return response;
+	}
+
+	private JsonObject getBuiltinResponse(String method, JsonArray params) {
 		JsonObject response = new JsonObject();
 
 		switch (method.toLowerCase()) {
@@ -259,7 +386,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				infoJSON.addProperty("difficulty", 0.0);
 				infoJSON.addProperty("connections", 1);  // We make this a static value for now, since we are deprecating P2P
 				infoJSON.addProperty("blocks", CoinInstance.getBlockCountByTicker(coin.getTicker()));
-				infoJSON.addProperty("keypoolsize", coin.getAddressKeyPairs().size());
+				infoJSON.addProperty("keypoolsize", coin.getWalletState().getAddresses().size());
 				infoJSON.addProperty("keypoololdest", 0.0);
 
 				BigDecimal relayFeeDecimal = new BigDecimal(coin.getConfigHelper().getFee()).setScale(8, BigDecimal.ROUND_DOWN);
@@ -300,7 +427,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				break;
 			}
 			case "listunspent": {
-                JsonArray unspent = httpClient.getUtxos(coin.getTicker(), 30000);
+                HTTPClient.Snapshot unspent = httpClient.getUtxos(coin.getTicker(), 30000);
                 if (unspent == null) {
                     response.add("result", JsonNull.INSTANCE);
                     JsonObject err = new JsonObject();
@@ -309,8 +436,10 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
                     response.add("error", err);
                     break;
                 }
-                response.add("result", unspent);
+                response.add("result", unspent.getData());
                 response.add("error", JsonNull.INSTANCE);
+                // Milliseconds since the utxos were fetched, may be served stale while refreshing
+                response.addProperty("snapshotage", unspent.getAge());
 				break;
 			}
 			case "listtransactions": {
@@ -320,7 +449,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
                     startTime = params.get(0).getAsInt();
                     endTime = params.get(1).getAsInt();
                 }
-                JsonArray transactions = httpClient.getHistory(coin.getTicker(), startTime, endTime, 60 * 15);
+                HTTPClient.Snapshot transactions = httpClient.getHistory(coin.getTicker(), startTime, endTime, 15 * 60 * 1000);
                 if (transactions == null) {
                     response.add("result", JsonNull.INSTANCE);
                     JsonObject err = new JsonObject();
@@ -329,8 +458,9 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
                     response.add("error", err);
                     break;
                 }
-                response.add("result", transactions);
+                response.add("result", transactions.getData());
                 response.add("error", JsonNull.INSTANCE);
+                response.addProperty("snapshotage", transactions.getAge());
 				break;
 			}
 			case "getblockchaininfo": {
@@ -628,8 +758,8 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 
 				if (account.equals("main")) {
 					JsonArray addresses = new JsonArray();
-					for (AddressBalance addressBalance : coin.getAddressKeyPairs()) {
-						addresses.add(addressBalance.getAddress().toBase58());
+					for (AddressBalance addressBalance : coin.getWalletState().getAddresses()) {
+						addresses.add(addressBalance.getAddrProp());
 					}
 
 					response.add("result", addresses);
@@ -717,16 +847,17 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 						Coin outputValue = Coin.valueOf((long) Math.floor(outputs.get(addr).getAsDouble() * Coin.COIN.value));
 
 						if (isP2SHAddress(addr)) {
-							LOGGER.log(Level.FINER, "[http-server-handler] P2SH Address Found: " + addr);
-							LOGGER.log(Level.FINER, "[http-server-handler] Testing if Bitcoinj Recognized: " + address.isP2SHAddress());
+							CCLogger.log(Level.FINER, "[http-server-handler] P2SH Address Found: ", addr);
+							CCLogger.log(Level.FINER, "[http-server-handler] Testing if Bitcoinj Recognized: ", address.isP2SHAddress());
 
 							Script p2shScript = ScriptBuilder.createP2SHOutputScript(address.getHash160());
 
 							Address addrs = p2shScript.getToAddress(coin.getNetworkParameters(), false);
 
-							LOGGER.log(Level.FINER, "Addr: " + addrs.toString() + " is recognized? " + addrs.isP2SHAddress());
+							if (LOGGER.isLoggable(Level.FINER))
+								LOGGER.log(Level.FINER, "Addr: " + addrs.toString() + " is recognized? " + addrs.isP2SHAddress());
 
-							LOGGER.log(Level.FINER, "Script Type: " + p2shScript.getScriptType());
+							CCLogger.log(Level.FINER, "Script Type: ", p2shScript.getScriptType());
 
 							tx.addOutput(outputValue, p2shScript);
 						}
@@ -761,7 +892,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 
 				String hexTx = new String(Hex.encode(tx.bitcoinSerialize()));
 
-				LOGGER.log(Level.FINER, "[http-server-handler] DEBUG: Raw transaction = " + hexTx);
+				CCLogger.log(Level.FINER, "[http-server-handler] DEBUG: Raw transaction = ", hexTx);
 
 				response.addProperty("result", hexTx);
 				response.add("error", JsonNull.INSTANCE);
@@ -910,33 +1041,13 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 					break;
 				}
 
-				Transaction signedTx = new Transaction(coin.getNetworkParameters());
-
-				boolean complete = true;
-
-				for (TransactionOutput output : tx.getOutputs()) {
-					signedTx.addOutput(output);
+				Transaction signedTx = signInputs(coin, tx);
+				if (signedTx == null) {
+					getInvalidTxResponse(response, new Exception("Transaction contains an utxo/input which does not exist in our wallet."));
+					break;
 				}
 
-				for (TransactionInput input : tx.getInputs()) {
-					Sha256Hash txid = input.getOutpoint().getHash();
-					long vout = input.getOutpoint().getIndex();
-
-					ECKey signingKey = getSigningKey(txid, vout);
-					UTXO utxo = getUtxo(txid, vout);
-
-					if (utxo == null || signingKey == null) {
-						getInvalidTxResponse(response, new Exception("Transaction contains an utxo/input which does not exist in our wallet."));
-						break;
-					}
-
-					org.bitcoinj.core.UTXO bUtxo = utxo.createUTXO();
-
-					TransactionOutPoint outPoint = new TransactionOutPoint(coin.getNetworkParameters(), bUtxo.getIndex(), bUtxo.getHash());
-
-					signedTx.addSignedInput(outPoint, bUtxo.getScript(), signingKey, Transaction.SigHash.ALL, true);
-//					utxo.setSpent(true);
-				}
+				boolean complete = true;
 
 				String signedTxHex = new String(Hex.encode(signedTx.bitcoinSerialize()));
 				JsonObject resultJSON = new JsonObject();
@@ -946,7 +1057,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				response.add("result", resultJSON);
 				response.add("error", JsonNull.INSTANCE);
 
-				LOGGER.log(Level.FINER, "[DEBUG http-server-handler] Signed Raw Transaction: " + response.toString());
+				CCLogger.log(Level.FINER, "[DEBUG http-server-handler] Signed Raw Transaction: ", response);
 				break;
 			}
 			case "gettxout": {
@@ -972,7 +1083,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				}
 
 				// attempt to find UTXO in cache
-				UTXO requested = this.getUtxo(Sha256Hash.wrap(txid), n);
+				UTXO requested = getUtxo(coin, Sha256Hash.wrap(txid), n);
 
 				if (requested != null) {
 					LOGGER.log(Level.FINER, "[http-server-handler] Using cached UTXO for gettxout");
@@ -1074,14 +1185,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 					}
 
 					// ensure address belongs to our wallet
-					boolean isOurs = false;
-					for (AddressBalance addressBalance : coin.getAddressKeyPairs()) {
-						String addressCheck = addressBalance.getAddress().toString();
-						if (address.equals(addressCheck)) {
-							isOurs = true;
-							break;
-						}
-					}
+					boolean isOurs = coin.getAddress(address) != null;
 
 					if (!isOurs) {
 						LOGGER.log(Level.FINER, "[http-server-handler] WARNING: Client requested UTXO that cannot be ours!");
@@ -1238,7 +1342,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				}
 
 				ECKey key = address.getPrivateKey().getKey();
-				String signatureB64 = signMessage(key, message);
+				String signatureB64 = signMessage(coin.getTicker(), key, message);
 
 				response.addProperty("result", signatureB64);
 				response.add("error", JsonNull.INSTANCE);
@@ -1262,8 +1366,8 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				boolean verified = false;
 
 				try {
-					ECKey key = signedMessageToKey(signatureB64, message);
-					verified = verifyMessage(key, signatureB64, message);
+					ECKey key = signedMessageToKey(coin.getTicker(), signatureB64, message);
+					verified = verifyMessage(coin.getTicker(), key, signatureB64, message);
 					if (!verified)
 						throw new SignatureException("Signature was not verified.");
 
@@ -1403,6 +1507,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 						+ "\n"
 						+ "help - This command help.\n"
 						+ "version - Get version\n"
+						+ "getrpcstats - Get call counts and latency percentiles per RPC method\n"
 						+ "\n=====Blockchain=====\n"
 						+ "gettxout <txid> <vout> - Get info about an unspent transaction output\n"
 						+ "\n=====Network=====\n"
@@ -1462,10 +1567,10 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 				.replaceAll("\\([0-9]+\\)", "");
 	}
 
-	private byte[] formatMessageForSigning(String message) {
+	private static byte[] formatMessageForSigning(CoinTicker ticker, String message) {
 		String header = null;
 
-		switch (coin.getTicker()) {
+		switch (ticker) {
 			case BLOCKNET:
 			case BLOCKNET_TESTNET5:
 				header = "Blocknet Signed Message:\n";
@@ -1532,8 +1637,40 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 		return null;
 	}
 
-	private String signMessage(ECKey key, String message) {
-		byte[] formatted = formatMessageForSigning(message);
+	/**
+	 * Signs every input of a transaction with the wallet's key for the utxo it spends.
+	 * @param coin Coin whose wallet holds the utxos
+	 * @param tx Transaction to sign
+	 * @return Signed copy or null if an input does not spend a utxo of the wallet
+	 */
+	static Transaction signInputs(CoinInstance coin, Transaction tx) {
+		Transaction signedTx = new Transaction(coin.getNetworkParameters());
+
+		for (TransactionOutput output : tx.getOutputs()) {
+			signedTx.addOutput(output);
+		}
+
+		for (TransactionInput input : tx.getInputs()) {
+			Sha256Hash txid = input.getOutpoint().getHash();
+			long vout = input.getOutpoint().getIndex();
+
+			ECKey signingKey = getSigningKey(coin, txid, vout);
+			UTXO utxo = getUtxo(coin, txid, vout);
+
+			if (utxo == null || signingKey == null)
+				return null;
+
+			TransactionOutPoint outPoint = new TransactionOutPoint(coin.getNetworkParameters(), vout, txid);
+
+			signedTx.addSignedInput(outPoint, utxo.getScript(), signingKey, Transaction.SigHash.ALL, true);
+//			utxo.setSpent(true);
+		}
+
+		return signedTx;
+	}
+
+	static String signMessage(CoinTicker ticker, ECKey key, String message) {
+		byte[] formatted = formatMessageForSigning(ticker, message);
 		Preconditions.checkNotNull(formatted, "Formatted message is null");
 		Sha256Hash hash = Sha256Hash.twiceOf(formatted);
 		ECKey.ECDSASignature signature = key.sign(hash);
@@ -1557,7 +1694,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 		return new String(Base64.encode(sigData));
 	}
 
-	private ECKey signedMessageToKey(String signatureB64, String message) throws SignatureException {
+	private static ECKey signedMessageToKey(CoinTicker ticker, String signatureB64, String message) throws SignatureException {
 		byte[] signatureEncoded;
 		try {
 			signatureEncoded = Base64.decode(signatureB64);
@@ -1575,7 +1712,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 		BigInteger r = new BigInteger(1, Arrays.copyOfRange(signatureEncoded, 1, 33));
 		BigInteger s = new BigInteger(1, Arrays.copyOfRange(signatureEncoded, 33, 65));
 		ECKey.ECDSASignature sig = new ECKey.ECDSASignature(r, s);
-		byte[] messageBytes = formatMessageForSigning(message);
+		byte[] messageBytes = formatMessageForSigning(ticker, message);
 		Preconditions.checkNotNull(messageBytes, "Message bytes are null.");
 
 		Sha256Hash messageHash = Sha256Hash.twiceOf(messageBytes);
@@ -1591,10 +1728,10 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 		return key;
 	}
 
-	private boolean verifyMessage(ECKey key, String signatureB64, String message) {
+	static boolean verifyMessage(CoinTicker ticker, ECKey key, String signatureB64, String message) {
 		boolean verified = false;
 		try {
-			ECKey k = signedMessageToKey(signatureB64, message);
+			ECKey k = signedMessageToKey(ticker, signatureB64, message);
 			if (Arrays.equals(k.getPubKey(), key.getPubKey()))
 				verified = true;
 		} catch (SignatureException e) {
@@ -1639,32 +1776,24 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 		scriptPubKey.addProperty("type", typeStr);
 	}
 
-	private UTXO getUtxo(Sha256Hash txid, long vout) {
-		for (AddressBalance addressBalance : coin.getAddressKeyPairs()) {
-			for (UTXO utxo : addressBalance.getUtxos()) {
-				if (utxo.createUTXO().getHash().equals(txid) && utxo.getVout() == vout) {
-					return utxo;
-				} else {
-					LOGGER.log(Level.FINER, "[http-server-handler] DEBUG: UTXO " + utxo.createUTXO().getHash().toString() + " does not equal " + txid.toString());
-				}
-			}
-		}
+	private static UTXO getUtxo(CoinInstance coin, Sha256Hash txid, long vout) {
+		UTXO utxo = coin.getWalletState().getUnspent(new Outpoint(txid, vout));
+		if (utxo == null && LOGGER.isLoggable(Level.FINER))
+			LOGGER.log(Level.FINER, "[http-server-handler] DEBUG: No unspent UTXO " + txid.toString() + ":" + vout);
 
-		return null;
+		return utxo;
 	}
 
-	private ECKey getSigningKey(Sha256Hash txid, long vout) {
-		for (AddressBalance addressBalance : coin.getAddressKeyPairs()) {
-			for (UTXO utxo : addressBalance.getUtxos()) {
-				if (utxo.createUTXO().getHash().equals(txid) && utxo.getVout() == vout) {
-					return addressBalance.getPrivateKey().getKey();
-				} else {
-					LOGGER.log(Level.FINER, "[http-server-handler] DEBUG: UTXO " + utxo.createUTXO().getHash().toString() + " does not equal " + txid.toString());
-				}
-			}
-		}
+	private static ECKey getSigningKey(CoinInstance coin, Sha256Hash txid, long vout) {
+		UTXO utxo = getUtxo(coin, txid, vout);
+		if (utxo == null)
+			return null;
 
-		return null;
+		AddressBalance addressBalance = coin.getAddress(utxo.getAddress());
+		if (addressBalance == null)
+			return null;
+
+		return addressBalance.getPrivateKey().getKey();
 	}
 
 	private void getInvalidTxResponse(JsonObject response, Exception e) {
@@ -1716,7 +1845,7 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 		}
 
 		if (xRouterResult.get() == null || xRouterResult.get().isEmpty()) {
-			LOGGER.log(Level.FINER, "[http-server-handler] ERROR: XRouter request timed out or errored! Timeout period = " + timeoutPeriod);
+			CCLogger.log(Level.FINER, "[http-server-handler] ERROR: XRouter request timed out or errored! Timeout period = ", timeoutPeriod);
 
 			response.add("result", JsonNull.INSTANCE);
 			JsonObject errorJSON = new JsonObject();
@@ -1766,14 +1895,21 @@ public class HTTPServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 		if (request != null)
 		    keepAlive = HttpUtil.isKeepAlive(request);
 
+		return writeResponse(ctx, httpResponse, keepAlive);
+	}
+
+	private boolean writeResponse(ChannelHandlerContext ctx, FullHttpResponse httpResponse, boolean keepAlive) {
 		httpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
 		httpResponse.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, httpResponse.content().readableBytes());
-		httpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+		httpResponse.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
 		httpResponse.headers().set(HttpHeaderNames.SERVER, CoinInstance.getVersionString());
 
-		LOGGER.log(Level.FINER, "[http-server-handler] Writing response to channel. Keep alive? " + keepAlive);
-		LOGGER.log(Level.FINER, "[http-server-handler] Response content: " + httpResponse.content().toString(CharsetUtil.UTF_8));
-		ctx.write(httpResponse);
+		CCLogger.log(Level.FINER, "[http-server-handler] Writing response to channel. Keep alive? ", keepAlive);
+		if (LOGGER.isLoggable(Level.FINER))
+			LOGGER.log(Level.FINER, "[http-server-handler] Response content: " + httpResponse.content().toString(CharsetUtil.UTF_8));
+		ChannelFuture future = ctx.writeAndFlush(httpResponse);
+		if (!keepAlive)
+			future.addListener(ChannelFutureListener.CLOSE);
 
 		return keepAlive;
 	}
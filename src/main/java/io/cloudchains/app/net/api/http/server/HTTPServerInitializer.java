@@ -1,13 +1,15 @@
 package io.cloudchains.app.net.api.http.server;
 
 import io.cloudchains.app.net.CoinInstance;
+import io.cloudchains.app.net.api.JSONRPCController;
+import io.cloudchains.app.util.ConfigHelper;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
-import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 
 public class HTTPServerInitializer extends ChannelInitializer<SocketChannel> {
@@ -18,16 +20,26 @@ public class HTTPServerInitializer extends ChannelInitializer<SocketChannel> {
 		this.coin = coin;
 	}
 
+	/**
+	 * Pipeline for the unified listener, requests are routed to their coin by {@link CoinRouter}.
+	 */
+	public HTTPServerInitializer() {
+		this(null);
+	}
+
 	@Override
 	protected void initChannel(SocketChannel ch) {
 		ChannelPipeline pipeline = ch.pipeline();
 
+		ConfigHelper masterConfig = JSONRPCController.getMasterConfig();
+
 		pipeline.addLast(new WriteTimeoutHandler(30));
-		pipeline.addLast(new ReadTimeoutHandler(30));
+		pipeline.addLast(new IdleStateHandler(0, 0, masterConfig.getRpcIdleTimeout()));
 		pipeline.addLast(new HttpRequestDecoder());
 		pipeline.addLast(new HttpResponseEncoder());
-		pipeline.addLast(new HttpObjectAggregator(100000000));
-		pipeline.addLast(new HTTPServerHandler(coin));
+		pipeline.addLast(new HttpObjectAggregator(masterConfig.getRpcMaxRequestSize()));
+		pipeline.addLast(new KeepAliveHandler(masterConfig.getRpcMaxRequestsPerConnection()));
+		pipeline.addLast(coin != null ? new HTTPServerHandler(coin) : new CoinRouter());
 		pipeline.addLast(new ExceptionHandler());
 	}
 
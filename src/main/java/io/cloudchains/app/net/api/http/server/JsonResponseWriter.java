@@ -0,0 +1,110 @@
+package io.cloudchains.app.net.api.http.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes JSON responses straight into pooled direct buffers, without an
+ * intermediate String. A response that fits in one chunk is sent whole with a
+ * Content-Length, a larger one switches to chunked transfer encoding and is
+ * written out while it is being serialized.
+ */
+public final class JsonResponseWriter extends OutputStream {
+	public static final int CHUNK_SIZE = 256 * 1024;
+
+	// Same output as JsonElement.toString()
+	private static final Gson GSON = new GsonBuilder().serializeNulls().disableHtmlEscaping().create();
+
+	private final ChannelHandlerContext ctx;
+	private final HttpResponse response;
+	private ByteBuf buffer;
+	private boolean chunked = false;
+
+	private JsonResponseWriter(ChannelHandlerContext ctx, HttpResponse response) {
+		this.ctx = ctx;
+		this.response = response;
+		this.buffer = ctx.alloc().directBuffer();
+	}
+
+	/**
+	 * Writes json as the body of a response. May be called from any thread.
+	 * @param response Status line and headers, Content-Length or chunked encoding is added here
+	 * @param json Response body
+	 * @return Future of the final write
+	 */
+	public static ChannelFuture write(ChannelHandlerContext ctx, HttpResponse response, JsonElement json) {
+		JsonResponseWriter out = new JsonResponseWriter(ctx, response);
+		try {
+			OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+			JsonWriter jsonWriter = GSON.newJsonWriter(writer);
+			GSON.toJson(json, jsonWriter);
+			jsonWriter.flush();
+		} catch (IOException | RuntimeException e) {
+			out.abort();
+			throw new IllegalStateException("Failed to write JSON response", e);
+		}
+
+		return out.finish();
+	}
+
+	@Override
+	public void write(int b) {
+		buffer.writeByte(b);
+		if (buffer.readableBytes() >= CHUNK_SIZE)
+			writeChunk();
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		buffer.writeBytes(b, off, len);
+		if (buffer.readableBytes() >= CHUNK_SIZE)
+			writeChunk();
+	}
+
+	private void writeChunk() {
+		if (!chunked) {
+			HttpUtil.setTransferEncodingChunked(response, true);
+			ctx.write(response);
+			chunked = true;
+		}
+
+		ctx.writeAndFlush(new DefaultHttpContent(buffer));
+		buffer = ctx.alloc().directBuffer();
+	}
+
+	private ChannelFuture finish() {
+		if (chunked)
+			return ctx.writeAndFlush(new DefaultLastHttpContent(buffer));
+
+		FullHttpResponse fullResponse = new DefaultFullHttpResponse(response.protocolVersion(), response.status(), buffer);
+		fullResponse.headers().set(response.headers());
+		HttpUtil.setContentLength(fullResponse, buffer.readableBytes());
+		return ctx.writeAndFlush(fullResponse);
+	}
+
+	/**
+	 * Drops the unsent part. A response already partly sent cannot be completed,
+	 * so its connection is closed.
+	 */
+	private void abort() {
+		buffer.release();
+		if (chunked)
+			ctx.close();
+	}
+}
@@ -0,0 +1,144 @@
+package io.cloudchains.app.net.api.http.server;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Persistent connection handling for the RPC servers. Pipelined requests are
+ * queued and handed on one at a time so responses go out in request order. A
+ * connection is closed after its last allowed request, or once it has been idle
+ * with no call in flight.
+ */
+public class KeepAliveHandler extends ChannelDuplexHandler {
+	private final static LogManager LOGMANAGER = LogManager.getLogManager();
+	private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+	// Stop reading from a client that pipelines more than this many requests ahead
+	private static final int MAX_QUEUED = 16;
+
+	private final int maxRequests;
+	private final ArrayDeque<FullHttpRequest> queued = new ArrayDeque<>();
+	private boolean inFlight = false;
+	private boolean closing = false;
+	private boolean keepAlive = true;
+	private int requests = 0;
+
+	/**
+	 * @param maxRequests Requests served on a connection before it is closed
+	 */
+	public KeepAliveHandler(int maxRequests) {
+		this.maxRequests = Math.max(1, maxRequests);
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) {
+		if (!(msg instanceof FullHttpRequest)) {
+			ctx.fireChannelRead(msg);
+			return;
+		}
+
+		if (closing) {
+			ReferenceCountUtil.release(msg);
+			return;
+		}
+
+		if (inFlight) {
+			queued.add((FullHttpRequest) msg);
+			if (queued.size() >= MAX_QUEUED)
+				ctx.channel().config().setAutoRead(false);
+			return;
+		}
+
+		dispatch(ctx, (FullHttpRequest) msg);
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+		boolean informational = msg instanceof HttpResponse && ((HttpResponse) msg).status().codeClass() == HttpStatusClass.INFORMATIONAL;
+		if (msg instanceof HttpResponse && !informational)
+			keepAlive = HttpUtil.isKeepAlive((HttpResponse) msg);
+
+		// A chunked response is complete with its last content
+		if (informational || !(msg instanceof LastHttpContent)) {
+			ctx.write(msg, promise);
+			return;
+		}
+
+		if (!keepAlive) {
+			closing = true;
+			releaseQueued();
+			ctx.write(msg, promise.unvoid()).addListener(ChannelFutureListener.CLOSE);
+			return;
+		}
+
+		ctx.write(msg, promise);
+		inFlight = false;
+
+		// Deferred so a pipelined burst does not recurse through the handlers
+		ctx.channel().eventLoop().execute(() -> next(ctx));
+	}
+
+	@Override
+	public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+		if (evt instanceof IdleStateEvent) {
+			if (!inFlight && queued.isEmpty()) {
+				if (LOGGER.isLoggable(Level.FINER))
+					LOGGER.log(Level.FINER, "[http-server-handler] Closing idle connection after " + requests + " requests.");
+				ctx.close();
+			}
+			return;
+		}
+
+		super.userEventTriggered(ctx, evt);
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		releaseQueued();
+		super.channelInactive(ctx);
+	}
+
+	private void next(ChannelHandlerContext ctx) {
+		if (inFlight || closing || !ctx.channel().isActive())
+			return;
+
+		FullHttpRequest request = queued.poll();
+		if (request == null)
+			return;
+
+		if (queued.size() < MAX_QUEUED)
+			ctx.channel().config().setAutoRead(true);
+
+		dispatch(ctx, request);
+	}
+
+	private void dispatch(ChannelHandlerContext ctx, FullHttpRequest request) {
+		inFlight = true;
+
+		// The handler answers the last allowed request with Connection: close
+		if (++requests >= maxRequests)
+			HttpUtil.setKeepAlive(request, false);
+
+		ctx.fireChannelRead(request);
+	}
+
+	private void releaseQueued() {
+		FullHttpRequest request;
+		while ((request = queued.poll()) != null)
+			ReferenceCountUtil.release(request);
+	}
+}
@@ -0,0 +1,101 @@
+package io.cloudchains.app.net.api.http.server;
+
+import com.google.gson.JsonObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram in microseconds with log-linear buckets, in the
+ * style of HdrHistogram. Each power of two is split into 8 sub-buckets, so a
+ * reported percentile is within 12.5% of the recorded value.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// Values below this are counted exactly
+	private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+	// Covers up to 2^40 us, about 12 days
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		counts.incrementAndGet(bucketOf(micros));
+		count.incrementAndGet();
+		total.addAndGet(micros);
+		max.accumulateAndGet(micros, Math::max);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @param percentile 0 to 100
+	 * @return Upper bound in microseconds of the bucket holding the percentile, 0 if empty
+	 */
+	public long getPercentile(double percentile) {
+		long recorded = count.get();
+		if (recorded == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(recorded * percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank)
+				return Math.min(upperBoundOf(i), max.get());
+		}
+
+		return max.get();
+	}
+
+	/**
+	 * @return Count, mean, percentiles and maximum in milliseconds
+	 */
+	public JsonObject toJson() {
+		long recorded = count.get();
+
+		JsonObject json = new JsonObject();
+		json.addProperty("count", recorded);
+		json.addProperty("mean", recorded > 0 ? toMillis(total.get() / recorded) : 0.0);
+		json.addProperty("p50", toMillis(getPercentile(50)));
+		json.addProperty("p90", toMillis(getPercentile(90)));
+		json.addProperty("p99", toMillis(getPercentile(99)));
+		json.addProperty("p999", toMillis(getPercentile(99.9)));
+		json.addProperty("max", toMillis(max.get()));
+		return json;
+	}
+
+	static int bucketOf(long micros) {
+		if (micros < LINEAR_LIMIT)
+			return (int) micros;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		if (exponent >= MAX_EXPONENT)
+			return BUCKETS - 1;
+
+		int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long upperBoundOf(int bucket) {
+		if (bucket < LINEAR_LIMIT)
+			return bucket;
+
+		int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+		int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		return (1L << exponent) + (subBucket + 1) * width - 1;
+	}
+
+	private static double toMillis(long micros) {
+		return micros / 1000.0;
+	}
+}
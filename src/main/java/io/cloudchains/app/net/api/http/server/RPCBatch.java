@@ -0,0 +1,184 @@
+package io.cloudchains.app.net.api.http.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Runs the calls of a JSON-RPC batch request. Read-only calls are spread over the
+ * worker pool, calls that change the wallet or broadcast run one after another in
+ * request order. Responses keep the request order and carry the id of their call.
+ */
+public class RPCBatch {
+	private final static LogManager LOGMANAGER = LogManager.getLogManager();
+	private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+	private static final Set<String> SERIAL_METHODS = new HashSet<>(Arrays.asList(
+			"reloadconfig", "getnewaddress", "importprivkey", "createrawtransaction",
+			"signrawtransaction", "sendrawtransaction", "sendtransaction"));
+
+	private static final AtomicLong batches = new AtomicLong();
+	private static final AtomicLong calls = new AtomicLong();
+	private static final AtomicLong busy = new AtomicLong();
+	private static final AtomicLong oversized = new AtomicLong();
+	private static final AtomicInteger largest = new AtomicInteger();
+
+	private final JsonArray requests;
+	private final BiFunction<String, JsonArray, JsonObject> handler;
+	private final JsonObject[] responses;
+
+	/**
+	 * @param requests Batch request array
+	 * @param handler Executes a single call given its method and params
+	 */
+	RPCBatch(JsonArray requests, BiFunction<String, JsonArray, JsonObject> handler) {
+		this.requests = requests;
+		this.handler = handler;
+		this.responses = new JsonObject[requests.size()];
+	}
+
+	/**
+	 * Runs every call of the batch.
+	 * @param workerPool Pool to run the calls on, null to run them on the calling thread
+	 * @return Future completing with the response array once all calls are done
+	 */
+	CompletableFuture<JsonArray> execute(RPCWorkerPool workerPool) {
+		batches.incrementAndGet();
+		calls.addAndGet(requests.size());
+		largest.accumulateAndGet(requests.size(), Math::max);
+
+		List<CompletableFuture<Void>> pending = new ArrayList<>();
+		List<Integer> serial = new ArrayList<>();
+
+		for (int i = 0; i < requests.size(); i++) {
+			JsonElement request = requests.get(i);
+			if (!isValidRequest(request)) {
+				responses[i] = error(getId(request), -1001, "Invalid JSON-RPC request.");
+				continue;
+			}
+
+			String method = request.getAsJsonObject().get("method").getAsString();
+			if (workerPool == null || SERIAL_METHODS.contains(method.toLowerCase()))
+				serial.add(i);
+			else
+				pending.add(submit(workerPool, Collections.singletonList(i)));
+		}
+
+		if (!serial.isEmpty()) {
+			if (workerPool == null) {
+				for (int i : serial)
+					call(i);
+			} else {
+				pending.add(submit(workerPool, serial));
+			}
+		}
+
+		return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).thenApply(v -> {
+			JsonArray result = new JsonArray(responses.length);
+			for (JsonObject response : responses)
+				result.add(response);
+
+			return result;
+		});
+	}
+
+	private CompletableFuture<Void> submit(RPCWorkerPool workerPool, List<Integer> indexes) {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		boolean queued = workerPool.submit(() -> {
+			try {
+				for (int i : indexes)
+					call(i);
+			} finally {
+				done.complete(null);
+			}
+		});
+
+		if (!queued) {
+			busy.addAndGet(indexes.size());
+			for (int i : indexes)
+				responses[i] = error(getId(requests.get(i)), -1113, "RPC server is busy. Try again later.");
+			done.complete(null);
+		}
+
+		return done;
+	}
+
+	private void call(int index) {
+		JsonObject request = requests.get(index).getAsJsonObject();
+		String method = request.get("method").getAsString();
+
+		JsonObject response;
+		try {
+			response = handler.apply(method, request.get("params").getAsJsonArray());
+		} catch (Exception e) {
+			LOGGER.log(Level.WARNING, "[http-server-handler] Batch call " + method + " failed", e);
+			response = error(null, -1, "Internal error.");
+		}
+
+		response.add("id", getId(request));
+		responses[index] = response;
+	}
+
+	private static boolean isValidRequest(JsonElement request) {
+		if (!request.isJsonObject())
+			return false;
+
+		JsonObject object = request.getAsJsonObject();
+		JsonElement method = object.get("method");
+		JsonElement params = object.get("params");
+		return method != null && method.isJsonPrimitive() && method.getAsJsonPrimitive().isString()
+				&& params != null && params.isJsonArray();
+	}
+
+	private static JsonElement getId(JsonElement request) {
+		if (!request.isJsonObject() || !request.getAsJsonObject().has("id"))
+			return JsonNull.INSTANCE;
+
+		return request.getAsJsonObject().get("id");
+	}
+
+	private static JsonObject error(JsonElement id, int code, String message) {
+		JsonObject errorJSON = new JsonObject();
+		errorJSON.addProperty("code", code);
+		errorJSON.addProperty("message", message);
+
+		JsonObject response = new JsonObject();
+		response.add("result", JsonNull.INSTANCE);
+		response.add("error", errorJSON);
+		if (id != null)
+			response.add("id", id);
+		return response;
+	}
+
+	/**
+	 * Counts a batch refused for being empty or over the size limit.
+	 */
+	static void rejectOversized() {
+		oversized.incrementAndGet();
+	}
+
+	public static JsonObject getStats() {
+		JsonObject stats = new JsonObject();
+		stats.addProperty("batches", batches.get());
+		stats.addProperty("calls", calls.get());
+		stats.addProperty("largest", largest.get());
+		stats.addProperty("busy", busy.get());
+		stats.addProperty("oversized", oversized.get());
+		return stats;
+	}
+}
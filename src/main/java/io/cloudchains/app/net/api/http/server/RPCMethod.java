@@ -0,0 +1,16 @@
+package io.cloudchains.app.net.api.http.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Handler of a single JSON-RPC method.
+ */
+@FunctionalInterface
+public interface RPCMethod {
+	/**
+	 * @param params Call params
+	 * @return Response object with result and error
+	 */
+	JsonObject call(JsonArray params);
+}
@@ -0,0 +1,76 @@
+package io.cloudchains.app.net.api.http.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import io.cloudchains.app.net.api.RPCCallContext;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps JSON-RPC method names to their handlers and times every call. Unknown
+ * methods are answered with method not found and are not recorded, so clients
+ * cannot grow the stats with made up names.
+ */
+public class RPCMethodRegistry {
+	private final Map<String, RPCMethod> methods = new HashMap<>();
+	private final RPCMethodStats stats;
+
+	/**
+	 * @param stats Stats shared by all handlers of the server
+	 */
+	public RPCMethodRegistry(RPCMethodStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * @param method Method name, matched case-insensitively
+	 */
+	public RPCMethodRegistry register(String method, RPCMethod handler) {
+		methods.put(method.toLowerCase(), handler);
+		return this;
+	}
+
+	public Set<String> getMethods() {
+		return Collections.unmodifiableSet(methods.keySet());
+	}
+
+	public RPCMethodStats getStats() {
+		return stats;
+	}
+
+	public JsonObject call(String method, JsonArray params) {
+		String name = method.toLowerCase();
+		RPCMethod handler = methods.get(name);
+		if (handler == null)
+			return methodNotFound();
+
+		RPCCallContext context = RPCCallContext.begin();
+		long start = System.nanoTime();
+		boolean error = true;
+		try {
+			JsonObject response = handler.call(params);
+			JsonElement responseError = response.get("error");
+			error = responseError != null && !responseError.isJsonNull();
+			return response;
+		} finally {
+			context.end();
+			stats.record(name, System.nanoTime() - start, error, context);
+		}
+	}
+
+	private static JsonObject methodNotFound() {
+		JsonObject methodNotFound = new JsonObject();
+		methodNotFound.addProperty("code", -32601);
+		methodNotFound.addProperty("message", "Method not found.");
+
+		JsonObject response = new JsonObject();
+		response.add("error", methodNotFound);
+		response.add("result", JsonNull.INSTANCE);
+		return response;
+	}
+}
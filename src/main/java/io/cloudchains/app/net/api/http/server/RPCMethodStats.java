@@ -0,0 +1,103 @@
+package io.cloudchains.app.net.api.http.server;
+
+import com.google.gson.JsonObject;
+import io.cloudchains.app.net.api.RPCCallContext;
+import io.cloudchains.app.net.api.metrics.MetricsWriter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Call counts, error counts and latency histograms per RPC method of one server.
+ * Stats outlive the connections, every handler of a server records into the
+ * same instance.
+ */
+public class RPCMethodStats {
+	private static final ConcurrentHashMap<String, RPCMethodStats> servers = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+	private RPCMethodStats() {}
+
+	/**
+	 * @param server Server name, the coin ticker or master
+	 */
+	public static RPCMethodStats forServer(String server) {
+		return servers.computeIfAbsent(server, k -> new RPCMethodStats());
+	}
+
+	/**
+	 * @return Stats of every server by name
+	 */
+	public static JsonObject getAllStats() {
+		JsonObject stats = new JsonObject();
+		for (Map.Entry<String, RPCMethodStats> entry : new TreeMap<>(servers).entrySet())
+			stats.add(entry.getKey(), entry.getValue().getStats());
+
+		return stats;
+	}
+
+	public static void write(MetricsWriter out) {
+		out.family("xlite_rpc_calls_total", "counter", "RPC calls served by server and method.");
+		for (Map.Entry<String, RPCMethodStats> server : servers.entrySet()) {
+			for (Map.Entry<String, MethodStats> method : server.getValue().methods.entrySet())
+				out.sample("xlite_rpc_calls_total", method.getValue().calls.get(), "server", server.getKey(), "method", method.getKey());
+		}
+
+		out.family("xlite_rpc_errors_total", "counter", "RPC calls answered with an error by server and method.");
+		for (Map.Entry<String, RPCMethodStats> server : servers.entrySet()) {
+			for (Map.Entry<String, MethodStats> method : server.getValue().methods.entrySet())
+				out.sample("xlite_rpc_errors_total", method.getValue().errors.get(), "server", server.getKey(), "method", method.getKey());
+		}
+	}
+
+	void record(String method, long nanos, boolean error, RPCCallContext context) {
+		MethodStats stats = methods.computeIfAbsent(method, k -> new MethodStats());
+		stats.calls.incrementAndGet();
+		if (error)
+			stats.errors.incrementAndGet();
+
+		stats.latency.record(nanos);
+		if (context.isCacheHit())
+			stats.cacheHit.record(nanos);
+		else if (context.isCacheMiss())
+			stats.cacheMiss.record(nanos);
+
+		if (context.getUpstreamNanos() > 0)
+			stats.upstream.record(context.getUpstreamNanos());
+	}
+
+	/**
+	 * @return Stats of every method called so far by name
+	 */
+	public JsonObject getStats() {
+		JsonObject stats = new JsonObject();
+		for (Map.Entry<String, MethodStats> entry : new TreeMap<>(methods).entrySet())
+			stats.add(entry.getKey(), entry.getValue().toJson());
+
+		return stats;
+	}
+
+	private static class MethodStats {
+		private final AtomicLong calls = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LatencyHistogram cacheHit = new LatencyHistogram();
+		private final LatencyHistogram cacheMiss = new LatencyHistogram();
+		private final LatencyHistogram upstream = new LatencyHistogram();
+
+		private JsonObject toJson() {
+			JsonObject json = new JsonObject();
+			json.addProperty("calls", calls.get());
+			json.addProperty("errors", errors.get());
+			json.add("latency", latency.toJson());
+			json.add("cachehit", cacheHit.toJson());
+			json.add("cachemiss", cacheMiss.toJson());
+			// Time spent waiting on the backend, for calls that made upstream requests
+			json.add("upstream", upstream.toJson());
+			return json;
+		}
+	}
+}
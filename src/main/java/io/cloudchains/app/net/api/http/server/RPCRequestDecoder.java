@@ -0,0 +1,107 @@
+package io.cloudchains.app.net.api.http.server;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Parses JSON-RPC requests straight from the request content, without first
+ * copying it into a String. A single call is checked against the size limit of
+ * its method as soon as the method is read, before its params are parsed.
+ */
+public final class RPCRequestDecoder {
+
+	// Calls whose params carry whole transactions, allowed up to the full request size
+	private static final Set<String> LARGE_METHODS = new HashSet<>(Arrays.asList(
+			"createrawtransaction", "decoderawtransaction", "signrawtransaction",
+			"sendrawtransaction", "sendtransaction"));
+
+	private final int maxRequestSize;
+	private final int maxCallSize;
+
+	/**
+	 * @param maxRequestSize Maximum content size in bytes of batches and calls carrying transactions
+	 * @param maxCallSize Maximum content size in bytes of all other calls
+	 */
+	public RPCRequestDecoder(int maxRequestSize, int maxCallSize) {
+		this.maxRequestSize = maxRequestSize;
+		this.maxCallSize = maxCallSize;
+	}
+
+	public int getMaxSize(String method) {
+		return LARGE_METHODS.contains(method.toLowerCase()) ? maxRequestSize : maxCallSize;
+	}
+
+	/**
+	 * The content's reader index is left unchanged.
+	 * @return A JSON-RPC call object or a batch array
+	 * @throws RequestTooLargeException if the content exceeds the limit of its method
+	 */
+	public JsonElement decode(ByteBuf content) throws IOException {
+		int size = content.readableBytes();
+		if (size > maxRequestSize)
+			throw new RequestTooLargeException(null, maxRequestSize);
+
+		try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteBufInputStream(content.duplicate()), StandardCharsets.UTF_8))) {
+			// Same leniency as the JsonParser used before
+			reader.setLenient(true);
+
+			JsonElement request;
+			if (reader.peek() == JsonToken.BEGIN_OBJECT)
+				request = readCall(reader, size);
+			else
+				request = JsonParser.parseReader(reader);
+
+			if (reader.peek() != JsonToken.END_DOCUMENT)
+				throw new JsonSyntaxException("Did not consume the entire document.");
+
+			return request;
+		}
+	}
+
+	private JsonObject readCall(JsonReader reader, int size) throws IOException {
+		JsonObject call = new JsonObject();
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (name.equals("method") && reader.peek() == JsonToken.STRING) {
+				String method = reader.nextString();
+				if (size > getMaxSize(method))
+					throw new RequestTooLargeException(method, getMaxSize(method));
+
+				call.addProperty(name, method);
+			} else {
+				call.add(name, JsonParser.parseReader(reader));
+			}
+		}
+		reader.endObject();
+
+		return call;
+	}
+
+	public static class RequestTooLargeException extends IOException {
+		private final int maxSize;
+
+		RequestTooLargeException(String method, int maxSize) {
+			super((method != null ? method + " request" : "Request") + " exceeds " + maxSize + " bytes.");
+			this.maxSize = maxSize;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+	}
+}
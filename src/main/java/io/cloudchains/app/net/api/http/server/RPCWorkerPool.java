@@ -0,0 +1,129 @@
+package io.cloudchains.app.net.api.http.server;
+
+import com.google.gson.JsonObject;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Bounded executor that runs blocking RPC calls off the Netty event loop.
+ * Virtual threads are used when the runtime supports them, platform daemon
+ * threads otherwise.
+ */
+public class RPCWorkerPool {
+	private final static LogManager LOGMANAGER = LogManager.getLogManager();
+	private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+	private final ThreadPoolExecutor executor;
+	private final boolean virtualThreads;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	public RPCWorkerPool(int threads, int queueSize) {
+		ThreadFactory threadFactory = virtualThreadFactory();
+		virtualThreads = threadFactory != null;
+
+		if (threadFactory == null) {
+			AtomicInteger threadCount = new AtomicInteger();
+			threadFactory = r -> {
+				Thread thread = new Thread(r, "rpc-worker-" + threadCount.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			};
+		}
+
+		executor = new ThreadPoolExecutor(
+				Math.max(1, threads),
+				Math.max(1, threads),
+				60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+				threadFactory,
+				new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+
+		LOGGER.log(Level.FINER, "[rpc-worker-pool] Started with " + threads + " workers, queue size " + queueSize + (virtualThreads ? " (virtual threads)." : "."));
+	}
+
+	/**
+	 * Queue a task for execution.
+	 * @param task Work to run on a worker thread
+	 * @return false if the pool is saturated and the task was rejected
+	 */
+	public boolean submit(Runnable task) {
+		try {
+			executor.execute(() -> {
+				inFlight.incrementAndGet();
+				try {
+					task.run();
+				} finally {
+					inFlight.decrementAndGet();
+					completed.incrementAndGet();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			LOGGER.log(Level.WARNING, "[rpc-worker-pool] Rejected RPC call, queue depth " + getQueueDepth());
+			return false;
+		}
+
+		submitted.incrementAndGet();
+		return true;
+	}
+
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public JsonObject getStats() {
+		JsonObject stats = new JsonObject();
+		stats.addProperty("virtualthreads", virtualThreads);
+		stats.addProperty("maxthreads", executor.getMaximumPoolSize());
+		stats.addProperty("poolsize", executor.getPoolSize());
+		stats.addProperty("queuecapacity", getQueueDepth() + executor.getQueue().remainingCapacity());
+		stats.addProperty("queuedepth", getQueueDepth());
+		stats.addProperty("inflight", getInFlight());
+		stats.addProperty("submitted", submitted.get());
+		stats.addProperty("completed", completed.get());
+		stats.addProperty("rejected", rejected.get());
+		return stats;
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Looks up Thread.ofVirtual() reflectively so the daemon still runs on JDK 17.
+	 * @return Virtual thread factory or null if unsupported
+	 */
+	private static ThreadFactory virtualThreadFactory() {
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Method ofVirtual = Thread.class.getMethod("ofVirtual");
+			Method name = builderClass.getMethod("name", String.class, long.class);
+			Method factory = builderClass.getMethod("factory");
+
+			Object builder = ofVirtual.invoke(null);
+			builder = name.invoke(builder, "rpc-worker-", 0L);
+			return (ThreadFactory) factory.invoke(builder);
+		} catch (Throwable e) {
+			return null;
+		}
+	}
+}
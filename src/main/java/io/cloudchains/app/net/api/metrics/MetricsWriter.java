@@ -0,0 +1,108 @@
+package io.cloudchains.app.net.api.metrics;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes samples in the Prometheus text exposition format straight into a
+ * buffer. Integral values are written digit by digit, so a scrape allocates
+ * little beyond the buffer itself.
+ */
+public final class MetricsWriter {
+	private final ByteBuf out;
+
+	public MetricsWriter(ByteBuf out) {
+		this.out = out;
+	}
+
+	/**
+	 * Starts a metric family.
+	 * @param type counter, gauge or histogram
+	 */
+	public MetricsWriter family(String name, String type, String help) {
+		ascii("# HELP ").ascii(name).ascii(" ").ascii(help).ascii("\n");
+		ascii("# TYPE ").ascii(name).ascii(" ").ascii(type).ascii("\n");
+		return this;
+	}
+
+	/**
+	 * @param labels Alternating label names and values
+	 */
+	public MetricsWriter sample(String name, long value, String... labels) {
+		name(name, labels);
+		writeLong(value);
+		out.writeByte('\n');
+		return this;
+	}
+
+	/**
+	 * @param labels Alternating label names and values
+	 */
+	public MetricsWriter sample(String name, double value, String... labels) {
+		name(name, labels);
+		if (value == (long) value)
+			writeLong((long) value);
+		else
+			ascii(Double.isNaN(value) ? "NaN" : Double.toString(value));
+		out.writeByte('\n');
+		return this;
+	}
+
+	private void name(String name, String[] labels) {
+		ascii(name);
+		if (labels.length > 0) {
+			out.writeByte('{');
+			for (int i = 0; i + 1 < labels.length; i += 2) {
+				if (i > 0)
+					out.writeByte(',');
+				ascii(labels[i]).ascii("=\"");
+				labelValue(labels[i + 1]);
+				out.writeByte('"');
+			}
+			out.writeByte('}');
+		}
+		out.writeByte(' ');
+	}
+
+	private void labelValue(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == '"') {
+				out.writeByte('\\');
+				out.writeByte(c);
+			} else if (c == '\n') {
+				out.writeByte('\\');
+				out.writeByte('n');
+			} else if (c < 0x80) {
+				out.writeByte(c);
+			} else {
+				out.writeCharSequence(String.valueOf(c), StandardCharsets.UTF_8);
+			}
+		}
+	}
+
+	private void writeLong(long value) {
+		if (value == Long.MIN_VALUE) {
+			ascii(Long.toString(value));
+			return;
+		}
+
+		if (value < 0) {
+			out.writeByte('-');
+			value = -value;
+		}
+
+		long divisor = 1;
+		while (value / divisor >= 10)
+			divisor *= 10;
+
+		for (; divisor > 0; divisor /= 10)
+			out.writeByte('0' + (int) (value / divisor % 10));
+	}
+
+	private MetricsWriter ascii(String s) {
+		out.writeCharSequence(s, StandardCharsets.US_ASCII);
+		return this;
+	}
+}
@@ -0,0 +1,93 @@
+package io.cloudchains.app.net.api.metrics;
+
+import io.cloudchains.app.net.CoinInstance;
+import io.cloudchains.app.net.CoinTickerUtils;
+import io.cloudchains.app.net.api.JSONRPCController;
+import io.cloudchains.app.net.api.RPCEventLoops;
+import io.cloudchains.app.net.api.http.client.UpstreamMetrics;
+import io.cloudchains.app.net.api.http.server.RPCMethodStats;
+import io.cloudchains.app.util.WalletState;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+
+/**
+ * Collects the metrics served on the master RPC server's /metrics path. Values
+ * are read from counters the components already keep, a scrape does not take
+ * locks on the RPC or wallet paths.
+ */
+public class PrometheusMetrics {
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+	private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+	public static void write(MetricsWriter out) {
+		writeCoins(out);
+		UpstreamMetrics.write(out);
+		RPCMethodStats.write(out);
+		writeEventLoops(out);
+		writeJvm(out);
+	}
+
+	private static void writeCoins(MetricsWriter out) {
+		List<CoinInstance> coins = CoinInstance.getCoinInstances();
+
+		out.family("xlite_wallet_utxos", "gauge", "Unspent outputs held by the wallet.");
+		for (CoinInstance coin : coins) {
+			WalletState state = coin.getWalletState();
+			out.sample("xlite_wallet_utxos", state.getUnspentCount(), "ticker", CoinTickerUtils.tickerToString(coin.getTicker()));
+		}
+
+		out.family("xlite_wallet_addresses", "gauge", "Addresses tracked by the wallet.");
+		for (CoinInstance coin : coins) {
+			WalletState state = coin.getWalletState();
+			out.sample("xlite_wallet_addresses", state.getAddresses().size(), "ticker", CoinTickerUtils.tickerToString(coin.getTicker()));
+		}
+
+		out.family("xlite_block_count", "gauge", "Last block count reported by the backend.");
+		for (CoinInstance coin : coins)
+			out.sample("xlite_block_count", CoinInstance.getBlockCountByTicker(coin.getTicker()), "ticker", CoinTickerUtils.tickerToString(coin.getTicker()));
+
+		out.family("xlite_block_count_age_seconds", "gauge", "Seconds since the block count last advanced.");
+		for (CoinInstance coin : coins) {
+			long age = CoinInstance.getBlockCountAge(coin.getTicker());
+			if (age >= 0)
+				out.sample("xlite_block_count_age_seconds", age / 1000.0, "ticker", CoinTickerUtils.tickerToString(coin.getTicker()));
+		}
+	}
+
+	private static void writeEventLoops(MetricsWriter out) {
+		RPCEventLoops eventLoops = JSONRPCController.getEventLoops();
+
+		out.family("xlite_event_loop_pending_tasks", "gauge", "Tasks queued on the RPC event loops.");
+		out.sample("xlite_event_loop_pending_tasks", eventLoops.getBossPendingTasks(), "group", "boss");
+		out.sample("xlite_event_loop_pending_tasks", eventLoops.getWorkerPendingTasks(), "group", "io");
+	}
+
+	private static void writeJvm(MetricsWriter out) {
+		MemoryUsage heap = MEMORY.getHeapMemoryUsage();
+		MemoryUsage nonHeap = MEMORY.getNonHeapMemoryUsage();
+
+		out.family("jvm_memory_bytes_used", "gauge", "Used bytes of a JVM memory area.");
+		out.sample("jvm_memory_bytes_used", heap.getUsed(), "area", "heap");
+		out.sample("jvm_memory_bytes_used", nonHeap.getUsed(), "area", "nonheap");
+
+		out.family("jvm_memory_bytes_committed", "gauge", "Committed bytes of a JVM memory area.");
+		out.sample("jvm_memory_bytes_committed", heap.getCommitted(), "area", "heap");
+		out.sample("jvm_memory_bytes_committed", nonHeap.getCommitted(), "area", "nonheap");
+
+		out.family("jvm_memory_bytes_max", "gauge", "Maximum bytes of a JVM memory area, -1 if undefined.");
+		out.sample("jvm_memory_bytes_max", heap.getMax(), "area", "heap");
+		out.sample("jvm_memory_bytes_max", nonHeap.getMax(), "area", "nonheap");
+
+		out.family("jvm_gc_collection_seconds", "summary", "Time spent in a JVM garbage collector.");
+		for (GarbageCollectorMXBean collector : COLLECTORS) {
+			out.sample("jvm_gc_collection_seconds_count", collector.getCollectionCount(), "gc", collector.getName());
+			out.sample("jvm_gc_collection_seconds_sum", collector.getCollectionTime() / 1000.0, "gc", collector.getName());
+		}
+	}
+}
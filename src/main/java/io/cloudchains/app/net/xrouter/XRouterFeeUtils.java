@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 import com.subgraph.orchid.encoders.Hex;
 import io.cloudchains.app.net.CoinInstance;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetPeer;
+import io.cloudchains.app.util.CCLogger;
 import io.cloudchains.app.util.XRouterConfiguration;
 import io.cloudchains.app.wallet.WalletHelper;
 import org.bitcoinj.core.*;
@@ -30,7 +31,7 @@ public class XRouterFeeUtils {
 
 		if (!feeMap.containsKey(xRouterCommand)) {
 			LOGGER.log(Level.FINER, "[xrouter-fee-utils] WARNING: Invalid/unknown XRouter command supplied to getXRouterFeeTx()! Assuming this command is free.");
-			LOGGER.log(Level.FINER, "[xrouter-fee-utils] Command: " + xRouterCommand);
+			CCLogger.log(Level.FINER, "[xrouter-fee-utils] Command: ", xRouterCommand);
 
 			return "nohash;nofee";
 		}
@@ -74,7 +75,7 @@ public class XRouterFeeUtils {
 		String feetx = new String(Hex.encode(xRouterFeeTx.bitcoinSerialize()));
 		LOGGER.log(Level.FINER, "[xrouter-fee-utils] XRouter fee transaction string representation:");
 		LOGGER.log(Level.FINER, xRouterFeeTx.toString());
-		LOGGER.log(Level.FINER, "[xrouter-fee-utils] DEBUG: Feetx: " + feetx);
+		CCLogger.log(Level.FINER, "[xrouter-fee-utils] DEBUG: Feetx: ", feetx);
 		return feetx;
 	}
 
@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 import com.subgraph.orchid.encoders.Hex;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetParameters;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetPeer;
+import io.cloudchains.app.util.CCLogger;
 import io.cloudchains.app.util.XRouterConfiguration;
 import org.bitcoinj.core.Message;
 import org.bitcoinj.core.ProtocolException;
@@ -128,7 +129,7 @@ public class XRouterMessage extends Message {
 				break;
 			}
 			case "xrGetReply": {
-				LOGGER.log(Level.FINER, "[xrouter-message] DEBUG: Fetching reply for packet " + xRouterHeader.getUUID());
+				CCLogger.log(Level.FINER, "[xrouter-message] DEBUG: Fetching reply for packet ", xRouterHeader.getUUID());
 				break;
 			}
 			case "xrGetConfig": {
@@ -211,12 +212,12 @@ public class XRouterMessage extends Message {
 			}
 			case "xrService": {
 				String command = (String) parsedData.get("command");
-				LOGGER.log(Level.FINER, "[xrService] Command: " + command);
+				CCLogger.log(Level.FINER, "[xrService] Command: ", command);
 
 				XRouterConfiguration.XRouterPluginConfiguration pluginConfig = blocknetPeer.getPluginConfig(command);
 
 				if (pluginConfig == null) {
-					LOGGER.log(Level.FINER, "[xrService] ERROR: Unsupported server xrs plugin: " + command);
+					CCLogger.log(Level.FINER, "[xrService] ERROR: Unsupported server xrs plugin: ", command);
 					LOGGER.log(Level.FINER, "[xrService] ERROR: Aborting transmission.");
 					throw new IllegalArgumentException("Unsupported server xrs plugin: " + command);
 				}
@@ -240,7 +241,8 @@ public class XRouterMessage extends Message {
 					if (!(param instanceof String && ((String) param).equalsIgnoreCase("true") || ((String) param).equalsIgnoreCase("false")))
 						Preconditions.checkState(paramClass.isInstance(param), "Supplied parameter at index " + i + " is not of type '" + classStr + "'. Aborting transmission.");
 
-					LOGGER.log(Level.FINER, "[xrService] DEBUG: Parameter " + i + " is of type " + classStr);
+					if (LOGGER.isLoggable(Level.FINER))
+						LOGGER.log(Level.FINER, "[xrService] DEBUG: Parameter " + i + " is of type " + classStr);
 
 					switch (classStr) {
 						case "string": {
@@ -266,7 +268,8 @@ public class XRouterMessage extends Message {
 							break;
 						}
 						default: {
-							LOGGER.log(Level.FINER, "[xrService] ERROR: Encountered unhandled parameter of type " + classStr + ". Aborting transmission.");
+							if (LOGGER.isLoggable(Level.FINER))
+								LOGGER.log(Level.FINER, "[xrService] ERROR: Encountered unhandled parameter of type " + classStr + ". Aborting transmission.");
 							throw new IllegalStateException("Bad parameter type at index " + i + ": " + classStr);
 						}
 					}
@@ -319,7 +322,8 @@ public class XRouterMessage extends Message {
 	protected void parse() throws ProtocolException {
 		parsedData.put("header", xRouterHeader);
 
-		LOGGER.log(Level.FINER, "Received raw XRouter packet: " + new String(Hex.encode(data)));
+		if (LOGGER.isLoggable(Level.FINER))
+			LOGGER.log(Level.FINER, "Received raw XRouter packet: " + new String(Hex.encode(data)));
 		ByteBuffer buf = ByteBuffer.wrap(data);
 		buf.position(xRouterHeader.getHeaderLength());
 
@@ -330,7 +334,8 @@ public class XRouterMessage extends Message {
 			case "xrConfigReply": {
 				String reply = readStringNT(buf);
 				parsedData.put("reply", reply);
-				LOGGER.log(Level.FINER, "[xrouter-message] Got reply: '" + reply + "' for packet with UUID '" + xRouterHeader.getUUID() + "'");
+				if (LOGGER.isLoggable(Level.FINER))
+					LOGGER.log(Level.FINER, "[xrouter-message] Got reply: '" + reply + "' for packet with UUID '" + xRouterHeader.getUUID() + "'");
 				break;
 			}
 			case "xrGetReply": {
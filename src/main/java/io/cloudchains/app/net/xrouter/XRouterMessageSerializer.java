@@ -110,7 +110,8 @@ public class XRouterMessageSerializer extends MessageSerializer {
 		out.write(header);
 		out.write(data);
 
-		LOGGER.log(Level.FINER, "[blocknet-serializer] Serialized xrouter message. Bytes: " + new String(Hex.encode(header)) + new String(Hex.encode(data)));
+		if (LOGGER.isLoggable(Level.FINER))
+			LOGGER.log(Level.FINER, "[blocknet-serializer] Serialized xrouter message. Bytes: " + new String(Hex.encode(header)) + new String(Hex.encode(data)));
 	}
 
 	/**
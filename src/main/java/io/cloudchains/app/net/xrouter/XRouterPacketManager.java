@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 import com.subgraph.orchid.encoders.Hex;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetParameters;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetPeer;
+import io.cloudchains.app.util.CCLogger;
 import org.bitcoinj.core.ECKey;
 import org.bitcoinj.core.Sha256Hash;
 import org.bitcoinj.core.Utils;
@@ -34,31 +35,36 @@ public class XRouterPacketManager {
 		return XROUTER_PACKET_VERSION;
 	}
 
-	private byte[] signPacket(byte[] packetBytes, ECKey ecPrivateKey) {
-		LOGGER.log(Level.FINER, "[xrouter] DEBUG: Packet bytes: " + new String(Hex.encode(packetBytes)));
+	byte[] signPacket(byte[] packetBytes, ECKey ecPrivateKey) {
+		if (LOGGER.isLoggable(Level.FINER))
+			LOGGER.log(Level.FINER, "[xrouter] DEBUG: Packet bytes: " + new String(Hex.encode(packetBytes)));
 		Sha256Hash packetHash = Sha256Hash.wrap(Sha256Hash.hash(packetBytes));
-		LOGGER.log(Level.FINER, "[xrouter] DEBUG: Packet byte hash: " + packetHash.toString());
+		CCLogger.log(Level.FINER, "[xrouter] DEBUG: Packet byte hash: ", packetHash);
 		ECKey.ECDSASignature rawSignature = ecPrivateKey.sign(packetHash).toCanonicalised();
 
 		byte[] r = rawSignature.r.toByteArray();
 		byte[] s = rawSignature.s.toByteArray();
 
 		if (r.length > 32) {
-			LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature R is greater than 32 bytes! Trimming from the beginning. Size: " + r.length);
-			LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature R: " + new String(Hex.encode(r)));
+			CCLogger.log(Level.FINER, "[xrouter] WARNING: Signature R is greater than 32 bytes! Trimming from the beginning. Size: ", r.length);
+			if (LOGGER.isLoggable(Level.FINER))
+				LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature R: " + new String(Hex.encode(r)));
 		} else if (r.length < 32) {
-			LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature R is less than 32 bytes! Prepending null bytes to the beginning. Size: " + s.length);
-			LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature R: " + new String(Hex.encode(r)));
+			CCLogger.log(Level.FINER, "[xrouter] WARNING: Signature R is less than 32 bytes! Prepending null bytes to the beginning. Size: ", s.length);
+			if (LOGGER.isLoggable(Level.FINER))
+				LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature R: " + new String(Hex.encode(r)));
 
 			r = prependNullTo32(r);
 		}
 
 		if (s.length > 32) {
-			LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature S is greater than 32 bytes! Trimming from the beginning. Size: " + s.length);
-			LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature S: " + new String(Hex.encode(s)));
+			CCLogger.log(Level.FINER, "[xrouter] WARNING: Signature S is greater than 32 bytes! Trimming from the beginning. Size: ", s.length);
+			if (LOGGER.isLoggable(Level.FINER))
+				LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature S: " + new String(Hex.encode(s)));
 		} else if (s.length < 32) {
-			LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature S is less than 32 bytes! Prepending null bytes. Size: " + s.length);
-			LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature S: " + new String(Hex.encode(s)));
+			CCLogger.log(Level.FINER, "[xrouter] WARNING: Signature S is less than 32 bytes! Prepending null bytes. Size: ", s.length);
+			if (LOGGER.isLoggable(Level.FINER))
+				LOGGER.log(Level.FINER, "[xrouter] WARNING: Signature S: " + new String(Hex.encode(s)));
 
 			s = prependNullTo32(s);
 		}
@@ -68,7 +74,8 @@ public class XRouterPacketManager {
 		System.arraycopy(r, r.length - 32, signature, 0, 32);
 		System.arraycopy(s, s.length - 32, signature, 32, 32);
 
-		LOGGER.log(Level.FINER, "[xrouter] Signature: " + new String(Hex.encode(signature)) + ", byte length " + signature.length);
+		if (LOGGER.isLoggable(Level.FINER))
+			LOGGER.log(Level.FINER, "[xrouter] Signature: " + new String(Hex.encode(signature)) + ", byte length " + signature.length);
 
 		return signature;
 	}
@@ -147,7 +154,7 @@ public class XRouterPacketManager {
 
 		System.arraycopy(new byte[64], 0, xRouterHeaderBytes, cursor, 64);
 		cursor += 64;
-		LOGGER.log(Level.FINER, "[xrouter] Serialized XRouter header. Cursor is at " + cursor);
+		CCLogger.log(Level.FINER, "[xrouter] Serialized XRouter header. Cursor is at ", cursor);
 
 		LOGGER.log(Level.FINER, "[xrouter] Serializing XRouter message (phase 1).");
 		XRouterPacketHeader xRouterHeader = new XRouterPacketHeader(ByteBuffer.wrap(xRouterHeaderBytes));
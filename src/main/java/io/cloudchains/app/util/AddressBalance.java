@@ -1,25 +1,23 @@
 package io.cloudchains.app.util;
 
 import com.google.common.base.Preconditions;
-import com.google.common.util.concurrent.AtomicDouble;
 import org.bitcoinj.core.Address;
 import org.bitcoinj.core.DumpedPrivateKey;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
 public class AddressBalance {
 	private Address address;
 	private DumpedPrivateKey privateKey;
 	private AtomicReference<String> addrProp = null;
-	private AtomicDouble balanceProp = null;
-	private ArrayList<UTXO> utxos = null;
+	private final WalletStore walletStore;
 
-	public AddressBalance(Address address, DumpedPrivateKey privateKey) {
+	public AddressBalance(Address address, DumpedPrivateKey privateKey, WalletStore walletStore) {
 		this.address = address;
 		this.privateKey = privateKey;
+		this.walletStore = walletStore;
 		setAddrProp(address.toBase58());
 	}
 
@@ -41,18 +39,11 @@ public class AddressBalance {
 		return addrProp;
 	}
 
+	/**
+	 * @return Unspent balance in coins
+	 */
 	public double getBalanceProp() {
-		return balanceProperty().get();
-	}
-
-	private void setBalanceProp(double value) {
-		balanceProperty().set(value);
-	}
-
-	public AtomicDouble balanceProperty() {
-		if (balanceProp == null)
-			balanceProp = new AtomicDouble(0);
-		return balanceProp;
+		return walletStore.get().getBalance(getAddrProp()) / 100000000.0;
 	}
 
 	public DumpedPrivateKey getPrivateKey() {
@@ -60,80 +51,34 @@ public class AddressBalance {
 	}
 
 	public void clearUtxos() {
-		if (utxos == null)
-			return;
-
-		utxos.removeIf(utxo -> !utxo.isSpent());
+		walletStore.update(builder -> {
+			builder.clearUnspent(getAddrProp());
+			return null;
+		});
 	}
 
 	public boolean addUtxo(UTXO utxo) {
 		Preconditions.checkNotNull(utxo);
-		if (this.utxos == null)
-			this.utxos = new ArrayList<>();
 
 		// Only add UTXO's that do not exist in our wallet
-		UTXO bUtxo = getUtxo(utxo.getTxid(), utxo.getVout());
-		if (bUtxo == null)
-			this.utxos.add(utxo);
-		else
-			return false;
-
-		calculateBalance();
-		return true;
+		return walletStore.addUtxo(utxo);
 	}
 
 	public void setUtxos(ArrayList<UTXO> recvUtxos) {
-		ArrayList<UTXO> newUtxos = new ArrayList<>();
-
-		if (this.utxos != null && this.utxos.size() > 0) {
-			for (UTXO utxo : recvUtxos) {
-				for (UTXO bUtxo : this.utxos) {
-					if (!utxo.getTxid().equals(bUtxo.getTxid()) || utxo.getVout() != bUtxo.getVout()) {
-						newUtxos.add(utxo);
-					}
-				}
-			}
-
-			if (newUtxos.size() > 0) {
-				this.utxos = newUtxos;
-			}
-		} else {
-			this.utxos = recvUtxos;
-		}
-
-		calculateBalance();
-	}
-
-	private UTXO getUtxo(String txid, int vout) {
-		return utxos.stream().filter(o -> o.getTxid().equals(txid) && o.getVout() == vout).findFirst().orElse(null);
+		walletStore.update(builder -> {
+			builder.clearUnspent(getAddrProp());
+			for (UTXO utxo : recvUtxos)
+				builder.addUtxo(utxo);
+			return null;
+		});
 	}
 
 	public List<UTXO> getSpentUtxos() {
-		if (utxos == null)
-			utxos = new ArrayList<>();
-
-		return utxos.stream().filter(UTXO::isSpent).collect(Collectors.toList());
+		return walletStore.get().getSpent(getAddrProp());
 	}
 
 	public List<UTXO> getUtxos() {
-		if (utxos == null)
-			utxos = new ArrayList<>();
-
-		return utxos.stream().filter(utxo -> !utxo.isSpent()).collect(Collectors.toList());
-	}
-
-	public void calculateBalance() {
-		Preconditions.checkNotNull(utxos);
-		double balance = 0;
-
-		for (UTXO utxo : utxos) {
-			if (!utxo.isSpent()) {
-				balance += utxo.getValue();
-			}
-		}
-
-		balance /= 100000000.0;
-		setBalanceProp(balance);
+		return walletStore.get().getUnspent(getAddrProp());
 	}
 
 }
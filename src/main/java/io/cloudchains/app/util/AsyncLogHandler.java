@@ -0,0 +1,154 @@
+package io.cloudchains.app.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Hands log records to a writer thread, so event loop and RPC worker threads
+ * do not format or write to the console and log file themselves. When the queue
+ * is full records below WARNING are dropped and counted, warnings and errors
+ * wait for room.
+ */
+public class AsyncLogHandler extends Handler {
+	private static final int DEFAULT_CAPACITY = 8192;
+	private static final long CLOSE_TIMEOUT_MS = 5000;
+	private static final LogRecord STOP = new LogRecord(Level.OFF, "");
+
+	private final Handler[] delegates;
+	private final ArrayBlockingQueue<LogRecord> queue;
+	private final AtomicLong dropped = new AtomicLong();
+	private final Thread writer;
+
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	public AsyncLogHandler(Handler... delegates) {
+		this(DEFAULT_CAPACITY, delegates);
+	}
+
+	/**
+	 * @param capacity Records queued before low level records are dropped
+	 * @param delegates Handlers the records are written to, each keeps its own level
+	 */
+	public AsyncLogHandler(int capacity, Handler... delegates) {
+		this.delegates = delegates.clone();
+		this.queue = new ArrayBlockingQueue<>(capacity);
+
+		Level level = Level.OFF;
+		for (Handler delegate : delegates) {
+			if (delegate.getLevel().intValue() < level.intValue())
+				level = delegate.getLevel();
+		}
+		setLevel(level);
+
+		writer = new Thread(this::drain, "log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (record == null || !isLoggable(record))
+			return;
+
+		if (closed.get()) {
+			write(record);
+			return;
+		}
+
+		// The caller is inferred from the stack on first access, which is only the
+		// logging thread's stack here
+		record.getSourceClassName();
+		record.getSourceMethodName();
+
+		if (queue.offer(record))
+			return;
+
+		if (record.getLevel().intValue() < Level.WARNING.intValue()) {
+			dropped.incrementAndGet();
+			return;
+		}
+
+		try {
+			queue.put(record);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			write(record);
+		}
+	}
+
+	/**
+	 * @return Records dropped because the queue was full
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	@Override
+	public void flush() {
+		for (Handler delegate : delegates)
+			delegate.flush();
+	}
+
+	/**
+	 * Writes out the queued records and closes the delegates.
+	 */
+	@Override
+	public void close() {
+		if (!closed.compareAndSet(false, true))
+			return;
+
+		try {
+			queue.put(STOP);
+			writer.join(CLOSE_TIMEOUT_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		LogRecord record;
+		while ((record = queue.poll()) != null) {
+			if (record != STOP)
+				write(record);
+		}
+		reportDropped();
+
+		for (Handler delegate : delegates)
+			delegate.close();
+	}
+
+	private void drain() {
+		try {
+			while (true) {
+				LogRecord record = queue.take();
+				if (record == STOP)
+					return;
+
+				write(record);
+				if (queue.isEmpty())
+					reportDropped();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void reportDropped() {
+		long count = dropped.getAndSet(0);
+		if (count > 0)
+			write(new LogRecord(Level.WARNING, "[logging] Dropped " + count + " log records, the log queue was full."));
+	}
+
+	private void write(LogRecord record) {
+		for (Handler delegate : delegates) {
+			try {
+				delegate.publish(record);
+			} catch (RuntimeException e) {
+				reportError(null, e, ErrorManager.WRITE_FAILURE);
+			}
+		}
+	}
+}
@@ -1,8 +1,19 @@
 package io.cloudchains.app.util;
 
 import java.io.*;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
 
+/**
+ * Logging facade for hot paths. Messages are only built once the level is known
+ * to be enabled, so disabled debug logging costs a level check and nothing else.
+ */
 public class CCLogger {
+    private final static LogManager LOGMANAGER = LogManager.getLogManager();
+    private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
     private static boolean isLogging;
 
     public static boolean isLoggingEnabled() {
@@ -21,4 +32,32 @@ public class CCLogger {
 
         isLogging = isEnabled;
     }
+
+    /**
+     * Guard for messages that take several statements to build.
+     */
+    public static boolean isLoggable(Level level) {
+        return LOGGER.isLoggable(level);
+    }
+
+    public static void log(Level level, Supplier<String> message) {
+        if (LOGGER.isLoggable(level))
+            LOGGER.log(level, message.get());
+    }
+
+    /**
+     * Logs message followed by value, concatenated only if the level is enabled.
+     */
+    public static void log(Level level, String message, Object value) {
+        if (LOGGER.isLoggable(level))
+            LOGGER.log(level, message + value);
+    }
+
+    /**
+     * Primitive variant of {@link #log(Level, String, Object)}, avoids boxing the value.
+     */
+    public static void log(Level level, String message, long value) {
+        if (LOGGER.isLoggable(level))
+            LOGGER.log(level, message + value);
+    }
 }
@@ -27,6 +27,49 @@ public class ConfigHelper {
 	private int rpcPort;
 	private int addressCount;
 
+	// Master-only tuning values (ignored in coin configuration files)
+	private boolean rpcAsyncDispatch;
+	private int rpcWorkerThreads;
+	private int rpcWorkerQueueSize;
+	private int httpMaxConnections;
+	private int httpIdleTimeout;
+	private int rawTxParallelism;
+	private int rawTxCacheSize;
+	private int txCacheConfirmations;
+	private int txCacheMaxSize;
+	private int cacheMaxStaleness;
+	private int rpcBatchSize;
+	private int rpcMaxBatchSize;
+	private int rpcIdleTimeout;
+	private int rpcMaxRequestsPerConnection;
+	private int rpcBossThreads;
+	private int rpcEventLoopThreads;
+	private boolean rpcNativeTransport;
+	private int rpcUnifiedPort;
+	private int rpcMaxRequestSize;
+	private int rpcMaxCallSize;
+
+	public static final boolean DEFAULT_RPC_ASYNC_DISPATCH = true;
+	public static final int DEFAULT_RPC_WORKER_THREADS = 32;
+	public static final int DEFAULT_RPC_WORKER_QUEUE_SIZE = 512;
+	public static final int DEFAULT_HTTP_MAX_CONNECTIONS = 32;
+	public static final int DEFAULT_HTTP_IDLE_TIMEOUT = 60;
+	public static final int DEFAULT_RAW_TX_PARALLELISM = 8;
+	public static final int DEFAULT_RAW_TX_CACHE_SIZE = 10000;
+	public static final int DEFAULT_TX_CACHE_CONFIRMATIONS = 6;
+	public static final int DEFAULT_TX_CACHE_MAX_SIZE = 256;
+	public static final int DEFAULT_CACHE_MAX_STALENESS = 0;
+	public static final int DEFAULT_RPC_BATCH_SIZE = 50;
+	public static final int DEFAULT_RPC_MAX_BATCH_SIZE = 100;
+	public static final int DEFAULT_RPC_IDLE_TIMEOUT = 60;
+	public static final int DEFAULT_RPC_MAX_REQUESTS_PER_CONNECTION = 1000;
+	public static final int DEFAULT_RPC_BOSS_THREADS = 1;
+	public static final int DEFAULT_RPC_EVENT_LOOP_THREADS = 0;
+	public static final boolean DEFAULT_RPC_NATIVE_TRANSPORT = true;
+	public static final int DEFAULT_RPC_UNIFIED_PORT = 0;
+	public static final int DEFAULT_RPC_MAX_REQUEST_SIZE = 4096;
+	public static final int DEFAULT_RPC_MAX_CALL_SIZE = 64;
+
 	// Override specific configuration directory (useful in unit tests)
 	public static String CONFIG_DIR = ""; // Must not end with [/], e.g. /home/user/.config, not /home/user/.config/
 
@@ -56,6 +99,7 @@ public class ConfigHelper {
 					rpcPort = -1000;
 				}
 				addressCount = 0;
+				loadMasterDefaults();
 
 				writeConfig();
 				return;
@@ -86,18 +130,71 @@ public class ConfigHelper {
 			rpcPassword = config.getString("rpcPassword");
 			rpcPort = config.getInt("rpcPort");
 
-			if (!config.has("addressCount")) {
+			boolean missingAddressCount = !config.has("addressCount");
+			if (missingAddressCount)
 				setAddressCount(0);
-				writeConfig();
-			} else {
+			else
 				addressCount = config.getInt("addressCount");
+
+			if (isMaster()) {
+				rpcAsyncDispatch = config.optBoolean("rpcAsyncDispatch", DEFAULT_RPC_ASYNC_DISPATCH);
+				rpcWorkerThreads = config.optInt("rpcWorkerThreads", DEFAULT_RPC_WORKER_THREADS);
+				rpcWorkerQueueSize = config.optInt("rpcWorkerQueueSize", DEFAULT_RPC_WORKER_QUEUE_SIZE);
+				httpMaxConnections = config.optInt("httpMaxConnections", DEFAULT_HTTP_MAX_CONNECTIONS);
+				httpIdleTimeout = config.optInt("httpIdleTimeout", DEFAULT_HTTP_IDLE_TIMEOUT);
+				rawTxParallelism = config.optInt("rawTxParallelism", DEFAULT_RAW_TX_PARALLELISM);
+				rawTxCacheSize = config.optInt("rawTxCacheSize", DEFAULT_RAW_TX_CACHE_SIZE);
+				txCacheConfirmations = config.optInt("txCacheConfirmations", DEFAULT_TX_CACHE_CONFIRMATIONS);
+				txCacheMaxSize = config.optInt("txCacheMaxSize", DEFAULT_TX_CACHE_MAX_SIZE);
+				cacheMaxStaleness = config.optInt("cacheMaxStaleness", DEFAULT_CACHE_MAX_STALENESS);
+				rpcBatchSize = config.optInt("rpcBatchSize", DEFAULT_RPC_BATCH_SIZE);
+				rpcMaxBatchSize = config.optInt("rpcMaxBatchSize", DEFAULT_RPC_MAX_BATCH_SIZE);
+				rpcIdleTimeout = config.optInt("rpcIdleTimeout", DEFAULT_RPC_IDLE_TIMEOUT);
+				rpcMaxRequestsPerConnection = config.optInt("rpcMaxRequestsPerConnection", DEFAULT_RPC_MAX_REQUESTS_PER_CONNECTION);
+				rpcBossThreads = config.optInt("rpcBossThreads", DEFAULT_RPC_BOSS_THREADS);
+				rpcEventLoopThreads = config.optInt("rpcEventLoopThreads", DEFAULT_RPC_EVENT_LOOP_THREADS);
+				rpcNativeTransport = config.optBoolean("rpcNativeTransport", DEFAULT_RPC_NATIVE_TRANSPORT);
+				rpcUnifiedPort = config.optInt("rpcUnifiedPort", DEFAULT_RPC_UNIFIED_PORT);
+				rpcMaxRequestSize = config.optInt("rpcMaxRequestSize", DEFAULT_RPC_MAX_REQUEST_SIZE);
+				rpcMaxCallSize = config.optInt("rpcMaxCallSize", DEFAULT_RPC_MAX_CALL_SIZE);
 			}
+
+			// Written only once every field is loaded, so the master tuning values are not reset
+			if (missingAddressCount)
+				writeConfig();
 		} catch (Exception e) {
 			LOGGER.log(Level.FINER, "[config] ERROR: Error while reading config file!");
 			e.printStackTrace();
 		}
 	}
 
+	private void loadMasterDefaults() {
+		rpcAsyncDispatch = DEFAULT_RPC_ASYNC_DISPATCH;
+		rpcWorkerThreads = DEFAULT_RPC_WORKER_THREADS;
+		rpcWorkerQueueSize = DEFAULT_RPC_WORKER_QUEUE_SIZE;
+		httpMaxConnections = DEFAULT_HTTP_MAX_CONNECTIONS;
+		httpIdleTimeout = DEFAULT_HTTP_IDLE_TIMEOUT;
+		rawTxParallelism = DEFAULT_RAW_TX_PARALLELISM;
+		rawTxCacheSize = DEFAULT_RAW_TX_CACHE_SIZE;
+		txCacheConfirmations = DEFAULT_TX_CACHE_CONFIRMATIONS;
+		txCacheMaxSize = DEFAULT_TX_CACHE_MAX_SIZE;
+		cacheMaxStaleness = DEFAULT_CACHE_MAX_STALENESS;
+		rpcBatchSize = DEFAULT_RPC_BATCH_SIZE;
+		rpcMaxBatchSize = DEFAULT_RPC_MAX_BATCH_SIZE;
+		rpcIdleTimeout = DEFAULT_RPC_IDLE_TIMEOUT;
+		rpcMaxRequestsPerConnection = DEFAULT_RPC_MAX_REQUESTS_PER_CONNECTION;
+		rpcBossThreads = DEFAULT_RPC_BOSS_THREADS;
+		rpcEventLoopThreads = DEFAULT_RPC_EVENT_LOOP_THREADS;
+		rpcNativeTransport = DEFAULT_RPC_NATIVE_TRANSPORT;
+		rpcUnifiedPort = DEFAULT_RPC_UNIFIED_PORT;
+		rpcMaxRequestSize = DEFAULT_RPC_MAX_REQUEST_SIZE;
+		rpcMaxCallSize = DEFAULT_RPC_MAX_CALL_SIZE;
+	}
+
+	private boolean isMaster() {
+		return tickerStr.equalsIgnoreCase("master");
+	}
+
 	private File getFile() {
 		String userHome = getLocalDataDirectory();
 		Preconditions.checkNotNull(userHome);
@@ -189,6 +286,113 @@ public class ConfigHelper {
 		return addressCount;
 	}
 
+	public boolean isRpcAsyncDispatch() {
+		return rpcAsyncDispatch;
+	}
+
+	public int getRpcWorkerThreads() {
+		return rpcWorkerThreads;
+	}
+
+	public int getRpcWorkerQueueSize() {
+		return rpcWorkerQueueSize;
+	}
+
+	public int getHttpMaxConnections() {
+		return Math.max(1, httpMaxConnections);
+	}
+
+	public int getHttpIdleTimeout() {
+		return Math.max(1, httpIdleTimeout);
+	}
+
+	public int getRawTxParallelism() {
+		return Math.max(1, rawTxParallelism);
+	}
+
+	public int getRawTxCacheSize() {
+		return Math.max(0, rawTxCacheSize);
+	}
+
+	public int getTxCacheConfirmations() {
+		return Math.max(1, txCacheConfirmations);
+	}
+
+	/**
+	 * @return Size bound of each coin's transaction store in bytes, 0 if disabled
+	 */
+	public long getTxCacheMaxSize() {
+		return Math.max(0, txCacheMaxSize) * 1024L * 1024L;
+	}
+
+	/**
+	 * @return Age in milliseconds up to which cached utxos and history are served while refreshing, 0 if disabled
+	 */
+	public long getCacheMaxStaleness() {
+		return Math.max(0, cacheMaxStaleness) * 1000L;
+	}
+
+	/**
+	 * @return Maximum calls per JSON-RPC batch request to the backend, 1 if batching is disabled
+	 */
+	public int getRpcBatchSize() {
+		return Math.max(1, rpcBatchSize);
+	}
+
+	/**
+	 * @return Maximum calls accepted in one JSON-RPC batch request by the coin RPC servers
+	 */
+	public int getRpcMaxBatchSize() {
+		return Math.max(1, rpcMaxBatchSize);
+	}
+
+	/**
+	 * @return Seconds before an idle RPC client connection is closed
+	 */
+	public int getRpcIdleTimeout() {
+		return Math.max(1, rpcIdleTimeout);
+	}
+
+	public int getRpcMaxRequestsPerConnection() {
+		return Math.max(1, rpcMaxRequestsPerConnection);
+	}
+
+	public int getRpcBossThreads() {
+		return Math.max(1, rpcBossThreads);
+	}
+
+	/**
+	 * @return Event loop threads shared by the RPC servers, 0 for one per core
+	 */
+	public int getRpcEventLoopThreads() {
+		return Math.max(0, rpcEventLoopThreads);
+	}
+
+	public boolean isRpcNativeTransport() {
+		return rpcNativeTransport;
+	}
+
+	/**
+	 * @return Port of the unified RPC listener serving all coins, 0 if disabled
+	 */
+	public int getRpcUnifiedPort() {
+		return Math.max(0, rpcUnifiedPort);
+	}
+
+	/**
+	 * @return Maximum RPC request body in bytes
+	 */
+	public int getRpcMaxRequestSize() {
+		return Math.min(Math.max(1, rpcMaxRequestSize), 1024 * 1024) * 1024;
+	}
+
+	/**
+	 * @return Maximum request body in bytes for calls that do not carry transactions
+	 */
+	public int getRpcMaxCallSize() {
+		return Math.min(Math.max(1, rpcMaxCallSize) * 1024, getRpcMaxRequestSize());
+	}
+
 	public boolean validAuth() {
 		return rpcUsername != null && !rpcUsername.equals("") && rpcPassword != null && !rpcPassword.equals("");
 	}
@@ -206,6 +410,29 @@ public class ConfigHelper {
 			config.put("rpcPort", rpcPort);
 			config.put("addressCount", addressCount);
 
+			if (isMaster()) {
+				config.put("rpcAsyncDispatch", rpcAsyncDispatch);
+				config.put("rpcWorkerThreads", rpcWorkerThreads);
+				config.put("rpcWorkerQueueSize", rpcWorkerQueueSize);
+				config.put("httpMaxConnections", httpMaxConnections);
+				config.put("httpIdleTimeout", httpIdleTimeout);
+				config.put("rawTxParallelism", rawTxParallelism);
+				config.put("rawTxCacheSize", rawTxCacheSize);
+				config.put("txCacheConfirmations", txCacheConfirmations);
+				config.put("txCacheMaxSize", txCacheMaxSize);
+				config.put("cacheMaxStaleness", cacheMaxStaleness);
+				config.put("rpcBatchSize", rpcBatchSize);
+				config.put("rpcMaxBatchSize", rpcMaxBatchSize);
+				config.put("rpcIdleTimeout", rpcIdleTimeout);
+				config.put("rpcMaxRequestsPerConnection", rpcMaxRequestsPerConnection);
+				config.put("rpcBossThreads", rpcBossThreads);
+				config.put("rpcEventLoopThreads", rpcEventLoopThreads);
+				config.put("rpcNativeTransport", rpcNativeTransport);
+				config.put("rpcUnifiedPort", rpcUnifiedPort);
+				config.put("rpcMaxRequestSize", rpcMaxRequestSize);
+				config.put("rpcMaxCallSize", rpcMaxCallSize);
+			}
+
 			fileWriter.write(config.toString(4));
 			fileWriter.flush();
 			fileWriter.close();
@@ -0,0 +1,58 @@
+package io.cloudchains.app.util;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Transaction output reference, txid bytes in the same order as the hex string.
+ */
+public final class Outpoint {
+	private final byte[] txid;
+	private final int vout;
+	private final int hash;
+
+	public Outpoint(byte[] txid, int vout) {
+		this.txid = txid;
+		this.vout = vout;
+		this.hash = 31 * Arrays.hashCode(txid) + vout;
+	}
+
+	public Outpoint(String txid, int vout) {
+		this(Utils.HEX.decode(txid), vout);
+	}
+
+	public Outpoint(Sha256Hash txid, long vout) {
+		this(txid.getBytes(), (int) vout);
+	}
+
+	public byte[] getTxid() {
+		return txid;
+	}
+
+	public int getVout() {
+		return vout;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof Outpoint))
+			return false;
+
+		Outpoint other = (Outpoint) o;
+		return vout == other.vout && Arrays.equals(txid, other.txid);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return Utils.HEX.encode(txid) + ":" + vout;
+	}
+}
@@ -0,0 +1,62 @@
+package io.cloudchains.app.util;
+
+import io.cloudchains.app.net.CoinInstance;
+import io.cloudchains.app.net.CoinTicker;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptBuilder;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Address and output script shared by every utxo paying to that address. Instances
+ * are interned per coin, the script is built once on first use.
+ */
+public final class OutputScript {
+	private static final ConcurrentHashMap<CoinTicker, ConcurrentHashMap<String, OutputScript>> interned = new ConcurrentHashMap<>();
+
+	private final CoinTicker ticker;
+	private final String address;
+	private volatile Script script;
+	private volatile String scriptHex;
+
+	private OutputScript(CoinTicker ticker, String address) {
+		this.ticker = ticker;
+		this.address = address;
+	}
+
+	public static OutputScript intern(CoinTicker ticker, String address) {
+		return interned.computeIfAbsent(ticker, t -> new ConcurrentHashMap<>())
+				.computeIfAbsent(address, a -> new OutputScript(ticker, a));
+	}
+
+	public CoinTicker getTicker() {
+		return ticker;
+	}
+
+	public String getAddress() {
+		return address;
+	}
+
+	public Script getScript() {
+		Script result = script;
+		if (result == null) {
+			Address parsed = Address.fromBase58(CoinInstance.getInstance(ticker).getNetworkParameters(), address);
+			result = ScriptBuilder.createOutputScript(parsed);
+			script = result;
+		}
+
+		return result;
+	}
+
+	public String getScriptHex() {
+		String result = scriptHex;
+		if (result == null) {
+			result = Utils.HEX.encode(getScript().getProgram());
+			scriptHex = result;
+		}
+
+		return result;
+	}
+}
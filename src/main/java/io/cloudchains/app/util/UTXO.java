@@ -1,74 +1,71 @@
 package io.cloudchains.app.util;
 
-import com.google.gson.annotations.SerializedName;
-import io.cloudchains.app.net.CoinInstance;
 import io.cloudchains.app.net.CoinTicker;
-import org.bitcoinj.core.Address;
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.Sha256Hash;
-import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.Utils;
 import org.bitcoinj.script.Script;
-import org.bitcoinj.script.ScriptBuilder;
 
+/**
+ * Wallet utxo. The txid is kept as raw bytes inside the outpoint and the address
+ * and output script are shared with every other utxo paying to the same address.
+ * Immutable, whether it is spent is recorded in the WalletState.
+ */
 public class UTXO {
-	@SerializedName("address") private String addressB58;
-	@SerializedName("txhash") private String txid;
-	@SerializedName("block_number") private int height;
-	protected transient long value;
-	private int vout;
-	private boolean spent;
-	protected CoinTicker ticker;
+	private final Outpoint outpoint;
+	private final OutputScript output;
+	private final int height;
+	private final long value;
 
 	public UTXO(CoinTicker ticker, String addressB58, String txid, int vout, int blockHeight, long value) {
-		this.addressB58 = addressB58;
-		this.txid = txid;
-		this.vout = vout;
+		this.outpoint = new Outpoint(txid, vout);
+		this.output = OutputScript.intern(ticker, addressB58);
 		this.height = blockHeight;
 		this.value = value;
-		this.spent = false;
-
-		this.ticker = ticker;
-	}
-
-	public void setSpent(boolean spentBool) {
-		spent = spentBool;
 	}
 
 	public String getAddress() {
-		return addressB58;
+		return output.getAddress();
 	}
 
 	public String getTxid() {
-		return txid;
+		return Utils.HEX.encode(outpoint.getTxid());
 	}
 
 	public long getValue() {
 		return value;
 	}
 
+	public Outpoint getOutpoint() {
+		return outpoint;
+	}
+
 	public int getVout() {
-		return vout;
+		return outpoint.getVout();
 	}
 
 	public int getHeight() {
 		return height;
 	}
 
-	public boolean isSpent() {
-		return spent;
-	}
-
 	public double getAmount() {
 		return getValue() / 100000000.0;
 	}
 
-	public org.bitcoinj.core.UTXO createUTXO() {
-		Address address = Address.fromBase58(CoinInstance.getInstance(this.ticker).getNetworkParameters(), getAddress());
+	/**
+	 * @return Output script paying to this utxo's address, shared and not to be modified
+	 */
+	public Script getScript() {
+		return output.getScript();
+	}
 
-		Script scriptForUTXO = ScriptBuilder.createOutputScript(address);
+	public String getScriptHex() {
+		return output.getScriptHex();
+	}
 
-		Sha256Hash sha256Hash = Sha256Hash.wrap(getTxid());
-		return new org.bitcoinj.core.UTXO(sha256Hash, getVout(), Coin.valueOf(getValue()), getHeight(), false, scriptForUTXO, getAddress());
+	public org.bitcoinj.core.UTXO createUTXO() {
+		Sha256Hash sha256Hash = Sha256Hash.wrap(outpoint.getTxid());
+		return new org.bitcoinj.core.UTXO(sha256Hash, getVout(), Coin.valueOf(getValue()), getHeight(), false, getScript(), getAddress());
 	}
 
 	public String toString() {
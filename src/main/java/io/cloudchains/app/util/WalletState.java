@@ -0,0 +1,379 @@
+package io.cloudchains.app.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable version of a coin's wallet: addresses, utxos keyed by outpoint and
+ * per-address unspent/spent views with their balance. Changes go through a
+ * {@link Builder} which copies only the parts it touches, the utxo maps are split
+ * into shards so a small change does not copy the whole set.
+ */
+public final class WalletState {
+	private static final int SHARDS = 64;
+
+	static final WalletState EMPTY = new WalletState(0, Collections.emptyList(), Collections.emptyMap(),
+			Collections.emptyMap(), emptyShards(), emptyShards(), Collections.emptyMap(), 0);
+
+	private final long version;
+	private final List<AddressBalance> addresses;
+	private final Map<String, AddressBalance> byAddress;
+	private final Map<ByteBuffer, AddressBalance> byHash160;
+	private final Map<Outpoint, UTXO>[] unspent;
+	private final Map<Outpoint, UTXO>[] spent;
+	private final Map<String, AddressUtxos> addressUtxos;
+	private final long totalBalance;
+
+	private WalletState(long version, List<AddressBalance> addresses, Map<String, AddressBalance> byAddress,
+						Map<ByteBuffer, AddressBalance> byHash160, Map<Outpoint, UTXO>[] unspent, Map<Outpoint, UTXO>[] spent,
+						Map<String, AddressUtxos> addressUtxos, long totalBalance) {
+		this.version = version;
+		this.addresses = addresses;
+		this.byAddress = byAddress;
+		this.byHash160 = byHash160;
+		this.unspent = unspent;
+		this.spent = spent;
+		this.addressUtxos = addressUtxos;
+		this.totalBalance = totalBalance;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return Addresses in the order they were added, not modifiable
+	 */
+	public List<AddressBalance> getAddresses() {
+		return addresses;
+	}
+
+	public AddressBalance getAddress(String addressB58) {
+		return addressB58 == null ? null : byAddress.get(addressB58);
+	}
+
+	public AddressBalance getAddressByHash160(byte[] hash160) {
+		return hash160 == null ? null : byHash160.get(ByteBuffer.wrap(hash160));
+	}
+
+	public UTXO getUtxo(Outpoint outpoint) {
+		UTXO utxo = unspent[shard(outpoint)].get(outpoint);
+		return utxo != null ? utxo : spent[shard(outpoint)].get(outpoint);
+	}
+
+	public UTXO getUnspent(Outpoint outpoint) {
+		return unspent[shard(outpoint)].get(outpoint);
+	}
+
+	public boolean isSpent(Outpoint outpoint) {
+		return spent[shard(outpoint)].containsKey(outpoint);
+	}
+
+	/**
+	 * @return Unspent utxos of an address, not modifiable
+	 */
+	public List<UTXO> getUnspent(String address) {
+		AddressUtxos view = addressUtxos.get(address);
+		return view == null ? Collections.emptyList() : view.unspent;
+	}
+
+	public List<UTXO> getSpent(String address) {
+		AddressUtxos view = addressUtxos.get(address);
+		return view == null ? Collections.emptyList() : view.spent;
+	}
+
+	/**
+	 * @return Unspent utxos of every address, in address order
+	 */
+	public List<UTXO> getAllUnspent() {
+		List<UTXO> utxos = new ArrayList<>();
+		for (AddressBalance address : addresses)
+			utxos.addAll(getUnspent(address.getAddrProp()));
+
+		return utxos;
+	}
+
+	/**
+	 * @return Unspent value of an address in satoshis
+	 */
+	public long getBalance(String address) {
+		AddressUtxos view = addressUtxos.get(address);
+		return view == null ? 0 : view.unspentValue;
+	}
+
+	/**
+	 * @return Unspent value of all tracked addresses in satoshis
+	 */
+	public long getTotalBalance() {
+		return totalBalance;
+	}
+
+	public int getUtxoCount() {
+		int count = 0;
+		for (int i = 0; i < SHARDS; i++)
+			count += unspent[i].size() + spent[i].size();
+
+		return count;
+	}
+
+	public int getUnspentCount() {
+		int count = 0;
+		for (int i = 0; i < SHARDS; i++)
+			count += unspent[i].size();
+
+		return count;
+	}
+
+	public Builder toBuilder() {
+		return new Builder(this);
+	}
+
+	private static int shard(Outpoint outpoint) {
+		return outpoint.hashCode() & (SHARDS - 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<Outpoint, UTXO>[] emptyShards() {
+		Map<Outpoint, UTXO>[] shards = new Map[SHARDS];
+		for (int i = 0; i < SHARDS; i++)
+			shards[i] = Collections.emptyMap();
+
+		return shards;
+	}
+
+	private static final class AddressUtxos {
+		private final List<UTXO> unspent;
+		private final List<UTXO> spent;
+		private final long unspentValue;
+
+		private AddressUtxos(List<UTXO> unspent, List<UTXO> spent, long unspentValue) {
+			this.unspent = unspent;
+			this.spent = spent;
+			this.unspentValue = unspentValue;
+		}
+	}
+
+	/**
+	 * Builds the next version. Not thread safe, WalletStore runs one builder at a time.
+	 */
+	public static final class Builder {
+		private final WalletState base;
+		private final Map<Outpoint, UTXO>[] unspent;
+		private final Map<Outpoint, UTXO>[] spent;
+		private final boolean[] unspentCopied = new boolean[SHARDS];
+		private final boolean[] spentCopied = new boolean[SHARDS];
+		private final Map<String, AddressBuilder> touched = new HashMap<>();
+
+		private List<AddressBalance> addresses;
+		private Map<String, AddressBalance> byAddress;
+		private Map<ByteBuffer, AddressBalance> byHash160;
+		private boolean changed = false;
+
+		private Builder(WalletState base) {
+			this.base = base;
+			this.addresses = base.addresses;
+			this.byAddress = base.byAddress;
+			this.byHash160 = base.byHash160;
+			this.unspent = base.unspent.clone();
+			this.spent = base.spent.clone();
+		}
+
+		/**
+		 * @return Version this builder started from, unaffected by its changes
+		 */
+		public WalletState getBase() {
+			return base;
+		}
+
+		public AddressBalance getAddress(String addressB58) {
+			return addressB58 == null ? null : byAddress.get(addressB58);
+		}
+
+		public UTXO getUtxo(Outpoint outpoint) {
+			UTXO utxo = unspent[shard(outpoint)].get(outpoint);
+			return utxo != null ? utxo : spent[shard(outpoint)].get(outpoint);
+		}
+
+		/**
+		 * @return false if the address is already tracked
+		 */
+		public boolean addAddress(AddressBalance addressBalance) {
+			ByteBuffer hash160 = ByteBuffer.wrap(addressBalance.getAddress().getHash160());
+			if (byHash160.containsKey(hash160))
+				return false;
+
+			if (addresses == base.addresses) {
+				addresses = new ArrayList<>(base.addresses);
+				byAddress = new HashMap<>(base.byAddress);
+				byHash160 = new HashMap<>(base.byHash160);
+			}
+
+			addresses.add(addressBalance);
+			byAddress.put(addressBalance.getAddrProp(), addressBalance);
+			byHash160.put(hash160, addressBalance);
+			changed = true;
+			return true;
+		}
+
+		/**
+		 * Adds a utxo unless its outpoint is already known, spent or not.
+		 * @return true if the utxo was added
+		 */
+		public boolean addUtxo(UTXO utxo) {
+			Outpoint outpoint = utxo.getOutpoint();
+			if (getUtxo(outpoint) != null)
+				return false;
+
+			writableUnspent(outpoint).put(outpoint, utxo);
+			address(utxo.getAddress()).addUnspent(utxo);
+			changed = true;
+			return true;
+		}
+
+		/**
+		 * Moves a utxo between the unspent and spent views of its address.
+		 * @return false if the outpoint is not in the wallet
+		 */
+		public boolean setSpent(Outpoint outpoint, boolean isSpent) {
+			UTXO utxo = getUtxo(outpoint);
+			if (utxo == null)
+				return false;
+			if (spent[shard(outpoint)].containsKey(outpoint) == isSpent)
+				return true;
+
+			AddressBuilder view = address(utxo.getAddress());
+			if (isSpent) {
+				writableUnspent(outpoint).remove(outpoint);
+				writableSpent(outpoint).put(outpoint, utxo);
+				view.markSpent(utxo);
+			} else {
+				writableSpent(outpoint).remove(outpoint);
+				writableUnspent(outpoint).put(outpoint, utxo);
+				view.markUnspent(utxo);
+			}
+
+			changed = true;
+			return true;
+		}
+
+		/**
+		 * Drops the unspent utxos of an address. Spent ones are kept so a backend that
+		 * has not seen the spending transaction yet cannot bring them back.
+		 */
+		public void clearUnspent(String address) {
+			if (!touched.containsKey(address) && base.getUnspent(address).isEmpty())
+				return;
+
+			AddressBuilder view = address(address);
+			for (Outpoint outpoint : view.unspent.keySet())
+				writableUnspent(outpoint).remove(outpoint);
+
+			view.unspent.clear();
+			view.unspentValue = 0;
+			changed = true;
+		}
+
+		public WalletState build() {
+			if (!changed)
+				return base;
+
+			Map<String, AddressUtxos> addressUtxos = base.addressUtxos;
+			if (!touched.isEmpty()) {
+				addressUtxos = new HashMap<>(base.addressUtxos);
+				for (Map.Entry<String, AddressBuilder> entry : touched.entrySet()) {
+					AddressBuilder view = entry.getValue();
+					if (view.unspent.isEmpty() && view.spent.isEmpty())
+						addressUtxos.remove(entry.getKey());
+					else
+						addressUtxos.put(entry.getKey(), view.build());
+				}
+			}
+
+			// Only balances of tracked addresses count towards the total
+			long totalBalance = base.totalBalance;
+			if (!touched.isEmpty() || addresses != base.addresses) {
+				totalBalance = 0;
+				for (AddressBalance address : addresses) {
+					AddressUtxos view = addressUtxos.get(address.getAddrProp());
+					if (view != null)
+						totalBalance += view.unspentValue;
+				}
+			}
+
+			return new WalletState(base.version + 1,
+					addresses == base.addresses ? addresses : Collections.unmodifiableList(addresses),
+					byAddress, byHash160, unspent, spent, addressUtxos, totalBalance);
+		}
+
+		private AddressBuilder address(String address) {
+			return touched.computeIfAbsent(address, a -> {
+				AddressUtxos view = base.addressUtxos.get(a);
+				return view == null ? new AddressBuilder() : new AddressBuilder(view);
+			});
+		}
+
+		private Map<Outpoint, UTXO> writableUnspent(Outpoint outpoint) {
+			int shard = shard(outpoint);
+			if (!unspentCopied[shard]) {
+				unspent[shard] = new HashMap<>(unspent[shard]);
+				unspentCopied[shard] = true;
+			}
+
+			return unspent[shard];
+		}
+
+		private Map<Outpoint, UTXO> writableSpent(Outpoint outpoint) {
+			int shard = shard(outpoint);
+			if (!spentCopied[shard]) {
+				spent[shard] = new HashMap<>(spent[shard]);
+				spentCopied[shard] = true;
+			}
+
+			return spent[shard];
+		}
+	}
+
+	private static final class AddressBuilder {
+		private final LinkedHashMap<Outpoint, UTXO> unspent = new LinkedHashMap<>();
+		private final LinkedHashMap<Outpoint, UTXO> spent = new LinkedHashMap<>();
+		private long unspentValue = 0;
+
+		private AddressBuilder() {
+		}
+
+		private AddressBuilder(AddressUtxos view) {
+			for (UTXO utxo : view.unspent)
+				unspent.put(utxo.getOutpoint(), utxo);
+			for (UTXO utxo : view.spent)
+				spent.put(utxo.getOutpoint(), utxo);
+			unspentValue = view.unspentValue;
+		}
+
+		private void addUnspent(UTXO utxo) {
+			unspent.put(utxo.getOutpoint(), utxo);
+			unspentValue += utxo.getValue();
+		}
+
+		private void markSpent(UTXO utxo) {
+			unspent.remove(utxo.getOutpoint());
+			spent.put(utxo.getOutpoint(), utxo);
+			unspentValue -= utxo.getValue();
+		}
+
+		private void markUnspent(UTXO utxo) {
+			spent.remove(utxo.getOutpoint());
+			unspent.put(utxo.getOutpoint(), utxo);
+			unspentValue += utxo.getValue();
+		}
+
+		private AddressUtxos build() {
+			return new AddressUtxos(Collections.unmodifiableList(new ArrayList<>(unspent.values())),
+					Collections.unmodifiableList(new ArrayList<>(spent.values())), unspentValue);
+		}
+	}
+}
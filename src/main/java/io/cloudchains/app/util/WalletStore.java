@@ -0,0 +1,48 @@
+package io.cloudchains.app.util;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Publishes the current WalletState of a coin. Readers take the current version
+ * without locking, writers are serialized and swap in the version they built.
+ */
+public class WalletStore {
+	private final AtomicReference<WalletState> state = new AtomicReference<>(WalletState.EMPTY);
+
+	public WalletState get() {
+		return state.get();
+	}
+
+	/**
+	 * Applies a change to the current version and publishes the result.
+	 * @param update Change to apply, its result is returned
+	 */
+	public synchronized <T> T update(Function<WalletState.Builder, T> update) {
+		WalletState.Builder builder = state.get().toBuilder();
+		T result = update.apply(builder);
+		state.set(builder.build());
+		return result;
+	}
+
+	public boolean addAddress(AddressBalance addressBalance) {
+		return update(builder -> builder.addAddress(addressBalance));
+	}
+
+	public boolean addUtxo(UTXO utxo) {
+		return update(builder -> builder.addUtxo(utxo));
+	}
+
+	public boolean setSpent(Outpoint outpoint, boolean spent) {
+		return update(builder -> builder.setSpent(outpoint, spent));
+	}
+
+	public void setSpent(Collection<Outpoint> outpoints, boolean spent) {
+		update(builder -> {
+			for (Outpoint outpoint : outpoints)
+				builder.setSpent(outpoint, spent);
+			return null;
+		});
+	}
+}
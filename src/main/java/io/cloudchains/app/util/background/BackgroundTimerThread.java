@@ -1,9 +1,9 @@
 package io.cloudchains.app.util.background;
 
-import io.cloudchains.app.App;
 import io.cloudchains.app.net.CoinInstance;
 import io.cloudchains.app.net.CoinTickerUtils;
 import io.cloudchains.app.net.api.http.client.HTTPClient;
+import io.cloudchains.app.net.api.http.client.HTTPClientRegistry;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetPeer;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetPeerGroup;
 import io.cloudchains.app.util.XRouterConfiguration;
@@ -24,12 +24,12 @@ public class BackgroundTimerThread implements Runnable {
 
 	private static final int KEEPALIVE_INTERVAL = 10000;
 	private static final int BALANCE_INTERVAL = 10000;
+	private static final int HISTORY_TIMEOUT = 60000;
 
 	private ExecutorService threadPool = Executors.newSingleThreadExecutor();
 
 	private BlocknetPeerGroup blocknetPeerGroup;
-	private HTTPClient feeUpdateHttpClient;
-	private HTTPClient heightUpdateHttpClient;
+	private HTTPClient httpClient;
 
 	private long lastKeepAliveTime;
 	private long lastBalanceUpdateTime;
@@ -39,8 +39,7 @@ public class BackgroundTimerThread implements Runnable {
 
 	public BackgroundTimerThread() {
 		blocknetPeerGroup = CoinInstance.getInstance(CoinInstance.getActiveBlocknetNetwork()).getBlocknetPeerGroup();
-		feeUpdateHttpClient = App.feeUpdateHttpClient;
-		heightUpdateHttpClient = App.heightUpdateHttpClient;
+		httpClient = HTTPClientRegistry.get();
 
 		lastKeepAliveTime = 0;
 		lastBalanceUpdateTime = 0;
@@ -77,8 +76,15 @@ public class BackgroundTimerThread implements Runnable {
 			return;
 
 		if (HTTP_BLOCK_COUNT_UPDATES) {
-			heightUpdateHttpClient.getAllBlockCounts();
-			feeUpdateHttpClient.getAllFees();
+			// Deadline matches the interval so polls never pile up behind a slow backend
+			httpClient.getAllBlockCountsAsync(KEEPALIVE_INTERVAL).exceptionally(e -> {
+				LOGGER.log(Level.WARNING, "[BackgroundTimer] Block count update failed: " + e);
+				return null;
+			});
+			httpClient.getAllFeesAsync(KEEPALIVE_INTERVAL).exceptionally(e -> {
+				LOGGER.log(Level.WARNING, "[BackgroundTimer] Fee update failed: " + e);
+				return null;
+			});
 		} else if (!blocknetPeerGroup.getConnectedPeers().isEmpty()) {
 			for (BlocknetPeer blocknetPeer : blocknetPeerGroup.getConnectedPeers()) {
 				XRouterConfiguration xRouterConfiguration = blocknetPeer.getxRouterConfiguration();
@@ -144,9 +150,10 @@ public class BackgroundTimerThread implements Runnable {
 			if (!CoinTickerUtils.isActiveTicker(coinInstance.getTicker()))
 				continue;
 
-			new Thread(() -> {
-				App.feeUpdateHttpClient.getHistory(coinInstance.getTicker(), 0, (int) System.currentTimeMillis(), 30000);
-			}).start();
+			httpClient.getHistoryAsync(coinInstance.getTicker(), 0, (int) System.currentTimeMillis(), 30000, HISTORY_TIMEOUT).exceptionally(e -> {
+				LOGGER.log(Level.WARNING, "[BackgroundTimer] Initial history fetch failed for " + coinInstance.getTicker() + ": " + e);
+				return null;
+			});
 		}
 		
 		while (!Thread.currentThread().isInterrupted()) {
@@ -0,0 +1,421 @@
+package io.cloudchains.app.util.txcache;
+
+import com.google.gson.JsonObject;
+import io.cloudchains.app.net.CoinTicker;
+import io.cloudchains.app.net.CoinTickerUtils;
+import io.cloudchains.app.net.api.JSONRPCController;
+import io.cloudchains.app.util.ConfigHelper;
+import org.bitcoinj.core.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Append-only, memory-mapped store of confirmed transactions, one file per coin
+ * under the data directory. Records are never modified. When the file reaches its
+ * size bound the oldest records are dropped by rewriting the newest half.
+ *
+ * Record layout (big endian):
+ * <pre>
+ * int     length of the rest of the record, written last so torn writes are ignored
+ * byte[32] txid
+ * int     block height
+ * int     raw length, raw transaction bytes
+ * int     json length, verbose transaction JSON (UTF-8)
+ * </pre>
+ */
+public class TransactionStore {
+	private final static LogManager LOGMANAGER = LogManager.getLogManager();
+	private final static Logger LOGGER = LOGMANAGER.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+	private static final int MAGIC = 0x584c5458; // "XLTX"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 8;
+	private static final int TXID_SIZE = 32;
+	private static final int MIN_CAPACITY = 1024 * 1024;
+
+	private static final ConcurrentHashMap<CoinTicker, TransactionStore> stores = new ConcurrentHashMap<>();
+	// Cached for coins whose store could not be opened, so the open is not retried on every lookup
+	private static final TransactionStore UNAVAILABLE = new TransactionStore(null, null, 0);
+
+	private final CoinTicker ticker;
+	private final File file;
+	private final int maxSize;
+
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int writePosition;
+	private final LinkedHashMap<String, Integer> index = new LinkedHashMap<>();
+
+	private long hits = 0;
+	private long misses = 0;
+	private long compactions = 0;
+	private boolean compactionFailed = false;
+
+	/**
+	 * Returns the store for a coin, opening it on first use.
+	 * @param ticker Coin
+	 * @return Store or null if it could not be opened
+	 */
+	public static TransactionStore getStore(CoinTicker ticker) {
+		ConfigHelper masterConfig = JSONRPCController.getMasterConfig();
+		if (masterConfig.getTxCacheMaxSize() <= 0)
+			return null;
+
+		TransactionStore store = stores.computeIfAbsent(ticker, t -> {
+			File directory = new File(ConfigHelper.getLocalDataDirectory() + "txcache");
+			if (!directory.exists() && !directory.mkdirs()) {
+				LOGGER.log(Level.WARNING, "[txcache] Could not create " + directory);
+				return UNAVAILABLE;
+			}
+
+			File file = new File(directory, CoinTickerUtils.tickerToString(t) + ".dat");
+			try {
+				return open(t, file, masterConfig.getTxCacheMaxSize());
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "[txcache] Failed to open " + file + ", transactions of " + t + " will not be cached: " + e);
+				return UNAVAILABLE;
+			}
+		});
+
+		return store == UNAVAILABLE ? null : store;
+	}
+
+	/**
+	 * Opens a store file, dropping a torn record at its end.
+	 * @param ticker Coin
+	 * @param file Store file, created if it does not exist
+	 * @param maxSize Size bound in bytes, at least 1 MB
+	 * @return Open store
+	 */
+	public static TransactionStore open(CoinTicker ticker, File file, long maxSize) throws IOException {
+		TransactionStore store = new TransactionStore(ticker, file, maxSize);
+		synchronized (store) {
+			try {
+				store.open();
+			} catch (IOException e) {
+				if (store.channel != null)
+					store.channel.close();
+				throw e;
+			}
+		}
+		return store;
+	}
+
+	public static void closeAll() {
+		for (TransactionStore store : stores.values())
+			store.close();
+
+		stores.clear();
+	}
+
+	public static JsonObject getAllStats() {
+		JsonObject stats = new JsonObject();
+		for (Map.Entry<CoinTicker, TransactionStore> entry : stores.entrySet()) {
+			if (entry.getValue() != UNAVAILABLE)
+				stats.add(CoinTickerUtils.tickerToString(entry.getKey()), entry.getValue().getStats());
+		}
+
+		return stats;
+	}
+
+	private TransactionStore(CoinTicker ticker, File file, long maxSize) {
+		this.ticker = ticker;
+		this.file = file;
+		this.maxSize = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_CAPACITY, maxSize));
+	}
+
+	/**
+	 * Looks up a stored transaction.
+	 * @param txid Transaction id
+	 * @return Stored transaction or null if unknown
+	 */
+	public synchronized StoredTransaction get(String txid) {
+		Integer offset = index.get(txid);
+		if (offset == null || buffer == null) {
+			misses++;
+			return null;
+		}
+
+		hits++;
+		ByteBuffer record = buffer.duplicate();
+		record.position(offset + 4 + TXID_SIZE);
+
+		int height = record.getInt();
+		byte[] raw = new byte[record.getInt()];
+		record.get(raw);
+		byte[] json = new byte[record.getInt()];
+		record.get(json);
+
+		return new StoredTransaction(txid, height, raw, new String(json, StandardCharsets.UTF_8));
+	}
+
+	public synchronized boolean contains(String txid) {
+		return index.containsKey(txid);
+	}
+
+	/**
+	 * Appends a transaction unless it is already stored.
+	 * @param txid Transaction id
+	 * @param height Height of the block containing the transaction
+	 * @param raw Serialized transaction
+	 * @param json Verbose transaction JSON
+	 * @return true if the transaction was added
+	 */
+	public synchronized boolean put(String txid, int height, byte[] raw, String json) {
+		if (buffer == null || index.containsKey(txid) || txid.length() != TXID_SIZE * 2)
+			return false;
+
+		byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+		int recordLength = TXID_SIZE + 4 + 4 + raw.length + 4 + jsonBytes.length;
+		int size = 4 + recordLength;
+		if (HEADER_SIZE + size > maxSize / 2)
+			return false;
+
+		try {
+			if (writePosition + size > maxSize) {
+				// A failed compaction is not retried for every put, the store keeps serving what it has
+				if (compactionFailed)
+					return false;
+
+				try {
+					compact(size);
+				} catch (IOException e) {
+					compactionFailed = true;
+					LOGGER.log(Level.WARNING, "[txcache] Failed to compact " + file + ", no more transactions will be cached: " + e);
+					return false;
+				}
+			}
+
+			ensureCapacity(writePosition + size);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "[txcache] Failed to grow " + file + ": " + e);
+			return false;
+		}
+
+		ByteBuffer record = buffer.duplicate();
+		record.position(writePosition + 4);
+		record.put(Utils.HEX.decode(txid));
+		record.putInt(height);
+		record.putInt(raw.length);
+		record.put(raw);
+		record.putInt(jsonBytes.length);
+		record.put(jsonBytes);
+		buffer.putInt(writePosition, recordLength);
+
+		index.put(txid, writePosition);
+		writePosition += size;
+		return true;
+	}
+
+	public synchronized JsonObject getStats() {
+		JsonObject stats = new JsonObject();
+		stats.addProperty("transactions", index.size());
+		stats.addProperty("bytes", writePosition);
+		stats.addProperty("maxbytes", maxSize);
+		stats.addProperty("hits", hits);
+		stats.addProperty("misses", misses);
+		stats.addProperty("compactions", compactions);
+		return stats;
+	}
+
+	public synchronized void close() {
+		if (channel == null)
+			return;
+
+		try {
+			buffer.force();
+			channel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		buffer = null;
+		channel = null;
+		index.clear();
+	}
+
+	private void open() throws IOException {
+		channel = openChannel(file);
+		int fileSize = (int) Math.min(channel.size(), maxSize);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(MIN_CAPACITY, fileSize));
+
+		if (fileSize < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			clear(0, Math.max(fileSize, HEADER_SIZE));
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			writePosition = HEADER_SIZE;
+			return;
+		}
+
+		writePosition = HEADER_SIZE;
+		while (writePosition + 4 <= fileSize) {
+			int recordLength = buffer.getInt(writePosition);
+			if (recordLength < TXID_SIZE + 12 || writePosition + 4 + recordLength > fileSize)
+				break;
+
+			byte[] txid = new byte[TXID_SIZE];
+			ByteBuffer record = buffer.duplicate();
+			record.position(writePosition + 4);
+			record.get(txid);
+
+			index.put(Utils.HEX.encode(txid), writePosition);
+			writePosition += 4 + recordLength;
+		}
+
+		// Anything after the last complete record is a torn write
+		clear(writePosition, fileSize);
+
+		LOGGER.log(Level.FINER, "[txcache] Loaded " + index.size() + " transactions for " + ticker);
+	}
+
+	private void ensureCapacity(int needed) throws IOException {
+		if (needed <= buffer.capacity())
+			return;
+
+		int capacity = (int) Math.min(maxSize, Math.max((long) needed, buffer.capacity() * 2L));
+		buffer.force();
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+	}
+
+	/**
+	 * Rewrites the file keeping only the newest records, so at least half the size
+	 * bound is free afterwards.
+	 */
+	private void compact(int incoming) throws IOException {
+		int budget = maxSize / 2 - HEADER_SIZE - incoming;
+
+		// Walk from newest to oldest until the budget is used up
+		List<Map.Entry<String, Integer>> entries = new ArrayList<>(index.entrySet());
+		int first = entries.size();
+		int kept = 0;
+		while (first > 0) {
+			int size = 4 + buffer.getInt(entries.get(first - 1).getValue());
+			if (kept + size > budget)
+				break;
+			kept += size;
+			first--;
+		}
+
+		int newSize = HEADER_SIZE;
+		for (int i = first; i < entries.size(); i++)
+			newSize += 4 + buffer.getInt(entries.get(i).getValue());
+
+		// The compacted copy is built and mapped next to the file. The current mapping
+		// stays in use until the copy has replaced the file, so a failure leaves it intact.
+		File tempFile = new File(file.getPath() + ".tmp");
+		FileChannel newChannel = openChannel(tempFile);
+		try {
+			newChannel.truncate(0);
+			MappedByteBuffer newBuffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(MIN_CAPACITY, newSize));
+			newBuffer.putInt(0, MAGIC);
+			newBuffer.putInt(4, VERSION);
+
+			LinkedHashMap<String, Integer> newIndex = new LinkedHashMap<>();
+			int position = HEADER_SIZE;
+			for (int i = first; i < entries.size(); i++) {
+				int offset = entries.get(i).getValue();
+				int size = 4 + buffer.getInt(offset);
+
+				ByteBuffer record = buffer.duplicate();
+				record.position(offset);
+				record.limit(offset + size);
+				ByteBuffer target = newBuffer.duplicate();
+				target.position(position);
+				target.put(record);
+
+				newIndex.put(entries.get(i).getKey(), position);
+				position += size;
+			}
+			newBuffer.force();
+
+			try {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			FileChannel oldChannel = channel;
+			channel = newChannel;
+			buffer = newBuffer;
+			index.clear();
+			index.putAll(newIndex);
+			writePosition = position;
+			newChannel = null;
+
+			try {
+				oldChannel.close();
+			} catch (IOException e) {
+				LOGGER.log(Level.FINER, "[txcache] Failed to close replaced file of " + ticker + ": " + e);
+			}
+		} finally {
+			if (newChannel != null) {
+				newChannel.close();
+				Files.deleteIfExists(tempFile.toPath());
+			}
+		}
+
+		compactions++;
+
+		int dropped = first;
+		LOGGER.log(Level.FINER, "[txcache] Compacted " + ticker + ", dropped " + dropped + " transactions");
+	}
+
+	/**
+	 * Opened through NIO so the file can be replaced while it is open, on Windows too.
+	 */
+	private static FileChannel openChannel(File file) throws IOException {
+		return FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+	}
+
+	private void clear(int from, int to) {
+		for (int i = from; i < to; i++)
+			buffer.put(i, (byte) 0);
+	}
+
+	public static class StoredTransaction {
+		private final String txid;
+		private final int height;
+		private final byte[] raw;
+		private final String json;
+
+		StoredTransaction(String txid, int height, byte[] raw, String json) {
+			this.txid = txid;
+			this.height = height;
+			this.raw = raw;
+			this.json = json;
+		}
+
+		public String getTxid() {
+			return txid;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		public String getHex() {
+			return Utils.HEX.encode(raw);
+		}
+
+		public String getJson() {
+			return json;
+		}
+	}
+}
@@ -6,7 +6,10 @@ import io.cloudchains.app.net.CoinTicker;
 import io.cloudchains.app.net.protocols.blocknet.BlocknetPeer;
 import io.cloudchains.app.util.AddressBalance;
 import io.cloudchains.app.util.CloudTransaction;
+import io.cloudchains.app.util.Outpoint;
 import io.cloudchains.app.util.UTXO;
+import io.cloudchains.app.util.WalletState;
+import io.cloudchains.app.util.WalletStore;
 import org.bitcoinj.core.*;
 import org.bitcoinj.core.Base58;
 import org.bitcoinj.crypto.DeterministicKey;
@@ -16,6 +19,7 @@ import org.bitcoinj.wallet.Wallet;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 
 public class WalletHelper {
 	private CoinInstance coin;
@@ -32,21 +36,23 @@ public class WalletHelper {
 			ArrayList<UTXO> utxos = coinSelector(amount);
 
 			Preconditions.checkNotNull(utxos);
+			WalletState state = coin.getWalletState();
+			List<Outpoint> spent = new ArrayList<>();
 			for (UTXO utxo : utxos) {
-				if (utxo.isSpent())
+				if (state.getUnspent(utxo.getOutpoint()) == null)
 					continue;
 
-				org.bitcoinj.core.UTXO bUtxo = utxo.createUTXO();
 				AddressBalance addressBalance = coin.getAddressBalance(utxo.getAddress());
 				Preconditions.checkNotNull(addressBalance);
 
-				TransactionOutPoint outPoint = new TransactionOutPoint(networkParameters, bUtxo.getIndex(), bUtxo.getHash());
+				TransactionOutPoint outPoint = new TransactionOutPoint(networkParameters, utxo.getVout(), Sha256Hash.wrap(utxo.getOutpoint().getTxid()));
 
-				tx.addSignedInput(outPoint, bUtxo.getScript(), addressBalance.getPrivateKey().getKey(), Transaction.SigHash.ALL, true);
+				tx.addSignedInput(outPoint, utxo.getScript(), addressBalance.getPrivateKey().getKey(), Transaction.SigHash.ALL, true);
 
-				utxo.setSpent(true);
-				addressBalance.calculateBalance();
+				spent.add(utxo.getOutpoint());
 			}
+
+			coin.getWalletStore().setSpent(spent, true);
 			return tx;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -65,11 +71,7 @@ public class WalletHelper {
 	}
 
 	private ArrayList<UTXO> sortLeastToGreatest() {
-		ArrayList<UTXO> utxos = new ArrayList<>();
-
-		for (AddressBalance addressBalance : coin.getAddressKeyPairs()) {
-			utxos.addAll(addressBalance.getUtxos());
-		}
+		ArrayList<UTXO> utxos = new ArrayList<>(coin.getWalletState().getAllUnspent());
 
 		utxos.sort(Comparator.comparingLong(UTXO::getValue));
 
@@ -77,11 +79,7 @@ public class WalletHelper {
 	}
 
 	private ArrayList<UTXO> advancedCoinSorting() {
-		ArrayList<UTXO> utxos = new ArrayList<>();
-
-		for (AddressBalance addressBalance : coin.getAddressKeyPairs()) {
-			utxos.addAll(addressBalance.getUtxos());
-		}
+		ArrayList<UTXO> utxos = new ArrayList<>(coin.getWalletState().getAllUnspent());
 
 		utxos.sort(Comparator.comparingLong(UTXO::getValue));
 
@@ -110,7 +108,7 @@ public class WalletHelper {
 		return res;
 	}
 
-	private ArrayList<UTXO> coinSelector(double amount) {
+	ArrayList<UTXO> coinSelector(double amount) {
 		ArrayList<UTXO> utxos = new ArrayList<>();
 		double totalBalance = 0.0;
 
@@ -135,12 +133,7 @@ public class WalletHelper {
 	}
 
 	public double getTotalBalance() {
-		double totalBalance = 0.0;
-
-		for (AddressBalance addressBalance : coin.getAddressKeyPairs())
-			totalBalance += addressBalance.getBalanceProp();
-
-		return totalBalance;
+		return coin.getWalletState().getTotalBalance() / 100000000.0;
 	}
 
 	public double getSpendBalance(double amount) {
@@ -155,17 +148,22 @@ public class WalletHelper {
 	}
 
 	public Address getChangeAddress() {
-		if (coin.getAddressKeyPairs().isEmpty()) {
+		List<AddressBalance> addresses = coin.getWalletState().getAddresses();
+		if (addresses.isEmpty()) {
 			return null;
 		}
 
-		return coin.getAddressKeyPairs().get(0).getAddress();
+		return addresses.get(0).getAddress();
 	}
 
 	public AddressBalance generateAddress() {
-		Wallet wallet = coin.getWallet();
-		NetworkParameters params = coin.getNetworkParameters();
+		return deriveAddress(coin.getWallet(), coin.getNetworkParameters(), coin.getWalletStore());
+	}
 
+	/**
+	 * Derives the next receive key of an HD wallet and its address.
+	 */
+	static AddressBalance deriveAddress(Wallet wallet, NetworkParameters params, WalletStore walletStore) {
 		DeterministicKey key = wallet.freshReceiveKey();
 		DumpedPrivateKey privateKey = key.getPrivateKeyEncoded(params);
 
@@ -184,7 +182,7 @@ public class WalletHelper {
 			}
 		};
 
-		return new AddressBalance(address, privateKey);
+		return new AddressBalance(address, privateKey, walletStore);
 	}
 
 	public AddressBalance generateFromPrivateKey(String privKey) {
@@ -208,7 +206,7 @@ public class WalletHelper {
 			}
 		};
 
-		return new AddressBalance(address, privateKey);
+		return new AddressBalance(address, privateKey, coin.getWalletStore());
 	}
 
 	public void addTransactionToWallet(Transaction transaction) {
@@ -250,6 +248,7 @@ public class WalletHelper {
 	public static void setAsSpent(CoinTicker coinTicker, Transaction transaction, boolean setSpent) {
 		CoinInstance coinInstance = CoinInstance.getInstance(coinTicker);
 
+		List<Outpoint> outpoints = new ArrayList<>();
 		for (TransactionInput input : transaction.getInputs()) {
 			Sha256Hash txid = input.getOutpoint().getHash();
 			long vout = input.getOutpoint().getIndex();
@@ -257,15 +256,10 @@ public class WalletHelper {
 			if (txid == null)
 				continue;
 
-			for (AddressBalance addressBalance : coinInstance.getAddressKeyPairs()) {
-				for (UTXO utxo : addressBalance.getUtxos()) {
-
-					if (Sha256Hash.wrap(utxo.getTxid()).equals(txid) && utxo.getVout() == vout) {
-						utxo.setSpent(setSpent);
-					}
-				}
-			}
+			outpoints.add(new Outpoint(txid, vout));
 		}
+
+		coinInstance.getWalletStore().setSpent(outpoints, setSpent);
 	}
 
 	private static boolean isP2SHAddress(CoinInstance coin, String address) {
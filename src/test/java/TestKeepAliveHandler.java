@@ -0,0 +1,138 @@
+import io.cloudchains.app.net.api.http.server.KeepAliveHandler;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestKeepAliveHandler {
+
+    private static final String ID = "X-Request-Id";
+
+    private final List<FullHttpRequest> dispatched = new ArrayList<>();
+
+    @AfterEach
+    void releaseRequests() {
+        for (FullHttpRequest request : dispatched)
+            ReferenceCountUtil.release(request);
+        dispatched.clear();
+    }
+
+    @Test
+    void pipelinedRequests_answeredInRequestOrder() {
+        EmbeddedChannel channel = channel(100);
+        channel.writeInbound(request("1"), request("2"));
+
+        // The second request is held back while the first is being served, so it
+        // cannot be answered before the slower first one
+        assertEquals(1, dispatched.size());
+        assertEquals("1", dispatched.get(0).headers().get(ID));
+
+        channel.writeAndFlush(response("1", true));
+        channel.runPendingTasks();
+        assertEquals(2, dispatched.size());
+        assertEquals("2", dispatched.get(1).headers().get(ID));
+
+        channel.writeAndFlush(response("2", true));
+        channel.runPendingTasks();
+
+        assertEquals("1", readResponseId(channel));
+        assertEquals("2", readResponseId(channel));
+        assertTrue(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void chunkedResponse_completesWithLastContent() {
+        EmbeddedChannel channel = channel(100);
+        channel.writeInbound(request("1"), request("2"));
+
+        HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        HttpUtil.setTransferEncodingChunked(head, true);
+        channel.writeAndFlush(head);
+        channel.writeAndFlush(new DefaultHttpContent(Unpooled.copiedBuffer(new byte[]{1, 2, 3})));
+        channel.runPendingTasks();
+        assertEquals(1, dispatched.size());
+
+        channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        channel.runPendingTasks();
+        assertEquals(2, dispatched.size());
+        assertTrue(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void requestLimit_closesAfterLastResponse() {
+        EmbeddedChannel channel = channel(2);
+
+        channel.writeInbound(request("1"));
+        assertTrue(HttpUtil.isKeepAlive(dispatched.get(0)));
+        channel.writeAndFlush(response("1", HttpUtil.isKeepAlive(dispatched.get(0))));
+        channel.runPendingTasks();
+        assertTrue(channel.isOpen());
+
+        channel.writeInbound(request("2"), request("3"));
+        assertEquals(2, dispatched.size());
+        assertFalse(HttpUtil.isKeepAlive(dispatched.get(1)));
+        channel.writeAndFlush(response("2", HttpUtil.isKeepAlive(dispatched.get(1))));
+        channel.runPendingTasks();
+
+        assertFalse(channel.isOpen());
+        assertEquals(2, dispatched.size());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void idle_closesOnlyWithoutCallInFlight() {
+        EmbeddedChannel channel = channel(100);
+
+        channel.writeInbound(request("1"));
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.ALL_IDLE_STATE_EVENT);
+        assertTrue(channel.isOpen());
+
+        channel.writeAndFlush(response("1", true));
+        channel.runPendingTasks();
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.ALL_IDLE_STATE_EVENT);
+        assertFalse(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    private EmbeddedChannel channel(int maxRequests) {
+        return new EmbeddedChannel(new KeepAliveHandler(maxRequests), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                dispatched.add((FullHttpRequest) msg);
+            }
+        });
+    }
+
+    private static FullHttpRequest request(String id) {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+        request.headers().set(ID, id);
+        return request;
+    }
+
+    private static FullHttpResponse response(String id, boolean keepAlive) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(ID, id);
+        HttpUtil.setContentLength(response, 0);
+        HttpUtil.setKeepAlive(response, keepAlive);
+        return response;
+    }
+
+    private static String readResponseId(EmbeddedChannel channel) {
+        FullHttpResponse response = channel.readOutbound();
+        assertNotNull(response);
+        String id = response.headers().get(ID);
+        ReferenceCountUtil.release(response);
+        return id;
+    }
+}
@@ -0,0 +1,148 @@
+import io.cloudchains.app.net.CoinTicker;
+import io.cloudchains.app.util.txcache.TransactionStore;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestTransactionStore {
+
+    private static final CoinTicker TICKER = CoinTicker.LITECOIN;
+    private static final long MAX_SIZE = 1024 * 1024;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void putAndGet_roundTrip() throws IOException {
+        TransactionStore store = TransactionStore.open(TICKER, new File(directory, "LTC.dat"), MAX_SIZE);
+        try {
+            assertNull(store.get(txid(1)));
+            assertTrue(store.put(txid(1), 100, raw(1, 50), json(1, 20)));
+            assertFalse(store.put(txid(1), 100, raw(1, 50), json(1, 20)));
+
+            TransactionStore.StoredTransaction stored = store.get(txid(1));
+            assertNotNull(stored);
+            assertEquals(txid(1), stored.getTxid());
+            assertEquals(100, stored.getHeight());
+            assertEquals(hex(raw(1, 50)), stored.getHex());
+            assertEquals(json(1, 20), stored.getJson());
+            assertTrue(store.contains(txid(1)));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void reopen_keepsTransactions() throws IOException {
+        File file = new File(directory, "LTC.dat");
+        TransactionStore store = TransactionStore.open(TICKER, file, MAX_SIZE);
+        for (int i = 0; i < 10; i++)
+            assertTrue(store.put(txid(i), 1000 + i, raw(i, 100), json(i, 200)));
+        store.close();
+
+        store = TransactionStore.open(TICKER, file, MAX_SIZE);
+        try {
+            for (int i = 0; i < 10; i++) {
+                TransactionStore.StoredTransaction stored = store.get(txid(i));
+                assertNotNull(stored);
+                assertEquals(1000 + i, stored.getHeight());
+                assertEquals(json(i, 200), stored.getJson());
+            }
+            assertTrue(store.put(txid(10), 1010, raw(10, 100), json(10, 200)));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void reopen_dropsTruncatedTail() throws IOException {
+        File file = new File(directory, "LTC.dat");
+        TransactionStore store = TransactionStore.open(TICKER, file, MAX_SIZE);
+        assertTrue(store.put(txid(1), 1, raw(1, 100), json(1, 200)));
+        assertTrue(store.put(txid(2), 2, raw(2, 100), json(2, 200)));
+        store.close();
+
+        // Header, then length, txid, height, raw and json of the first record
+        int secondRecord = 8 + 4 + 32 + 4 + 4 + 100 + 4 + json(1, 200).length();
+        try (RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+            truncated.setLength(secondRecord + 60);
+        }
+
+        store = TransactionStore.open(TICKER, file, MAX_SIZE);
+        try {
+            assertNotNull(store.get(txid(1)));
+            assertNull(store.get(txid(2)));
+            assertTrue(store.put(txid(3), 3, raw(3, 100), json(3, 200)));
+            assertEquals(json(3, 200), store.get(txid(3)).getJson());
+        } finally {
+            store.close();
+        }
+
+        store = TransactionStore.open(TICKER, file, MAX_SIZE);
+        try {
+            assertNotNull(store.get(txid(1)));
+            assertNotNull(store.get(txid(3)));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void compaction_keepsNewest() throws IOException {
+        File file = new File(directory, "LTC.dat");
+        int count = 30;
+        TransactionStore store = TransactionStore.open(TICKER, file, MAX_SIZE);
+        for (int i = 0; i < count; i++)
+            assertTrue(store.put(txid(i), i, raw(i, 100), json(i, 100 * 1024)));
+
+        try {
+            assertTrue(store.getStats().get("compactions").getAsLong() >= 1);
+            assertTrue(store.getStats().get("bytes").getAsLong() <= MAX_SIZE);
+            assertNull(store.get(txid(0)));
+            assertEquals(json(count - 1, 100 * 1024), store.get(txid(count - 1)).getJson());
+            assertFalse(new File(file.getPath() + ".tmp").exists());
+        } finally {
+            store.close();
+        }
+
+        store = TransactionStore.open(TICKER, file, MAX_SIZE);
+        try {
+            assertNull(store.get(txid(0)));
+            assertEquals(json(count - 1, 100 * 1024), store.get(txid(count - 1)).getJson());
+            assertTrue(store.put(txid(count), count, raw(count, 100), json(count, 100 * 1024)));
+        } finally {
+            store.close();
+        }
+    }
+
+    private static String txid(int n) {
+        return String.format("%064x", n);
+    }
+
+    private static byte[] raw(int n, int length) {
+        byte[] raw = new byte[length];
+        Arrays.fill(raw, (byte) n);
+        return raw;
+    }
+
+    private static String json(int n, int length) {
+        StringBuilder json = new StringBuilder("{\"n\":" + n + ",\"pad\":\"");
+        while (json.length() < length - 2)
+            json.append('x');
+        return json.append("\"}").toString();
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes)
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+}
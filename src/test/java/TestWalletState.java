@@ -0,0 +1,169 @@
+import io.cloudchains.app.net.CoinTicker;
+import io.cloudchains.app.util.AddressBalance;
+import io.cloudchains.app.util.UTXO;
+import io.cloudchains.app.util.WalletState;
+import io.cloudchains.app.util.WalletStore;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.params.MainNetParams;
+import org.junit.jupiter.api.*;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestWalletState {
+
+    private static final CoinTicker TICKER = CoinTicker.BITCOIN;
+    private static final NetworkParameters PARAMS = MainNetParams.get();
+
+    private final WalletStore store = new WalletStore();
+
+    @Test
+    void builder_diffsAgainstBase() {
+        AddressBalance address = address(1);
+        UTXO known = utxo(address, 1, 1000);
+        UTXO added = utxo(address, 2, 2000);
+        assertTrue(address.addUtxo(known));
+        WalletState before = store.get();
+
+        List<UTXO> newUtxos = store.update(builder -> {
+            WalletState base = builder.getBase();
+            assertSame(before, base);
+
+            // Clearing leaves the base untouched, the diff still sees the known utxo there
+            builder.clearUnspent(address.getAddrProp());
+            assertNull(builder.getUtxo(known.getOutpoint()));
+            assertNotNull(base.getUtxo(known.getOutpoint()));
+
+            List<UTXO> diff = new ArrayList<>();
+            for (UTXO utxo : Arrays.asList(known, added)) {
+                if (builder.addUtxo(utxo) && base.getUtxo(utxo.getOutpoint()) == null)
+                    diff.add(utxo);
+            }
+            return diff;
+        });
+
+        assertEquals(Collections.singletonList(added), newUtxos);
+
+        WalletState after = store.get();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(2, after.getUnspent(address.getAddrProp()).size());
+        assertEquals(3000, after.getBalance(address.getAddrProp()));
+        assertEquals(3000, after.getTotalBalance());
+
+        // Removing through the next builder does not change the published version
+        store.setSpent(added.getOutpoint(), true);
+        assertFalse(after.isSpent(added.getOutpoint()));
+        assertEquals(3000, after.getBalance(address.getAddrProp()));
+        assertEquals(1000, store.get().getBalance(address.getAddrProp()));
+        assertTrue(store.get().isSpent(added.getOutpoint()));
+    }
+
+    @Test
+    void spentUtxos_stayKnownAcrossRefresh() {
+        AddressBalance address = address(1);
+        UTXO spent = utxo(address, 1, 1000);
+        UTXO unspent = utxo(address, 2, 2000);
+        address.setUtxos(new ArrayList<>(Arrays.asList(spent, unspent)));
+        assertTrue(store.setSpent(spent.getOutpoint(), true));
+
+        // A backend that has not seen the spending transaction still reports it
+        address.setUtxos(new ArrayList<>(Arrays.asList(spent, unspent)));
+        assertTrue(store.get().isSpent(spent.getOutpoint()));
+        assertEquals(Collections.singletonList(unspent), address.getUtxos());
+        assertEquals(Collections.singletonList(spent), address.getSpentUtxos());
+        assertEquals(2000, store.get().getBalance(address.getAddrProp()));
+
+        address.clearUtxos();
+        assertTrue(address.getUtxos().isEmpty());
+        assertEquals(Collections.singletonList(spent), address.getSpentUtxos());
+        assertFalse(address.addUtxo(spent));
+        assertEquals(0, store.get().getTotalBalance());
+    }
+
+    @Test
+    void concurrentUpdates_keepAddressViewsConsistent() throws Exception {
+        int addressCount = 8;
+        int utxosPerAddress = 200;
+        List<AddressBalance> addresses = new ArrayList<>();
+        for (int i = 0; i < addressCount; i++)
+            addresses.add(address(i + 1));
+
+        // A reader must always see each address view match the total balance
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(addressCount + 1);
+        Future<?> reader = executor.submit(() -> {
+            while (!done.get()) {
+                WalletState state = store.get();
+                long total = 0;
+                for (AddressBalance address : addresses) {
+                    long sum = 0;
+                    for (UTXO utxo : state.getUnspent(address.getAddrProp()))
+                        sum += utxo.getValue();
+                    assertEquals(sum, state.getBalance(address.getAddrProp()));
+                    total += sum;
+                }
+                assertEquals(total, state.getTotalBalance());
+            }
+        });
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int a = 0; a < addressCount; a++) {
+            AddressBalance address = addresses.get(a);
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < utxosPerAddress; i++) {
+                    UTXO utxo = utxo(address, i, 1000 + i);
+                    assertTrue(address.addUtxo(utxo));
+                    // Every other utxo is spent again
+                    if (i % 2 == 1)
+                        assertTrue(store.setSpent(utxo.getOutpoint(), true));
+                }
+            }));
+        }
+
+        for (Future<?> writer : writers)
+            writer.get(60, TimeUnit.SECONDS);
+        done.set(true);
+        reader.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        WalletState state = store.get();
+        long total = 0;
+        for (AddressBalance address : addresses) {
+            List<UTXO> unspent = state.getUnspent(address.getAddrProp());
+            assertEquals(utxosPerAddress / 2, unspent.size());
+            assertEquals(utxosPerAddress / 2, state.getSpent(address.getAddrProp()).size());
+
+            long expected = 0;
+            for (int i = 0; i < utxosPerAddress; i += 2) {
+                UTXO utxo = unspent.get(i / 2);
+                assertEquals(address.getAddrProp(), utxo.getAddress());
+                assertEquals(i, utxo.getVout());
+                expected += 1000 + i;
+            }
+            assertEquals(expected, state.getBalance(address.getAddrProp()));
+            total += expected;
+        }
+        assertEquals(total, state.getTotalBalance());
+        assertEquals(addressCount * utxosPerAddress, state.getUtxoCount());
+    }
+
+    private AddressBalance address(int index) {
+        ECKey key = ECKey.fromPrivate(BigInteger.valueOf(index));
+        AddressBalance address = new AddressBalance(key.toAddress(PARAMS), key.getPrivateKeyEncoded(PARAMS), store);
+        store.addAddress(address);
+        return address;
+    }
+
+    private static UTXO utxo(AddressBalance address, int vout, long value) {
+        // One transaction per address, its outputs are the address's utxos
+        String txid = Sha256Hash.of(address.getAddrProp().getBytes(StandardCharsets.UTF_8)).toString();
+        return new UTXO(TICKER, address.getAddrProp(), txid, vout, 100, value);
+    }
+}
@@ -0,0 +1,152 @@
+package io.cloudchains.app.net.api.http.client;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestRpcBatcher {
+
+    private static final int BATCH_SIZE = 3;
+
+    private FakeClient client;
+
+    @AfterEach
+    void closeClient() {
+        if (client != null)
+            client.close();
+    }
+
+    @Test
+    void batchReply_matchedById() throws Exception {
+        // Answered out of order, each call still gets its own reply
+        client = new FakeClient(request -> {
+            JsonArray reply = new JsonArray();
+            for (int i = request.size() - 1; i >= 0; i--)
+                reply.add(reply(request.get(i).getAsJsonObject(), "batch"));
+            return reply.toString();
+        });
+        RpcBatcher batcher = new RpcBatcher(client, BATCH_SIZE);
+
+        List<CompletableFuture<String>> results = postBatch(batcher);
+        for (int i = 0; i < BATCH_SIZE; i++)
+            assertEquals("batch-" + i, result(results.get(i)));
+
+        assertEquals(0, client.singles.size());
+        assertEquals(BATCH_SIZE, batcher.getBatchSize());
+        assertEquals(0, batcher.getStats().get("fallbacks").getAsLong());
+    }
+
+    @Test
+    void batchReplyWithoutIds_fallsBackToSingleCalls() throws Exception {
+        client = new FakeClient(request -> {
+            JsonArray reply = new JsonArray();
+            for (JsonElement call : request) {
+                JsonObject entry = reply(call.getAsJsonObject(), "batch");
+                entry.addProperty("id", "not-a-number");
+                reply.add(entry);
+            }
+            return reply.toString();
+        });
+        RpcBatcher batcher = new RpcBatcher(client, BATCH_SIZE);
+
+        List<CompletableFuture<String>> results = postBatch(batcher);
+        for (int i = 0; i < BATCH_SIZE; i++)
+            assertEquals("single-" + i, result(results.get(i)));
+
+        assertEquals(BATCH_SIZE, client.singles.size());
+        assertEquals(1, batcher.getBatchSize());
+        assertEquals(1, batcher.getStats().get("fallbacks").getAsLong());
+    }
+
+    @Test
+    void nonArrayReply_fallsBackToSingleCalls() throws Exception {
+        client = new FakeClient(request -> "{\"result\":null,\"error\":{\"code\":-32600},\"id\":null}");
+        RpcBatcher batcher = new RpcBatcher(client, BATCH_SIZE);
+
+        List<CompletableFuture<String>> results = postBatch(batcher);
+        for (int i = 0; i < BATCH_SIZE; i++)
+            assertEquals("single-" + i, result(results.get(i)));
+
+        assertEquals(1, batcher.getBatchSize());
+        assertEquals(1, batcher.getStats().get("fallbacks").getAsLong());
+    }
+
+    @Test
+    void callsLeftOutOfReply_sentIndividually() throws Exception {
+        client = new FakeClient(request -> {
+            JsonArray reply = new JsonArray();
+            reply.add(reply(request.get(0).getAsJsonObject(), "batch"));
+            return reply.toString();
+        });
+        RpcBatcher batcher = new RpcBatcher(client, BATCH_SIZE);
+
+        List<CompletableFuture<String>> results = postBatch(batcher);
+        assertEquals("batch-0", result(results.get(0)));
+        for (int i = 1; i < BATCH_SIZE; i++)
+            assertEquals("single-" + i, result(results.get(i)));
+
+        // Answered in part, the backend does support batches
+        assertEquals(BATCH_SIZE, batcher.getBatchSize());
+        assertEquals(0, batcher.getStats().get("fallbacks").getAsLong());
+    }
+
+    private static List<CompletableFuture<String>> postBatch(RpcBatcher batcher) {
+        // The batch goes out as soon as it is full
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            JsonObject params = new JsonObject();
+            params.addProperty("method", String.valueOf(i));
+            params.add("params", new JsonArray());
+            results.add(batcher.post(params, 1000));
+        }
+        return results;
+    }
+
+    private static String result(CompletableFuture<String> future) throws Exception {
+        String reply = future.get(5, TimeUnit.SECONDS);
+        assertNotNull(reply);
+        return new Gson().fromJson(reply, JsonObject.class).get("result").getAsString();
+    }
+
+    private static JsonObject reply(JsonObject call, String source) {
+        JsonObject reply = new JsonObject();
+        reply.addProperty("result", source + "-" + call.get("method").getAsString());
+        reply.add("error", null);
+        reply.add("id", call.get("id"));
+        return reply;
+    }
+
+    /**
+     * Answers batch requests with the given function and single calls directly.
+     */
+    private static class FakeClient extends AsyncHTTPClient {
+        private final Function<JsonArray, String> batchReply;
+        private final List<JsonObject> singles = new ArrayList<>();
+
+        private FakeClient(Function<JsonArray, String> batchReply) {
+            super("http://127.0.0.1:1", 1);
+            this.batchReply = batchReply;
+        }
+
+        @Override
+        public CompletableFuture<String> post(String endpoint, JsonElement params, long timeoutMillis) {
+            if (params.isJsonArray())
+                return CompletableFuture.completedFuture(batchReply.apply(params.getAsJsonArray()));
+
+            synchronized (singles) {
+                singles.add(params.getAsJsonObject());
+            }
+            return CompletableFuture.completedFuture(reply(params.getAsJsonObject(), "single").toString());
+        }
+    }
+}